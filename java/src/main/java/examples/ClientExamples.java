@@ -2,11 +2,27 @@ package examples;
 
 import io.vertx.docgen.Source;
 import io.vertx.eventbusclient.AsyncResult;
+import io.vertx.eventbusclient.ConnectStrategy;
+import io.vertx.eventbusclient.DeliveryOptions;
+import io.vertx.eventbusclient.EndpointSelection;
 import io.vertx.eventbusclient.EventBusClient;
 import io.vertx.eventbusclient.EventBusClientOptions;
+import io.vertx.eventbusclient.ExponentialBackoff;
 import io.vertx.eventbusclient.Handler;
+import io.vertx.eventbusclient.HandlerExecutor;
+import io.vertx.eventbusclient.Jitter;
+import io.vertx.eventbusclient.LatencySnapshot;
 import io.vertx.eventbusclient.Message;
 import io.vertx.eventbusclient.MessageConsumer;
+import io.vertx.eventbusclient.ReconnectMetrics;
+import io.vertx.eventbusclient.RegistrationProgress;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 @Source
 public class ClientExamples {
@@ -91,4 +107,185 @@ public class ClientExamples {
 
   }
 
+  public static class News {
+    public String title;
+    public int priority;
+  }
+
+  public void example07(EventBusClient busClient) {
+    // Bind the message bodies to a class
+    busClient.consumer("newsfeed", News.class, new Handler<Message<News>>() {
+      @Override
+      public void handle(Message<News> message) {
+        System.out.println("Received a news " + message.body().title);
+      }
+    });
+
+    // Bind the reply body to a class
+    busClient.request("newsfeed.latest", null, News.class,
+      new Handler<AsyncResult<Message<News>>>() {
+        @Override
+        public void handle(AsyncResult<Message<News>> reply) {
+          if (reply.succeeded()) {
+            System.out.println("Latest news " + reply.result().body().title);
+          }
+        }
+      });
+  }
+
+  public void example08(EventBusClient busClient, Executor executor) {
+    // Complete the reply future with an executor rather than on the event loop
+    CompletionStage<Message<News>> latest = busClient.requestAsync(
+      "newsfeed.latest", null, new DeliveryOptions(), News.class, executor);
+    latest.thenAccept(new Consumer<Message<News>>() {
+      @Override
+      public void accept(Message<News> reply) {
+        System.out.println("Latest news " + reply.body().title);
+      }
+    });
+
+    // Cancel it when the reply is not needed anymore
+    latest.toCompletableFuture().cancel(false);
+  }
+
+  public void example09(EventBusClient busClient) {
+    // Buffer at most 100 messages while the consumer is paused
+    final MessageConsumer<News> consumer = busClient.consumer("newsfeed", News.class,
+      new Handler<Message<News>>() {
+        @Override
+        public void handle(Message<News> message) {
+          System.out.println("Received a news " + message.body().title);
+        }
+      });
+    consumer.setMaxBufferedMessages(100).pause();
+
+    // Deliver 10 messages
+    consumer.fetch(10);
+
+    // Deliver all messages
+    consumer.resume();
+  }
+
+  public void example10(final EventBusClient busClient) {
+    busClient.drainHandler(new Handler<Void>() {
+      @Override
+      public void handle(Void event) {
+        System.out.println("Can publish again");
+      }
+    });
+
+    busClient.publish("newsfeed", "Breaking news", new DeliveryOptions(), new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> ar) {
+        if (ar.failed()) {
+          System.out.println("Could not write the news");
+        }
+      }
+    });
+
+    if (busClient.writeQueueFull()) {
+      // Stop publishing until the drain handler is called
+      return;
+    }
+  }
+
+  public void example11(EventBusClient busClient) {
+    // Run the handlers of an address on one of 4 threads
+    HandlerExecutor executor = HandlerExecutor.striped(4);
+
+    final MessageConsumer<News> consumer = busClient.consumer("newsfeed", News.class, executor, new Handler<Message<News>>() {
+      @Override
+      public void handle(Message<News> message) {
+        System.out.println("Received a news " + message.body().title);
+      }
+    });
+
+    // Stop the threads when the consumer is not needed anymore
+    consumer.unregister();
+    executor.close();
+  }
+
+  public void example12(Collection<String> addresses) {
+    // Register at most 1000 addresses per second, by batches of 100
+    EventBusClientOptions options = new EventBusClientOptions()
+      .setRegistrationBatchSize(100)
+      .setRegistrationRate(1000);
+    EventBusClient busClient = EventBusClient.tcp(options);
+
+    List<MessageConsumer<Object>> consumers = busClient.consumers(addresses, new Handler<Message<Object>>() {
+      @Override
+      public void handle(Message<Object> message) {
+        System.out.println("Received a message on " + message.address());
+      }
+    });
+
+    busClient.registrationHandler(new Handler<RegistrationProgress>() {
+      @Override
+      public void handle(RegistrationProgress progress) {
+        if (progress.isComplete()) {
+          System.out.println("All the " + progress.total() + " addresses are registered");
+        }
+      }
+    });
+  }
+
+  public void example13() {
+    // Pause 1, 2, 4, 8... up to 60 seconds before each try, randomized
+    EventBusClientOptions options = new EventBusClientOptions()
+      .setReconnectPolicy(new ExponentialBackoff()
+        .setMinDelay(1000)
+        .setMaxDelay(60000)
+        .setJitter(Jitter.FULL));
+    EventBusClient busClient = EventBusClient.tcp(options);
+
+    ReconnectMetrics metrics = busClient.reconnectMetrics();
+    System.out.println("Reconnected " + metrics.reconnects() + " times after " + metrics.attempts() + " tries");
+  }
+
+  public void example14() {
+    // Connect to the bridge with the lowest latency, a bridge that could not be connected to is avoided for 10 seconds
+    EventBusClientOptions options = new EventBusClientOptions()
+      .addEndpoint("bridge1.example.com", 7000)
+      .addEndpoint("bridge2.example.com", 7000)
+      .addEndpoint("bridge3.example.com", 7000)
+      .setEndpointSelection(EndpointSelection.LOWEST_LATENCY)
+      .setEndpointCooldown(10000);
+    EventBusClient busClient = EventBusClient.tcp(options);
+
+    busClient.connect();
+  }
+
+  public void example15(EventBusClient busClient) {
+    // Record the latencies of the requests with new EventBusClientOptions().setRequestLatencyHistograms(true)
+    // then print the percentiles of the last interval
+    Map<String, LatencySnapshot> latencies = busClient.requestLatencies(true);
+    for (Map.Entry<String, LatencySnapshot> entry : latencies.entrySet()) {
+      LatencySnapshot latency = entry.getValue();
+      System.out.println(entry.getKey() + ": p50=" + latency.p50() + "us p99=" + latency.p99() + "us p99.9="
+        + latency.p999() + "us max=" + latency.max() + "us");
+    }
+  }
+
+  public void example16() {
+    // Compress the messages larger than 256 bytes, favouring the CPU over the compression ratio
+    EventBusClientOptions options = new EventBusClientOptions()
+      .setWebSocketCompression(true)
+      .setWebSocketCompressionLevel(1)
+      .setWebSocketCompressionThreshold(256);
+    EventBusClient busClient = EventBusClient.webSocket(options);
+
+    busClient.connect();
+  }
+
+  public void example17() {
+    // Race the addresses of the bridge and cache them for at most 60 seconds, a name that does not resolve for 5 seconds
+    EventBusClientOptions options = new EventBusClientOptions()
+      .setHost("bridge.example.com")
+      .setConnectStrategy(ConnectStrategy.HAPPY_EYEBALLS)
+      .setDnsCacheMaxTimeToLive(60)
+      .setDnsCacheNegativeTimeToLive(5);
+    EventBusClient busClient = EventBusClient.tcp(options);
+
+    busClient.connect();
+  }
 }
@@ -0,0 +1,17 @@
+package io.vertx.eventbusclient;
+
+/**
+ * How the client connects to a host resolving to several addresses.
+ */
+public enum ConnectStrategy {
+  /**
+   * The addresses are tried one after the other in the order of the resolution, until a connection succeeds
+   */
+  SEQUENTIAL,
+  /**
+   * The addresses are raced, alternating the IPv6 and IPv4 addresses: when a connection attempt did not succeed after
+   * the happy eyeballs delay, the next address is tried without aborting it and the first connection established wins
+   * (RFC 8305)
+   */
+  HAPPY_EYEBALLS
+}
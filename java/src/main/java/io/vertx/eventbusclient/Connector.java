@@ -0,0 +1,340 @@
+package io.vertx.eventbusclient;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.resolver.DefaultNameResolver;
+import io.netty.resolver.NameResolver;
+import io.netty.resolver.dns.DefaultDnsCache;
+import io.netty.resolver.dns.DefaultDnsCnameCache;
+import io.netty.resolver.dns.DnsNameResolverBuilder;
+import io.netty.resolver.dns.NoopDnsCnameCache;
+import io.netty.resolver.dns.SequentialDnsServerAddressStreamProvider;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the host of an endpoint and connects to its addresses with the {@link ConnectStrategy} of the options.
+ * <p>
+ * The asynchronous resolver caches the answers for the TTL of their records bounded by the DNS cache options, and the
+ * failed resolutions for the negative TTL, so reconnecting does not query the DNS servers again meanwhile. It is
+ * created by the first connection and released with its cache when the connector is closed. The resolution and the
+ * connection attempts run on the event loop.
+ */
+final class Connector {
+
+  // The channels raced by the happy eyeballs get the transport when they win
+  private static final ChannelHandler RACING = new ChannelInitializer<Channel>() {
+    @Override
+    protected void initChannel(Channel ch) {
+    }
+  };
+
+  private final EventLoop eventLoop;
+  private final Bootstrap bootstrap;
+  private final Bootstrap racingBootstrap;
+  private final ChannelHandler transport;
+  private final EventBusClientOptions options;
+  private final InternalLogger logger;
+  // Only accessed from the event loop, null until the first connection and after closing
+  private NameResolver<InetAddress> resolver;
+
+  /**
+   * @param bootstrap the bootstrap of the channels, its handler is the transport
+   */
+  Connector(EventLoop eventLoop, Bootstrap bootstrap, ChannelHandler transport, EventBusClientOptions options) {
+    this.eventLoop = eventLoop;
+    this.bootstrap = bootstrap;
+    this.racingBootstrap = bootstrap.clone()
+      .handler(RACING)
+      .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, options.getConnectTimeout());
+    this.transport = transport;
+    this.options = options;
+    this.logger = InternalLoggerFactory.getInstance(Connector.class);
+  }
+
+  private NameResolver<InetAddress> newResolver() {
+    if (options.isAsyncDnsResolution()) {
+      DnsNameResolverBuilder builder = new DnsNameResolverBuilder(eventLoop)
+        .channelType(NioDatagramChannel.class)
+        .resolveCache(new DefaultDnsCache(options.getDnsCacheMinTimeToLive(), options.getDnsCacheMaxTimeToLive(),
+          options.getDnsCacheNegativeTimeToLive()))
+        .cnameCache(options.getDnsCacheMaxTimeToLive() == 0 ? NoopDnsCnameCache.INSTANCE :
+          new DefaultDnsCnameCache(options.getDnsCacheMinTimeToLive(), options.getDnsCacheMaxTimeToLive()))
+        .queryTimeoutMillis(options.getDnsQueryTimeout());
+      if (!options.getDnsServers().isEmpty()) {
+        List<InetSocketAddress> servers = new ArrayList<InetSocketAddress>();
+        for (String server : options.getDnsServers()) {
+          servers.add(dnsServerAddress(server));
+        }
+        builder.nameServerProvider(new SequentialDnsServerAddressStreamProvider(servers));
+      }
+      return builder.build();
+    }
+    return new DefaultNameResolver(eventLoop);
+  }
+
+  /**
+   * Parses {@code host}, {@code host:port} or {@code [ipv6]:port}, the port defaults to {@code 53}.
+   */
+  static InetSocketAddress dnsServerAddress(String server) {
+    String host = server;
+    int port = 53;
+    if (server.startsWith("[")) {
+      int end = server.indexOf(']');
+      if (end == -1) {
+        throw new IllegalArgumentException("Invalid DNS server " + server);
+      }
+      host = server.substring(1, end);
+      if (end + 1 < server.length()) {
+        if (server.charAt(end + 1) != ':') {
+          throw new IllegalArgumentException("Invalid DNS server " + server);
+        }
+        port = Integer.parseInt(server.substring(end + 2));
+      }
+    } else {
+      int index = server.indexOf(':');
+      // More than one colon is an IPv6 address without a port
+      if (index != -1 && index == server.lastIndexOf(':')) {
+        host = server.substring(0, index);
+        port = Integer.parseInt(server.substring(index + 1));
+      }
+    }
+    return new InetSocketAddress(host, port);
+  }
+
+  /**
+   * Orders the addresses for the happy eyeballs, alternating the families starting with the family of the first
+   * address.
+   */
+  static List<InetAddress> interleave(List<InetAddress> addresses) {
+    Class<?> family = addresses.get(0).getClass();
+    List<InetAddress> preferred = new ArrayList<InetAddress>();
+    List<InetAddress> other = new ArrayList<InetAddress>();
+    for (InetAddress address : addresses) {
+      (address.getClass() == family ? preferred : other).add(address);
+    }
+    List<InetAddress> interleaved = new ArrayList<InetAddress>(addresses.size());
+    for (int i = 0;i < Math.max(preferred.size(), other.size());i++) {
+      if (i < preferred.size()) {
+        interleaved.add(preferred.get(i));
+      }
+      if (i < other.size()) {
+        interleaved.add(other.get(i));
+      }
+    }
+    return interleaved;
+  }
+
+  /**
+   * Connects to a host, cancelling the returned future aborts the resolution and the connection attempts.
+   *
+   * @param channelHandler called with the channel the transport is initialized on before it becomes active
+   * @return the future of the connected channel
+   */
+  Future<Channel> connect(final String host, final int port, final Handler<Channel> channelHandler) {
+    final Promise<Channel> promise = eventLoop.newPromise();
+    if (eventLoop.inEventLoop()) {
+      resolve(host, port, channelHandler, promise);
+    } else {
+      eventLoop.execute(new Runnable() {
+        @Override
+        public void run() {
+          resolve(host, port, channelHandler, promise);
+        }
+      });
+    }
+    return promise;
+  }
+
+  /**
+   * Closes the resolver, a later connection creates a new one.
+   */
+  void close() {
+    if (eventLoop.inEventLoop()) {
+      closeResolver();
+    } else {
+      eventLoop.execute(new Runnable() {
+        @Override
+        public void run() {
+          closeResolver();
+        }
+      });
+    }
+  }
+
+  private void closeResolver() {
+    if (resolver != null) {
+      resolver.close();
+      resolver = null;
+    }
+  }
+
+  private void resolve(final String host, final int port, final Handler<Channel> channelHandler, final Promise<Channel> promise) {
+    if (promise.isDone()) {
+      return;
+    }
+    if (resolver == null) {
+      resolver = newResolver();
+    }
+    resolver.resolveAll(host).addListener(new FutureListener<List<InetAddress>>() {
+      @Override
+      public void operationComplete(Future<List<InetAddress>> future) {
+        if (promise.isDone()) {
+          // Cancelled meanwhile
+          return;
+        }
+        if (!future.isSuccess()) {
+          promise.tryFailure(future.cause());
+          return;
+        }
+        List<InetAddress> addresses = future.getNow();
+        if (options.getProxyHost() != null) {
+          // The channel connects to the proxy, the address is only the destination of the tunnel
+          addresses = addresses.subList(0, 1);
+        }
+        if (options.getConnectStrategy() == ConnectStrategy.HAPPY_EYEBALLS && addresses.size() > 1) {
+          new Race(interleave(addresses), port, channelHandler, promise).run();
+        } else {
+          connect(addresses, 0, port, channelHandler, promise);
+        }
+      }
+    });
+  }
+
+  /**
+   * Connects to the addresses one after the other from {@code index}.
+   */
+  private void connect(final List<InetAddress> addresses, final int index, final int port, final Handler<Channel> channelHandler,
+                       final Promise<Channel> promise) {
+    ChannelFuture future = bootstrap.connect(new InetSocketAddress(addresses.get(index), port));
+    channelHandler.handle(future.channel());
+    future.addListener(new ChannelFutureListener() {
+      @Override
+      public void operationComplete(ChannelFuture future) {
+        if (future.isSuccess()) {
+          if (!promise.trySuccess(future.channel())) {
+            future.channel().close();
+          }
+        } else if (index + 1 < addresses.size() && !promise.isDone()) {
+          logger.info("Connecting to " + addresses.get(index) + " failed, trying " + addresses.get(index + 1) + "...");
+          connect(addresses, index + 1, port, channelHandler, promise);
+        } else {
+          promise.tryFailure(future.cause());
+        }
+      }
+    });
+  }
+
+  /**
+   * Races the connection attempts to the addresses, an attempt is started when the previous one failed or did not
+   * succeed after the happy eyeballs delay, the first channel connected gets the transport and the others are closed.
+   */
+  private class Race implements Runnable, ChannelFutureListener {
+
+    private final List<InetAddress> addresses;
+    private final int port;
+    private final Handler<Channel> channelHandler;
+    private final Promise<Channel> promise;
+    private final List<Channel> attempts = new ArrayList<Channel>();
+    private int next;
+    private int pending;
+    // Set before closing the other attempts, so their failures are ignored
+    private boolean won;
+    private ScheduledFuture<?> timer;
+
+    Race(List<InetAddress> addresses, int port, Handler<Channel> channelHandler, Promise<Channel> promise) {
+      this.addresses = addresses;
+      this.port = port;
+      this.channelHandler = channelHandler;
+      this.promise = promise;
+      promise.addListener(new FutureListener<Channel>() {
+        @Override
+        public void operationComplete(Future<Channel> future) {
+          if (future.isCancelled()) {
+            abort(null);
+          }
+        }
+      });
+    }
+
+    /**
+     * Starts the next attempt.
+     */
+    @Override
+    public void run() {
+      timer = null;
+      if (won || promise.isDone()) {
+        return;
+      }
+      InetSocketAddress address = new InetSocketAddress(addresses.get(next++), port);
+      pending++;
+      ChannelFuture future = racingBootstrap.connect(address);
+      attempts.add(future.channel());
+      future.addListener(this);
+      if (next < addresses.size()) {
+        timer = eventLoop.schedule(this, options.getHappyEyeballsDelay(), TimeUnit.MILLISECONDS);
+      }
+    }
+
+    @Override
+    public void operationComplete(ChannelFuture future) {
+      pending--;
+      Channel ch = future.channel();
+      if (future.isSuccess()) {
+        if (won || promise.isDone()) {
+          ch.close();
+          return;
+        }
+        won = true;
+        abort(ch);
+        // The channel is active already, the transport handlers expect to see it becoming active
+        ch.pipeline().addLast(transport);
+        channelHandler.handle(ch);
+        ch.pipeline().fireChannelActive();
+        promise.trySuccess(ch);
+      } else if (!won && !promise.isDone()) {
+        if (next < addresses.size()) {
+          logger.info("Connection attempt failed (" + future.cause().getMessage() + "), trying " + addresses.get(next) + "...");
+          if (timer != null) {
+            timer.cancel(false);
+          }
+          run();
+        } else if (pending == 0) {
+          promise.tryFailure(future.cause());
+        }
+      }
+    }
+
+    /**
+     * Cancels the next attempt and closes the attempts but the {@code winner}.
+     */
+    private void abort(Channel winner) {
+      if (timer != null) {
+        timer.cancel(false);
+        timer = null;
+      }
+      for (Channel attempt : attempts) {
+        if (attempt != winner) {
+          attempt.close();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package io.vertx.eventbusclient;
+
+/**
+ * The host and port of a bridge.
+ *
+ * @see EventBusClientOptions#addEndpoint(String, int)
+ */
+public final class Endpoint {
+
+  private final String host;
+  private final int port;
+
+  /**
+   * @param host the host of the bridge
+   * @param port the port of the bridge
+   */
+  public Endpoint(String host, int port) {
+    if (host == null) {
+      throw new NullPointerException("host must not be null");
+    }
+    if (port <= 0 || port > 65535) {
+      throw new IllegalArgumentException("port must be > 0 and <= 65535");
+    }
+    this.host = host;
+    this.port = port;
+  }
+
+  /**
+   * @return the host of the bridge
+   */
+  public String host() {
+    return host;
+  }
+
+  /**
+   * @return the port of the bridge
+   */
+  public int port() {
+    return port;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (!(obj instanceof Endpoint)) {
+      return false;
+    }
+    Endpoint that = (Endpoint) obj;
+    return host.equals(that.host) && port == that.port;
+  }
+
+  @Override
+  public int hashCode() {
+    return host.hashCode() * 31 + port;
+  }
+
+  @Override
+  public String toString() {
+    return host + ":" + port;
+  }
+}
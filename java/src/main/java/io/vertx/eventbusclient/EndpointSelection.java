@@ -0,0 +1,20 @@
+package io.vertx.eventbusclient;
+
+/**
+ * How the client chooses the endpoint it connects to among the healthy endpoints, an endpoint is unhealthy during the
+ * endpoint cooldown after the client failed to connect to it.
+ */
+public enum EndpointSelection {
+  /**
+   * The endpoints are tried in turn
+   */
+  ROUND_ROBIN,
+  /**
+   * The endpoint the client failed to connect to the longest time ago, or never did
+   */
+  LEAST_RECENT_FAILURE,
+  /**
+   * The endpoint with the lowest connect latency observed, the endpoints not connected to yet are tried first
+   */
+  LOWEST_LATENCY
+}
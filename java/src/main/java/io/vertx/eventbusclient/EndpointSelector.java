@@ -0,0 +1,116 @@
+package io.vertx.eventbusclient;
+
+import java.util.List;
+
+/**
+ * Chooses the endpoint to connect to and tracks the health of the endpoints.
+ * <p>
+ * This is not intended to be used by application.
+ */
+final class EndpointSelector {
+
+  private final EndpointSelection selection;
+  private final long cooldownNanos;
+  private final Endpoint[] endpoints;
+  // Guarded by this
+  private final long[] unhealthyUntil;
+  private final long[] lastFailure;
+  private final long[] latency;
+  private int next;
+
+  EndpointSelector(List<Endpoint> endpoints, EndpointSelection selection, long cooldownMillis) {
+    this.selection = selection;
+    this.cooldownNanos = cooldownMillis * 1000000;
+    this.endpoints = endpoints.toArray(new Endpoint[endpoints.size()]);
+    this.unhealthyUntil = new long[this.endpoints.length];
+    this.lastFailure = new long[this.endpoints.length];
+    this.latency = new long[this.endpoints.length];
+  }
+
+  int size() {
+    return endpoints.length;
+  }
+
+  /**
+   * Chooses a healthy endpoint, or the endpoint whose cooldown ends first when none is healthy.
+   */
+  synchronized Endpoint select() {
+    long now = System.nanoTime();
+    int selected = -1;
+    for (int i = 0; i < endpoints.length; i++) {
+      // Start after the last selected endpoint, so ties are broken in turn
+      int index = (next + i) % endpoints.length;
+      if (unhealthyUntil[index] != 0 && now - unhealthyUntil[index] < 0) {
+        continue;
+      }
+      if (selected == -1 || isBetter(index, selected)) {
+        selected = index;
+      }
+      if (selection == EndpointSelection.ROUND_ROBIN) {
+        break;
+      }
+    }
+    if (selected == -1) {
+      for (int index = 0; index < endpoints.length; index++) {
+        if (selected == -1 || unhealthyUntil[index] - unhealthyUntil[selected] < 0) {
+          selected = index;
+        }
+      }
+    }
+    next = (selected + 1) % endpoints.length;
+    return endpoints[selected];
+  }
+
+  private boolean isBetter(int index, int selected) {
+    switch (selection) {
+      case LEAST_RECENT_FAILURE:
+        if (lastFailure[selected] == 0) {
+          return false;
+        }
+        return lastFailure[index] == 0 || lastFailure[index] - lastFailure[selected] < 0;
+      case LOWEST_LATENCY:
+        return latency[index] < latency[selected];
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Records a successful connection to an endpoint.
+   *
+   * @param endpoint the endpoint
+   * @param connectNanos the time it took to connect
+   */
+  synchronized void succeeded(Endpoint endpoint, long connectNanos) {
+    int index = indexOf(endpoint);
+    if (index >= 0) {
+      unhealthyUntil[index] = 0;
+      // Smooth the latency, the first one is taken as is
+      latency[index] = latency[index] == 0 ? Math.max(1, connectNanos) : latency[index] + (connectNanos - latency[index]) / 4;
+    }
+  }
+
+  /**
+   * Records a failed connection to an endpoint, it is unhealthy during the cooldown.
+   *
+   * @param endpoint the endpoint
+   */
+  synchronized void failed(Endpoint endpoint) {
+    int index = indexOf(endpoint);
+    if (index >= 0) {
+      long now = System.nanoTime();
+      // Never 0, which means healthy
+      lastFailure[index] = now == 0 ? 1 : now;
+      unhealthyUntil[index] = cooldownNanos == 0 ? 0 : (now + cooldownNanos == 0 ? 1 : now + cooldownNanos);
+    }
+  }
+
+  private int indexOf(Endpoint endpoint) {
+    for (int i = 0; i < endpoints.length; i++) {
+      if (endpoints[i].equals(endpoint)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -1,8 +1,11 @@
 package io.vertx.eventbusclient;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
-import io.netty.channel.ChannelFuture;
+import io.netty.channel.EventLoop;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.util.concurrent.Future;
@@ -10,17 +13,27 @@ import io.netty.util.concurrent.GenericFutureListener;
 import io.netty.util.concurrent.ScheduledFuture;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
+import io.vertx.eventbusclient.json.BodyTypeResolver;
+import io.vertx.eventbusclient.json.Envelope;
 import io.vertx.eventbusclient.json.JsonCodec;
 import io.vertx.eventbusclient.transport.TcpTransport;
 import io.vertx.eventbusclient.transport.Transport;
 import io.vertx.eventbusclient.transport.WebSocketTransport;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -117,115 +130,441 @@ public class EventBusClient {
 
   public static int MESSAGE_PRINT_LIMIT = 10000;
 
+  /**
+   * The key of the latency histogram of the addresses beyond {@link EventBusClientOptions#getMaxLatencyHistograms()}.
+   */
+  public static final String OTHER_ADDRESSES = "*";
+
   private DeliveryOptions defaultOptions = new DeliveryOptions();
   private final Transport transport;
   private final NioEventLoopGroup group = new NioEventLoopGroup(1);
+  private final TimeoutWheel timeoutWheel;
   private final Bootstrap bootstrap;
   private final EventBusClientOptions options;
   private final JsonCodec codec;
   private final InternalLogger logger;
 
+  private static final char[] BASE62 = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
   private final ConcurrentMap<String, HandlerList> consumerMap = new ConcurrentHashMap<String, HandlerList>();
+  // Pending requests keyed by their reply address, the reply addresses are only meaningful to this client
+  private final ConcurrentMap<String, ReplyHandler<?>> replyMap = new ConcurrentHashMap<String, ReplyHandler<?>>();
+  // Fixed length prefix, so reply addresses only grow with the sequence
+  private final String replyAddressPrefix = "_" + base62(916132832L + new Random().nextInt(Integer.MAX_VALUE)) + ".";
+  private final AtomicLong replySequence = new AtomicLong();
+  private final BodyTypeResolver bodyTypeResolver = new BodyTypeResolver() {
+    @Override
+    public Class<?> bodyType(String address) {
+      if (isReplyAddress(address)) {
+        ReplyHandler<?> reply = replyMap.get(address);
+        if (reply == null) {
+          // Late reply
+          return null;
+        }
+        return reply.bodyType == null ? Object.class : reply.bodyType;
+      }
+      HandlerList consumers = address == null ? null : consumerMap.get(address);
+      if (consumers == null) {
+        // Nobody will handle it
+        return null;
+      }
+      return consumers.bodyType == null ? Object.class : consumers.bodyType;
+    }
+  };
+  // Connection states
+  private static final int DISCONNECTED = 0;
+  private static final int CONNECTING = 1;
+  private static final int CONNECTED = 2;
+  private static final int CLOSED = 3;
+
+  private final AtomicInteger state = new AtomicInteger(DISCONNECTED);
+  // Number of consumers that need the client to stop reading from the connection, only accessed from the event loop
+  private int readPauses;
+  // Messages sent while not connected, encoded as they were sent
+  private final ArrayDeque<PendingMessage> pendingMessages = new ArrayDeque<PendingMessage>();
+  // Guarded by pendingMessages
+  private long pendingBytes;
+  // Stores the pending messages instead of pendingMessages when configured, guarded by pendingMessages
+  private final Outbox outbox;
+  // Set while the pending messages are replayed after connecting, messages sent meanwhile are queued after them
+  private volatile boolean replaying;
+  // Event loop only
+  private boolean replayAwaitingDrain;
+  // Registrations waiting for the write queue to drain, event loop only
+  private final ArrayDeque<Registrations> registrationsAwaitingDrain = new ArrayDeque<Registrations>();
+  // Registrations allowed by the registration rate and when they were last computed, event loop only
+  private double registrationPermits;
+  private long registrationPermitsTime;
+
+  // Event loop state
   private ScheduledFuture<?> pingPeriodic;
-  private ChannelFuture connectFuture;
-  private Channel channel;
-  private ScheduledFuture<?> reconnectFuture;
-  private boolean initializedTransport;
-  private boolean connected;
-  private boolean closed = false;
+  // Pings waiting for their pong, the pongs come back in order
+  private int pendingPongs;
+  // When the timed ping was sent, 0 when none waits, and the pongs of the pings sent before it still to receive
+  private long pingSentAt;
+  private int pongsBeforeTimedPing;
+  private int missedPongs;
+  private int pingWriteCount;
+  // Smoothed round trip time in microseconds, -1 until a pong is received
+  private volatile long roundTripTime = -1;
   private int reconnectTries;
-
-  private Handler<Handler<Void>> connectedHandler;
+  private long reconnectDelay;
+  // Number of endpoints that failed since the last pause before reconnecting
+  private int failovers;
+  private final ReconnectMetrics reconnectMetrics = new ReconnectMetrics();
+  // Latencies of the requests, null when disabled
+  private final LatencyHistograms requestLatencies;
+
+  private volatile Channel channel;
+  private final Connector connector;
+  // The connection in progress, cancelled when closing
+  private volatile Future<Channel> connecting;
+  private final EndpointSelector endpoints;
+  private volatile Endpoint endpoint;
+  private volatile ScheduledFuture<?> reconnectFuture;
+
+  private volatile Handler<Handler<Void>> connectedHandler;
   private volatile Handler<Throwable> exceptionHandler;
-  private Handler<Void> closeHandler;
+  private volatile Handler<Void> closeHandler;
+  private volatile Handler<Void> drainHandler;
+  private volatile boolean drainRequested;
+  private volatile Handler<RegistrationProgress> registrationHandler;
 
   private EventBusClient(Transport transport, EventBusClientOptions options, JsonCodec codec) {
     this.transport = transport;
     this.bootstrap = new Bootstrap().group(this.group);
+    if (options.getOutboxPath() != null) {
+      try {
+        this.outbox = new Outbox(new File(options.getOutboxPath()), options.getOutboxSegmentSize(), options.getOutboxMaxSize(),
+          options.getOfflineBufferMaxMessages(), options.isOutboxSync());
+      } catch (IOException e) {
+        throw new ClientException(e);
+      }
+    } else {
+      this.outbox = null;
+    }
+    this.timeoutWheel = new TimeoutWheel(group.next(), options.getTimeoutWheelTick(), TimeUnit.MILLISECONDS, options.getTimeoutWheelSize());
     this.options = options;
+    List<Endpoint> endpoints = options.getEndpoints();
+    if (endpoints.isEmpty()) {
+      endpoints = Collections.singletonList(new Endpoint(options.getHost(), options.getPort()));
+    }
+    this.endpoints = new EndpointSelector(endpoints, options.getEndpointSelection(), options.getEndpointCooldown());
+    this.requestLatencies = options.isRequestLatencyHistograms() ? new LatencyHistograms(options.getMaxLatencyHistograms()) : null;
+    this.registrationPermits = options.getRegistrationBatchSize();
+    this.registrationPermitsTime = System.nanoTime();
     this.codec = codec;
     this.logger = InternalLoggerFactory.getInstance(EventBusClient.class);
+    initializeTransport();
+    this.connector = new Connector(group.next(), bootstrap, transport, options);
+  }
+
+  private void execute(Handler<ByteBuf> encoder, Handler<AsyncResult<Void>> writeHandler) {
+    execute(encoder, writeHandler, null, 0L);
+  }
+
+  /**
+   * @param replyAddress the reply address of a request, {@code null} otherwise
+   * @param timeout the timeout of a request in ms, a request buffered longer is dropped
+   */
+  private void execute(Handler<ByteBuf> encoder, Handler<AsyncResult<Void>> writeHandler, String replyAddress, long timeout) {
+    // Whether the channel closed before the state changed, the message is queued and replayed after reconnecting
+    boolean channelClosed = false;
+    if (state.get() == CONNECTED && !replaying) {
+      if (transport.send(encoder, writeListener(writeHandler))) {
+        requestSent(replyAddress);
+        return;
+      }
+      channelClosed = true;
+    }
+    while (true) {
+      int current;
+      boolean queued = false;
+      boolean buffered = false;
+      boolean rejected = false;
+      List<PendingMessage> dropped = null;
+      synchronized (pendingMessages) {
+        // The connected handler flushes the pending messages after the state became connected, so checking the state
+        // again while holding the lock guarantees the message is either sent or flushed
+        current = state.get();
+        if ((channelClosed && current == CONNECTED) || current == DISCONNECTED || current == CONNECTING
+          || (current == CONNECTED && replaying)) {
+          queued = true;
+          // Encode now so the message is not affected by later changes to the body or headers
+          ByteBuf encoded = Unpooled.buffer();
+          encoder.handle(encoded);
+          long deadline = replyAddress != null ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0L;
+          PendingMessage pending = new PendingMessage(encoded, writeHandler, replyAddress, deadline);
+          if (fitsPendingMessages(pending)) {
+            buffered = true;
+          } else {
+            dropped = new ArrayList<PendingMessage>();
+            buffered = makeRoom(pending, dropped);
+            rejected = !buffered && options.getOfflineBufferOverflowPolicy() == OverflowPolicy.REJECT;
+            if (!buffered && !rejected) {
+              dropped.add(pending);
+            }
+          }
+          if (buffered) {
+            addPendingMessage(pending);
+          }
+        }
+      }
+      if (dropped != null) {
+        for (PendingMessage pending : dropped) {
+          dropPendingMessage(pending);
+        }
+      }
+      if (rejected) {
+        ReplyHandler<?> reply = replyAddress != null ? replyMap.remove(replyAddress) : null;
+        if (reply != null) {
+          reply.cancel();
+        }
+        throw new IllegalStateException("The offline buffer is full");
+      }
+      switch (current) {
+        case CONNECTED:
+          if (!queued) {
+            if (!transport.send(encoder, writeListener(writeHandler))) {
+              // Queue it on the next pass
+              channelClosed = true;
+              continue;
+            }
+            requestSent(replyAddress);
+          }
+          break;
+        case CLOSED:
+          logger.error("This EventBusClient is closed.");
+          if (writeHandler != null) {
+            writeHandler.handle(AsyncResult.<Void>failure(new IllegalStateException("This EventBusClient is closed.")));
+          }
+          break;
+        case DISCONNECTED:
+          logger.info("Connecting for executing task...");
+          connectTransport();
+          break;
+      }
+      return;
+    }
   }
 
-  private final ArrayDeque<Handler<Transport>> pendingTasks = new ArrayDeque<Handler<Transport>>();
+  private boolean fitsPendingMessages(PendingMessage pending) {
+    if (outbox != null) {
+      return outbox.fits(pending);
+    }
+    return pendingMessages.size() < options.getOfflineBufferMaxMessages() &&
+      pendingBytes + pending.encoded.readableBytes() <= options.getOfflineBufferMaxBytes();
+  }
 
-  private synchronized void execute(Handler<Transport> task) {
-    if (connected) {
-      task.handle(transport);
-    } else if (closed) {
-      logger.error("This EventBusClient is closed.");
+  private void addPendingMessage(PendingMessage pending) {
+    if (outbox != null) {
+      try {
+        outbox.append(pending);
+      } catch (IOException e) {
+        throw new ClientException(e);
+      }
     } else {
-      pendingTasks.add(task);
-      if (connectFuture == null && reconnectFuture == null) {
-        initializeTransport();
-        logger.info("Connecting for executing task...");
-        connectTransport();
+      pendingMessages.add(pending);
+      pendingBytes += pending.encoded.readableBytes();
+    }
+  }
+
+  private PendingMessage pollPendingMessage() {
+    if (outbox != null) {
+      return outbox.poll();
+    }
+    PendingMessage pending = pendingMessages.poll();
+    if (pending != null) {
+      pendingBytes -= pending.encoded.readableBytes();
+    }
+    return pending;
+  }
+
+  /**
+   * Puts back a polled message that could not be written at the head of the pending messages, called with the lock
+   * held.
+   */
+  private void unpollPendingMessage(PendingMessage pending) {
+    if (outbox != null) {
+      outbox.rewind();
+    } else {
+      pendingMessages.addFirst(pending);
+      pendingBytes += pending.encoded.readableBytes();
+    }
+  }
+
+  /**
+   * Releases a polled message once it is written or dropped, called with the lock held.
+   */
+  private void releasePendingMessage(PendingMessage pending) {
+    if (outbox != null) {
+      outbox.release(pending);
+    }
+  }
+
+  private boolean hasPendingMessages() {
+    return outbox != null ? !outbox.isEmpty() : !pendingMessages.isEmpty();
+  }
+
+  /**
+   * Makes room for a message in the full pending messages, called with the lock held.
+   *
+   * @return whether the message can be added
+   */
+  private boolean makeRoom(PendingMessage pending, List<PendingMessage> dropped) {
+    // Stale messages go first, whatever the policy, the outbox is not searched
+    long now = System.nanoTime();
+    for (Iterator<PendingMessage> it = pendingMessages.iterator();it.hasNext();) {
+      PendingMessage p = it.next();
+      if (isStale(p, now)) {
+        it.remove();
+        pendingBytes -= p.encoded.readableBytes();
+        dropped.add(p);
       }
     }
+    if (options.getOfflineBufferOverflowPolicy() == OverflowPolicy.DROP_OLDEST) {
+      while (hasPendingMessages() && !fitsPendingMessages(pending)) {
+        PendingMessage oldest = pollPendingMessage();
+        releasePendingMessage(oldest);
+        dropped.add(oldest);
+      }
+    }
+    return fitsPendingMessages(pending);
   }
 
-  private synchronized void initializeTransport() {
+  /**
+   * A pending request is stale when it expired, was cancelled or failed meanwhile.
+   */
+  private boolean isStale(PendingMessage pending, long now) {
+    return pending.isExpired(now) || (pending.replyAddress != null && !replyMap.containsKey(pending.replyAddress));
+  }
 
-    if (initializedTransport) {
+  private void dropPendingMessage(PendingMessage pending) {
+    if (pending.replyAddress != null && !replyMap.containsKey(pending.replyAddress)) {
+      // Cancelled or already failed
       return;
     }
-    initializedTransport = true;
+    Throwable cause;
+    if (pending.isExpired(System.nanoTime())) {
+      cause = new TimeoutException();
+    } else {
+      logger.warn("Dropped a message sent while not connected, the offline buffer is full.");
+      cause = new IllegalStateException("The offline buffer is full");
+    }
+    if (pending.writeHandler != null) {
+      try {
+        pending.writeHandler.handle(AsyncResult.<Void>failure(cause));
+      } catch (Throwable t) {
+        handleError("Exception in write handler.", t);
+      }
+    }
+    if (pending.replyAddress != null) {
+      ReplyHandler<?> reply = replyMap.remove(pending.replyAddress);
+      if (reply != null) {
+        reply.handleError(cause);
+      }
+    }
+  }
+
+  private void initializeTransport() {
 
     transport.connectedHandler(new Handler<Void>() {
       @Override
       public void handle(Void v) {
-        synchronized (EventBusClient.this) {
-
-          logger.info("Connected to bridge.");
-          // TODO: send only when client was idle for pingInterval?
-          pingPeriodic = group.next().scheduleAtFixedRate(new Runnable() {
-                                                            @Override
-                                                            public void run() {
-                                                              Map<String, String> msg = Collections.singletonMap("type", "ping");
-                                                              send(codec.encode(msg));
-                                                            }
-                                                          },
-            EventBusClient.this.options.getPingInterval(),
-            EventBusClient.this.options.getPingInterval(),
-            TimeUnit.MILLISECONDS);
-          connected = true;
-          reconnectTries = 0;
-          channel = connectFuture.channel();
-          connectFuture = null;
-
-          if (EventBusClient.this.connectedHandler != null) {
-
-            EventBusClient.this.connectedHandler.handle(new Handler<Void>() {
-              @Override
-              public void handle(Void v) {
-                EventBusClient.this.handlePendingTasks();
-              }
-            });
+        if (state.get() == CLOSED) {
+          // Closed while connecting
+          channel.close();
+          return;
+        }
+        logger.info("Connected to bridge.");
+        pendingPongs = 0;
+        pingSentAt = 0;
+        pongsBeforeTimedPing = 0;
+        missedPongs = 0;
+        roundTripTime = -1;
+        pingWriteCount = transport.writeCount();
+        pingPeriodic = group.next().scheduleAtFixedRate(new Runnable() {
+                                                          @Override
+                                                          public void run() {
+                                                            ping();
+                                                          }
+                                                        },
+          EventBusClient.this.options.getPingInterval(),
+          EventBusClient.this.options.getPingInterval(),
+          TimeUnit.MILLISECONDS);
+        reconnectTries = 0;
+        reconnectDelay = 0;
+        failovers = 0;
+        reconnectMetrics.connected();
+        if (readPauses > 0) {
+          channel.config().setAutoRead(false);
+        }
+        state.set(CONNECTED);
+
+        Handler<Handler<Void>> handler = EventBusClient.this.connectedHandler;
+        if (handler != null) {
+          handler.handle(new Handler<Void>() {
+            @Override
+            public void handle(Void v) {
+              EventBusClient.this.handlePendingTasks();
+            }
+          });
+        } else {
+          EventBusClient.this.handlePendingTasks();
+        }
+      }
+    });
+    transport.messageHandler(new Handler<ByteBuf>() {
+      @Override
+      public void handle(ByteBuf json) {
+        try {
+          if (options.isLazyMessageDecoding()) {
+            handleMsg(codec.scanEnvelope(json));
           } else {
-            EventBusClient.this.handlePendingTasks();
+            handleMsg(codec.decodeEnvelope(json, bodyTypeResolver));
           }
+        } finally {
+          json.release();
         }
       }
     });
-    transport.messageHandler(new Handler<String>() {
+    transport.drainHandler(new Handler<Void>() {
       @Override
-      public void handle(String json) {
-        Map msg = codec.decode(json, Map.class);
-        handleMsg(msg);
+      public void handle(Void event) {
+        for (int i = registrationsAwaitingDrain.size(); i > 0; i--) {
+          registrationsAwaitingDrain.poll().run();
+        }
+        if (replayAwaitingDrain) {
+          replayAwaitingDrain = false;
+          replayPendingMessages();
+        }
+        handleDrain();
       }
     });
     transport.closeHandler(new Handler<Void>() {
       @Override
       public void handle(Void event) {
-        synchronized (EventBusClient.this) {
-          logger.info("Closed connection to bridge.");
-          connected = false;
-          channel = null;
-          if (closeHandler != null) {
-            closeHandler.handle(null);
+        logger.info("Closed connection to bridge.");
+        channel = null;
+        synchronized (pendingMessages) {
+          // Messages sent from now on are queued as the client is not connected, the replay resumes after connecting
+          replaying = false;
+          if (outbox != null) {
+            // The messages polled and not written are replayed again
+            outbox.rewind();
           }
+        }
+        replayAwaitingDrain = false;
+        registrationsAwaitingDrain.clear();
+        if (pingPeriodic != null) {
           pingPeriodic.cancel(false);
-          autoReconnect();
+          pingPeriodic = null;
+        }
+        reconnectMetrics.disconnected();
+        autoReconnect();
+        Handler<Void> handler = closeHandler;
+        if (handler != null) {
+          handler.handle(null);
         }
       }
     });
@@ -238,14 +577,22 @@ public class EventBusClient {
     bootstrap.handler(transport);
   }
 
-  private synchronized void connectTransport() {
-
-    if (connected || closed || connectFuture != null || reconnectFuture != null) {
-      return;
+  private void connectTransport() {
+    if (state.compareAndSet(DISCONNECTED, CONNECTING)) {
+      doConnect();
     }
+  }
+
+  /**
+   * Connects the transport, the state must be {@code CONNECTING}.
+   */
+  private void doConnect() {
 
-    String host = EventBusClient.this.options.getHost();
-    int port = EventBusClient.this.options.getPort();
+    final Endpoint endpoint = endpoints.select();
+    String host = endpoint.host();
+    int port = endpoint.port();
+    this.endpoint = endpoint;
+    transport.setEndpoint(endpoint);
 
     if (EventBusClient.this.options.getProxyHost() != null) {
       logger.info("Connecting to bridge at " + host + ":" + port + " (via " + EventBusClient.this.options.getProxyHost() + ") using " + this.transport.getClass().getSimpleName() + "...");
@@ -253,89 +600,355 @@ public class EventBusClient {
       logger.info("Connecting to bridge at " + host + ":" + port + " using " + this.transport.getClass().getSimpleName() + "...");
     }
 
-    connectFuture = bootstrap.connect(host, port)
-      .addListener(new GenericFutureListener<Future<? super Void>>() {
-        @Override
-        public void operationComplete(Future future) {
+    final long start = System.nanoTime();
+    Future<Channel> connectFuture = connector.connect(host, port, new Handler<Channel>() {
+      @Override
+      public void handle(Channel ch) {
+        channel = ch;
+      }
+    });
+    connecting = connectFuture;
+    connectFuture.addListener(new GenericFutureListener<Future<Channel>>() {
+      @Override
+      public void operationComplete(Future<Channel> future) {
 
-          if (!future.isSuccess()) {
-            handleError("Connecting to bridge failed.", future.cause());
-            connectFuture = null;
+        connecting = null;
+        if (future.isSuccess()) {
+          endpoints.succeeded(endpoint, System.nanoTime() - start);
+        } else if (future.isCancelled()) {
+          // Closed while connecting
+          channel = null;
+        } else {
+          handleError("Connecting to bridge failed.", future.cause());
+          channel = null;
+          endpoints.failed(endpoint);
+          // Try the other endpoints right away before pausing
+          if (++failovers < endpoints.size() && state.get() == CONNECTING) {
+            logger.info("Failing over from " + endpoint + " to another endpoint...");
+            doConnect();
+          } else {
+            failovers = 0;
             autoReconnect();
           }
         }
-      });
+      }
+    });
   }
 
-  private synchronized void autoReconnect() {
+  /**
+   * Called on the event loop when the connection failed or was lost.
+   */
+  private void autoReconnect() {
 
-    if (!closed &&
-      reconnectFuture == null &&
-      EventBusClient.this.options.isAutoReconnect() &&
+    int current = state.get();
+    if (current == CLOSED) {
+      return;
+    }
+    if (EventBusClient.this.options.isAutoReconnect() &&
       (EventBusClient.this.options.getMaxAutoReconnectTries() == 0 ||
         reconnectTries < EventBusClient.this.options.getMaxAutoReconnectTries())) {
+      if (!state.compareAndSet(current, CONNECTING)) {
+        // Closed meanwhile
+        return;
+      }
       ++reconnectTries;
-      int interval = EventBusClient.this.options.getAutoReconnectInterval();
+      ReconnectPolicy policy = options.getReconnectPolicy();
+      long interval = policy != null ? Math.max(0L, policy.delay(reconnectTries, reconnectDelay)) : options.getAutoReconnectInterval();
+      reconnectDelay = interval;
+      reconnectMetrics.attemptScheduled(reconnectTries, interval);
       logger.info("Auto reconnecting in " + interval + "ms (try number " + reconnectTries + ")...");
       reconnectFuture = group.next().schedule(new Runnable() {
         @Override
         public void run() {
           logger.info("Auto reconnecting...", reconnectFuture);
           reconnectFuture = null;
-          connectTransport();
+          if (state.get() == CONNECTING) {
+            doConnect();
+          }
         }
       }, interval, TimeUnit.MILLISECONDS);
+    } else {
+      state.compareAndSet(current, DISCONNECTED);
     }
   }
 
   private void handlePendingTasks() {
 
-    // First register, then send pending tasks, as those tasks may result in messages being sent to registered channels
-    for (String address : consumerMap.keySet()) {
-      if (consumerMap.get(address).reregisterAtServer) {
-        logger.info("Registering address: " + address);
-        send("register", address, null, this.defaultOptions == null ? null : this.defaultOptions.getHeaders(), null);
+    // First register, then send pending messages, as those messages may result in messages being sent to registered channels.
+    // Only the first batch of registrations is sent before them, the next batches are interleaved with the messages
+    List<HandlerList> addresses = new ArrayList<HandlerList>(consumerMap.size());
+    for (HandlerList consumers : consumerMap.values()) {
+      if (consumers.reregisterAtServer && !consumers.closed) {
+        addresses.add(consumers);
+      }
+    }
+    runOnEventLoop(new Registrations(addresses, true));
+
+    synchronized (pendingMessages) {
+      if (!hasPendingMessages()) {
+        return;
+      }
+      replaying = true;
+    }
+    replayPendingMessages();
+  }
+
+  /**
+   * Replays a batch of pending messages on the event loop and schedules the next batch, or waits for the write queue
+   * to drain when it is full.
+   */
+  private void replayPendingMessages() {
+    int remaining = options.getOfflineReplayBatchSize();
+    while (state.get() == CONNECTED) {
+      if (transport.writeQueueFull()) {
+        replayAwaitingDrain = true;
+        return;
+      }
+      if (remaining-- == 0) {
+        group.next().execute(new Runnable() {
+          @Override
+          public void run() {
+            replayPendingMessages();
+          }
+        });
+        return;
+      }
+      final PendingMessage pending;
+      synchronized (pendingMessages) {
+        pending = pollPendingMessage();
+        if (pending == null) {
+          replaying = false;
+          return;
+        }
+      }
+      if (isStale(pending, System.nanoTime())) {
+        synchronized (pendingMessages) {
+          releasePendingMessage(pending);
+        }
+        dropPendingMessage(pending);
+        continue;
+      }
+      boolean sent = transport.send(new Handler<ByteBuf>() {
+        @Override
+        public void handle(ByteBuf buff) {
+          buff.writeBytes(pending.encoded, pending.encoded.readerIndex(), pending.encoded.readableBytes());
+        }
+      }, replayListener(pending));
+      if (!sent) {
+        // The channel was closed meanwhile, the replay resumes with this message after reconnecting
+        synchronized (pendingMessages) {
+          unpollPendingMessage(pending);
+        }
+        return;
+      }
+      requestSent(pending.replyAddress);
+    }
+  }
+
+  /**
+   * Releases a replayed message from the outbox once it is written, a message not written stays in the outbox and is
+   * replayed again after reconnecting.
+   */
+  private GenericFutureListener<Future<Void>> replayListener(final PendingMessage pending) {
+    final GenericFutureListener<Future<Void>> listener = writeListener(pending.writeHandler);
+    if (outbox == null) {
+      return listener;
+    }
+    return new GenericFutureListener<Future<Void>>() {
+      @Override
+      public void operationComplete(Future<Void> future) throws Exception {
+        if (future.isSuccess()) {
+          synchronized (pendingMessages) {
+            releasePendingMessage(pending);
+          }
+        }
+        if (listener != null) {
+          listener.operationComplete(future);
+        }
+      }
+    };
+  }
+
+  /**
+   * Starts the latency of a request when it is written rather than when it is buffered.
+   *
+   * @param replyAddress the reply address of a request, {@code null} otherwise
+   */
+  private void requestSent(String replyAddress) {
+    if (replyAddress != null && requestLatencies != null) {
+      ReplyHandler<?> reply = replyMap.get(replyAddress);
+      if (reply != null) {
+        reply.sentAt = System.nanoTime();
+      }
+    }
+  }
+
+  /**
+   * Acquires permits to register addresses according to the registration rate, called on the event loop.
+   *
+   * @param max the maximum number of permits
+   * @return the number of permits acquired
+   */
+  private int acquireRegistrations(int max) {
+    int rate = options.getRegistrationRate();
+    if (rate == 0) {
+      return max;
+    }
+    long now = System.nanoTime();
+    // Accumulate at most a batch, so the rate is not exceeded after an idle period
+    registrationPermits = Math.min(options.getRegistrationBatchSize(),
+      registrationPermits + (now - registrationPermitsTime) * (double) rate / TimeUnit.SECONDS.toNanos(1));
+    registrationPermitsTime = now;
+    int permits = (int) Math.min(max, registrationPermits);
+    registrationPermits -= permits;
+    return permits;
+  }
+
+  private void handleDrain() {
+    Handler<Void> handler = drainHandler;
+    if (drainRequested && handler != null) {
+      drainRequested = false;
+      try {
+        handler.handle(null);
+      } catch (Throwable t) {
+        handleError("Exception in drain handler.", t);
+      }
+    }
+  }
+
+  private GenericFutureListener<Future<Void>> writeListener(final Handler<AsyncResult<Void>> writeHandler) {
+    if (writeHandler == null) {
+      return null;
+    }
+    return new GenericFutureListener<Future<Void>>() {
+      @Override
+      public void operationComplete(Future<Void> future) {
+        try {
+          if (future.isSuccess()) {
+            writeHandler.handle(AsyncResult.<Void>success(null));
+          } else {
+            writeHandler.handle(AsyncResult.<Void>failure(future.cause()));
+          }
+        } catch (Throwable t) {
+          handleError("Exception in write handler.", t);
+        }
+      }
+    };
+  }
+
+  /**
+   * Called on the event loop every ping interval, counts the missed pong and sends a ping.
+   * <p>
+   * Only one ping at a time is timed, the pings sent while its pong is late are not, so the late pong is not timed
+   * against a newer ping.
+   */
+  private void ping() {
+    if (pendingPongs > 0) {
+      int max = options.getMaxMissedPongs();
+      if (++missedPongs >= max && max > 0) {
+        logger.warn("Closing the connection to bridge after " + missedPongs + " missed pongs.");
+        Channel ch = channel;
+        if (ch != null) {
+          ch.close();
+        }
+        return;
+      }
+    }
+    int writeCount = transport.writeCount();
+    boolean idle = writeCount == pingWriteCount;
+    if (!replaying && (idle || !options.isPingOnlyWhenIdle())) {
+      if (pingSentAt == 0) {
+        pingSentAt = System.nanoTime();
+        pongsBeforeTimedPing = pendingPongs;
       }
+      pendingPongs++;
+      send("ping", null, null, null, null);
+      writeCount = transport.writeCount();
     }
+    pingWriteCount = writeCount;
+  }
 
-    Handler<Transport> t;
-    while ((t = this.pendingTasks.poll()) != null) {
-      t.handle(this.transport);
+  private void handlePong() {
+    if (pendingPongs == 0) {
+      return;
+    }
+    pendingPongs--;
+    missedPongs = 0;
+    long sentAt = pingSentAt;
+    if (sentAt == 0) {
+      return;
     }
+    if (pongsBeforeTimedPing > 0) {
+      // The pong of a ping sent before the timed one
+      pongsBeforeTimedPing--;
+      return;
+    }
+    pingSentAt = 0;
+    long sample = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sentAt);
+    long rtt = roundTripTime;
+    // Same smoothing as the TCP round trip time estimate
+    roundTripTime = rtt < 0 ? sample : rtt + (sample - rtt) / 8;
+  }
+
+  /**
+   * The round trip time to the bridge measured with the pings, smoothed over the last pongs. It requires a bridge
+   * replying to pings, as the TCP bridge does.
+   *
+   * @return the round trip time in microseconds, or {@code -1} when no pong was received on the current connection
+   */
+  public long roundTripTime() {
+    return roundTripTime;
   }
 
-  private void handleMsg(Map msg) {
-    String type = (String) msg.get("type");
+  private void handleMsg(Envelope msg) {
+    String type = msg.type();
     if (type != null) {
-      if ("message".equals(type) || "rec".equals(type)) {
-        String address = (String) msg.get("address");
+      if ("pong".equals(type)) {
+        handlePong();
+      } else if ("message".equals(type) || "rec".equals(type)) {
+        String address = msg.address();
         if (address == null) {
           // TCP bridge that replies an error...
           return;
         }
         logger.info("Received message for address: " + address);
+        if (isReplyAddress(address)) {
+          ReplyHandler<?> reply = replyMap.remove(address);
+          if (reply != null) {
+            recordLatency(reply);
+            if (msg.bodyError() != null) {
+              reply.handleError(msg.bodyError());
+            } else {
+              reply.handleMessage(message(msg, reply.bodyType));
+            }
+          }
+          return;
+        }
         HandlerList consumers = consumerMap.get(address);
         if (consumers != null) {
-          Map body = (Map) msg.get("body");
-          Map<String, String> headers;
-          Map msgHeaders = (Map) msg.get("headers");
-          if (msgHeaders == null) {
-            headers = Collections.emptyMap();
+          if (msg.bodyError() != null) {
+            handleError("Could not bind the body of a message sent to " + address, msg.bodyError());
           } else {
-            headers = (Map<String, String>) msgHeaders;
+            consumers.send(message(msg, consumers.bodyType));
           }
-          String replyAddress = (String) msg.get("replyAddress");
-          consumers.send(new Message(this, address, headers, body, replyAddress));
         }
       } else if ("err".equals(type)) {
-        String address = (String) msg.get("address");
-        String message = (String) msg.get("message");
+        String address = msg.address();
+        String message = msg.message();
 //          int failureCode = msg.get("failureCode").getAsInt();
 //          String failureType = msg.get("failureType").getAsString();
         if (address == null) {
           logger.info("Received error without address present, probably the address was not found: " + message);
           return;
         }
+        if (isReplyAddress(address)) {
+          ReplyHandler<?> reply = replyMap.remove(address);
+          if (reply != null) {
+            recordLatency(reply);
+            reply.handleError(new RuntimeException(message));
+          }
+          return;
+        }
         HandlerList consumers = consumerMap.get(address);
         if (consumers != null) {
           consumers.fail(new RuntimeException(message));
@@ -344,6 +957,37 @@ public class EventBusClient {
     }
   }
 
+  private Message<Object> message(Envelope msg, Class<?> bodyType) {
+    ByteBuf encodedBody = msg.encodedBody();
+    if (encodedBody != null) {
+      // Copy the body as the frame is released once handled, it is decoded when the handler needs it
+      Class<Object> type = (Class<Object>) (bodyType == null ? Object.class : bodyType);
+      return new Message<Object>(this, msg.address(), msg.headers(), msg.replyAddress(), codec, ByteBufUtil.getBytes(encodedBody), type);
+    }
+    return new Message<Object>(this, msg.address(), msg.headers(), msg.body(), msg.replyAddress());
+  }
+
+  private boolean isReplyAddress(String address) {
+    return address != null && address.startsWith(replyAddressPrefix);
+  }
+
+  /**
+   * Returns a new reply address, made of the prefix of this client and a base 62 encoded sequence number.
+   */
+  private String nextReplyAddress() {
+    return replyAddressPrefix + base62(replySequence.incrementAndGet());
+  }
+
+  private static String base62(long value) {
+    char[] chars = new char[11];
+    int pos = chars.length;
+    do {
+      chars[--pos] = BASE62[(int) (value % 62)];
+      value /= 62;
+    } while (value > 0);
+    return new String(chars, pos, chars.length - pos);
+  }
+
   /**
    * Sets the default delivery options (message send timeout and headers) to be used for subsequent messages.
    *
@@ -361,8 +1005,16 @@ public class EventBusClient {
    * @return a reference to this, so the API can be used fluently
    */
   public EventBusClient connect() {
-    closed = false;
-    initializeTransport();
+    if (outbox != null && state.get() == CLOSED) {
+      synchronized (pendingMessages) {
+        try {
+          outbox.open();
+        } catch (IOException e) {
+          throw new ClientException(e);
+        }
+      }
+    }
+    state.compareAndSet(CLOSED, DISCONNECTED);
     logger.info("Connecting as requested...");
     connectTransport();
     return this;
@@ -374,7 +1026,16 @@ public class EventBusClient {
    * @return whether the client is currently connected to the bridge server
    */
   public boolean isConnected() {
-    return connected;
+    return state.get() == CONNECTED;
+  }
+
+  /**
+   * Returns the number of pending request timeouts, i.e. the number of requests still waiting for a reply.
+   *
+   * @return the number of pending request timeouts
+   */
+  public int pendingTimeouts() {
+    return timeoutWheel.pending();
   }
 
   /**
@@ -384,10 +1045,29 @@ public class EventBusClient {
    * (neither through auto reconnect, nor by sending a message).
    */
   public void close() {
-    if (channel != null) {
-      channel.close();
+    state.set(CLOSED);
+    ScheduledFuture<?> reconnect = reconnectFuture;
+    if (reconnect != null) {
+      reconnect.cancel(false);
+    }
+    Future<Channel> connect = connecting;
+    if (connect != null) {
+      connect.cancel(false);
+    }
+    Channel ch = channel;
+    if (ch != null) {
+      ch.close();
+    }
+    connector.close();
+    if (outbox != null) {
+      synchronized (pendingMessages) {
+        try {
+          outbox.close();
+        } catch (IOException e) {
+          handleError("Could not close the outbox.", e);
+        }
+      }
     }
-    closed = true;
   }
 
   /**
@@ -441,51 +1121,133 @@ public class EventBusClient {
    * @return a reference to this, so the API can be used fluently
    */
   public <T> EventBusClient request(String address, Object message, DeliveryOptions options, final Handler<AsyncResult<Message<T>>> replyHandler) {
-    final String replyAddr;
-    if (replyHandler != null) {
-      final AtomicBoolean registered = new AtomicBoolean(true);
-      replyAddr = UUID.randomUUID().toString();
-
-      final MessageHandler<T> messageHandler = new MessageHandler<T>() {
-        @Override
-        public String address() {
-          return replyAddr;
-        }
-
-        @Override
-        public void handleMessage(Message<T> msg) {
-          if (registered.compareAndSet(true, false)) {
-            this.cancelTimeout();
-            unregister(this, false);
-            replyHandler.handle(AsyncResult.<Message<T>>success(msg));
-          }
-        }
+    return request(address, message, options, null, replyHandler);
+  }
 
-        @Override
-        public void handleError(Throwable err) {
-          if (registered.compareAndSet(true, false)) {
-            this.cancelTimeout();
-            unregister(this, false);
-            replyHandler.handle(AsyncResult.<Message<T>>failure(err));
-          }
-        }
-      };
+  /**
+   * Like {@link #request(String, Object, Handler)} but binding the reply body to {@code type}.
+   *
+   * @param address      the address to send it to
+   * @param message      the message, may be {@code null}
+   * @param type         the type the reply body is bound to
+   * @param replyHandler reply handler will be called when any reply from the recipient is received, may be {@code null}
+   * @return a reference to this, so the API can be used fluently
+   */
+  public <T> EventBusClient request(String address, Object message, Class<T> type, Handler<AsyncResult<Message<T>>> replyHandler) {
+    return request(address, message, defaultOptions, type, replyHandler);
+  }
 
-      messageHandler.setTimeout(group.next().schedule(new Runnable() {
-        @Override
-        public void run() {
-          messageHandler.handleError(new TimeoutException());
-        }
-      }, options.getSendTimeout(), TimeUnit.MILLISECONDS));
+  /**
+   * Like {@link #request(String, Object, DeliveryOptions, Handler)} but binding the reply body to {@code type}.
+   *
+   * @param address      the address to send it to
+   * @param message      the message, may be {@code null}
+   * @param options      delivery options
+   * @param type         the type the reply body is bound to, {@code null} decodes it to maps, lists and values
+   * @param replyHandler reply handler will be called when any reply from the recipient is received, may be {@code null}
+   * @return a reference to this, so the API can be used fluently
+   */
+  public <T> EventBusClient request(String address, Object message, DeliveryOptions options, final Class<T> type, final Handler<AsyncResult<Message<T>>> replyHandler) {
+    return request(address, message, options, type, null, replyHandler);
+  }
 
-      register(messageHandler, null, false);
+  /**
+   * Like {@link #request(String, Object, DeliveryOptions, Class, Handler)} but running the reply handler on
+   * {@code executor} instead of the event loop.
+   *
+   * @param address      the address to send it to
+   * @param message      the message, may be {@code null}
+   * @param options      delivery options
+   * @param type         the type the reply body is bound to, {@code null} decodes it to maps, lists and values
+   * @param executor     the executor running the reply handler, {@code null} runs it on the event loop
+   * @param replyHandler reply handler will be called when any reply from the recipient is received, may be {@code null}
+   * @return a reference to this, so the API can be used fluently
+   */
+  public <T> EventBusClient request(String address, Object message, DeliveryOptions options, Class<T> type, HandlerExecutor executor, Handler<AsyncResult<Message<T>>> replyHandler) {
+    final String replyAddr;
+    if (replyHandler != null) {
+      replyAddr = nextReplyAddress();
+      ReplyHandler<T> reply = new ReplyHandler<T>(replyAddr, address, type, executor == null ? null : executor.replyExecutor(replyAddr), replyHandler);
+      replyMap.put(replyAddr, reply);
+      timeoutWheel.schedule(reply, options.getSendTimeout(), TimeUnit.MILLISECONDS);
     } else {
       replyAddr = null;
     }
-    send("send", address, message, options.getHeaders(), replyAddr);
+    execute(encoder("send", address, message, options.getHeaders(), replyAddr), null, replyAddr, options.getSendTimeout());
     return this;
   }
 
+  /**
+   * Like {@link #request(String, Object, DeliveryOptions, Handler)} but returning a {@code CompletionStage} completed
+   * with the reply on the event loop.
+   * <p>
+   * Cancelling the returned future with {@code toCompletableFuture().cancel(...)} releases the request immediately, a
+   * reply received afterwards is ignored.
+   *
+   * @param address the address to send it to
+   * @param message the message, may be {@code null}
+   * @param options delivery options
+   * @return the completion stage of the reply
+   */
+  public <T> CompletionStage<Message<T>> requestAsync(String address, Object message, DeliveryOptions options) {
+    return requestAsync(address, message, options, null, null);
+  }
+
+  /**
+   * Like {@link #requestAsync(String, Object, DeliveryOptions)} but completing the returned future with {@code executor},
+   * so the continuations that do not specify an executor do not run on the event loop. When {@code executor} rejects
+   * the completion, the future is completed exceptionally with the {@code RejectedExecutionException} on the event
+   * loop.
+   *
+   * @param address  the address to send it to
+   * @param message  the message, may be {@code null}
+   * @param options  delivery options
+   * @param executor the executor completing the future
+   * @return the completion stage of the reply
+   */
+  public <T> CompletionStage<Message<T>> requestAsync(String address, Object message, DeliveryOptions options, Executor executor) {
+    return requestAsync(address, message, options, null, executor);
+  }
+
+  /**
+   * Like {@link #requestAsync(String, Object, DeliveryOptions, Executor)} but binding the reply body to {@code type}.
+   *
+   * @param address  the address to send it to
+   * @param message  the message, may be {@code null}
+   * @param options  delivery options
+   * @param type     the type the reply body is bound to, {@code null} decodes it to maps, lists and values
+   * @param executor the executor completing the future, {@code null} completes it on the event loop
+   * @return the completion stage of the reply
+   */
+  public <T> CompletionStage<Message<T>> requestAsync(String address, Object message, DeliveryOptions options, Class<T> type, final Executor executor) {
+    final ReplyFuture<T> future = new ReplyFuture<T>();
+    String replyAddr = nextReplyAddress();
+    ReplyHandler<T> reply = new ReplyHandler<T>(replyAddr, address, type, null, new Handler<AsyncResult<Message<T>>>() {
+      @Override
+      public void handle(final AsyncResult<Message<T>> ar) {
+        if (executor == null) {
+          future.complete(ar);
+        } else {
+          try {
+            executor.execute(new Runnable() {
+              @Override
+              public void run() {
+                future.complete(ar);
+              }
+            });
+          } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+          }
+        }
+      }
+    });
+    future.reply = reply;
+    replyMap.put(replyAddr, reply);
+    timeoutWheel.schedule(reply, options.getSendTimeout(), TimeUnit.MILLISECONDS);
+    execute(encoder("send", address, message, options.getHeaders(), replyAddr), null, replyAddr, options.getSendTimeout());
+    return future;
+  }
+
   /**
    * Publish a message.<p>
    * The message will be delivered to all handlers registered to the address.
@@ -512,6 +1274,71 @@ public class EventBusClient {
     return this;
   }
 
+  /**
+   * Like {@link #publish(String, Object, DeliveryOptions)} but specifying a {@code writeHandler} called when the
+   * message has been written to the connection.
+   *
+   * @param address      the address to publish it to
+   * @param message      the message, may be {@code null}
+   * @param options      delivery options
+   * @param writeHandler the handler called when the message has been written or could not be written
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClient publish(String address, Object message, DeliveryOptions options, Handler<AsyncResult<Void>> writeHandler) {
+    execute(encoder("publish", address, message, options == null ? null : options.getHeaders(), null), writeHandler);
+    return this;
+  }
+
+  /**
+   * Like {@link #send(String, Object, DeliveryOptions)} but specifying a {@code writeHandler} called when the
+   * message has been written to the connection.
+   *
+   * @param address      the address to send it to
+   * @param message      the message, may be {@code null}
+   * @param options      delivery options
+   * @param writeHandler the handler called when the message has been written or could not be written
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClient send(String address, Object message, DeliveryOptions options, Handler<AsyncResult<Void>> writeHandler) {
+    execute(encoder("send", address, message, options.getHeaders(), null), writeHandler);
+    return this;
+  }
+
+  /**
+   * This method returns true when the messages sent to the connection reached the write buffer high water mark, the
+   * application should stop sending messages until the {@link #drainHandler(Handler) drain handler} is called.
+   *
+   * @return true if the write queue is full
+   */
+  public boolean writeQueueFull() {
+    boolean full = transport.writeQueueFull();
+    if (full) {
+      drainRequested = true;
+      if (!transport.writeQueueFull()) {
+        // Drained before the request was recorded
+        group.next().execute(new Runnable() {
+          @Override
+          public void run() {
+            handleDrain();
+          }
+        });
+      }
+    }
+    return full;
+  }
+
+  /**
+   * Set a drain handler, called once the write queue is below the write buffer low water mark after
+   * {@link #writeQueueFull()} returned true.
+   *
+   * @param drainHandler the drain handler
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClient drainHandler(Handler<Void> drainHandler) {
+    this.drainHandler = drainHandler;
+    return this;
+  }
+
   /**
    * Create a consumer and register it against the specified address.
    *
@@ -520,58 +1347,169 @@ public class EventBusClient {
    * @return the event bus message consumer
    */
   public <T> MessageConsumer<T> consumer(String address, Handler<Message<T>> handler) {
-    MessageConsumer<T> consumer = new MessageConsumer<T>(this, address, handler);
-    register(consumer.handler, this.defaultOptions == null ? null : this.defaultOptions.getHeaders(), true);
+    return consumer(address, null, handler);
+  }
+
+  /**
+   * Create a consumer binding the bodies of the received messages to {@code type} and register it against the specified address.
+   *
+   * @param address the address that will register it at
+   * @param type    the type the message bodies are bound to, {@code null} decodes them to maps, lists and values
+   * @param handler the handler that will process the received messages
+   * @return the event bus message consumer
+   */
+  public <T> MessageConsumer<T> consumer(String address, Class<T> type, Handler<Message<T>> handler) {
+    return register(new MessageConsumer<T>(this, address, type, handler));
+  }
+
+  /**
+   * Like {@link #consumer(String, Class, Handler)} but running the handler on {@code executor} instead of the event loop.
+   *
+   * @param address  the address that will register it at
+   * @param type     the type the message bodies are bound to, {@code null} decodes them to maps, lists and values
+   * @param executor the executor running the handler, {@code null} runs it on the event loop
+   * @param handler  the handler that will process the received messages
+   * @return the event bus message consumer
+   */
+  public <T> MessageConsumer<T> consumer(String address, Class<T> type, HandlerExecutor executor, Handler<Message<T>> handler) {
+    return register(new MessageConsumer<T>(this, address, type, executor, handler));
+  }
+
+  /**
+   * Create consumers for several addresses at once, the addresses are registered at the server in batches.
+   *
+   * @param addresses the addresses that will register them at
+   * @param handler   the handler that will process the messages received by all the consumers
+   * @return the event bus message consumers, in the order of the addresses
+   * @see EventBusClientOptions#setRegistrationBatchSize(int)
+   */
+  public <T> List<MessageConsumer<T>> consumers(Collection<String> addresses, Handler<Message<T>> handler) {
+    return consumers(addresses, null, handler);
+  }
+
+  /**
+   * Create consumers binding the bodies of the received messages to {@code type} for several addresses at once, the
+   * addresses are registered at the server in batches.
+   *
+   * @param addresses the addresses that will register them at
+   * @param type      the type the message bodies are bound to, {@code null} decodes them to maps, lists and values
+   * @param handler   the handler that will process the messages received by all the consumers
+   * @return the event bus message consumers, in the order of the addresses
+   * @see EventBusClientOptions#setRegistrationBatchSize(int)
+   */
+  public <T> List<MessageConsumer<T>> consumers(Collection<String> addresses, Class<T> type, Handler<Message<T>> handler) {
+    List<MessageConsumer<T>> consumers = new ArrayList<MessageConsumer<T>>(addresses.size());
+    List<HandlerList> registrations = new ArrayList<HandlerList>();
+    for (String address : addresses) {
+      MessageConsumer<T> consumer = new MessageConsumer<T>(this, address, type, handler);
+      HandlerList first = register(consumer.handler, null, true, false);
+      if (first != null) {
+        registrations.add(first);
+      }
+      consumers.add(consumer);
+    }
+    if (!registrations.isEmpty()) {
+      if (state.get() == CONNECTED) {
+        runOnEventLoop(new Registrations(registrations, false));
+      } else {
+        // Registered once connected
+        connectTransport();
+      }
+    }
+    return consumers;
+  }
+
+  <T> MessageConsumer<T> register(MessageConsumer<T> consumer) {
+    register(consumer.handler, this.defaultOptions == null ? null : this.defaultOptions.getHeaders(), true, true);
     return consumer;
   }
 
-  private void register(MessageHandler<?> handler, Map<String, String> headers, boolean atServer) {
+  void runOnEventLoop(Runnable task) {
+    EventLoop eventLoop = group.next();
+    if (eventLoop.inEventLoop()) {
+      task.run();
+    } else {
+      eventLoop.execute(task);
+    }
+  }
+
+  /**
+   * Stops reading from the connection until {@link #resumeReading()} is called, called on the event loop.
+   */
+  void pauseReading() {
+    if (readPauses++ == 0) {
+      setAutoRead(false);
+    }
+  }
+
+  /**
+   * Resumes reading from the connection when no more consumer needs it paused, called on the event loop.
+   */
+  void resumeReading() {
+    if (--readPauses == 0) {
+      setAutoRead(true);
+    }
+  }
+
+  private void setAutoRead(boolean autoRead) {
+    Channel ch = channel;
+    if (ch != null) {
+      ch.config().setAutoRead(autoRead);
+    }
+  }
+
+  /**
+   * @param send whether the address is registered at the server now when the handler is its first one
+   * @return the handlers of the address when the handler is its first one, {@code null} otherwise
+   */
+  private HandlerList register(MessageHandler<?> handler, Map<String, String> headers, boolean atServer, boolean send) {
     String address = handler.address();
-    synchronized (consumerMap) {
+    while (true) {
       HandlerList consumers = consumerMap.get(address);
-      List<MessageHandler> handlers;
       if (consumers == null) {
-        handlers = Collections.singletonList((MessageHandler) handler);
+        HandlerList created = new HandlerList(address);
+        consumers = consumerMap.putIfAbsent(address, created);
+        if (consumers == null) {
+          consumers = created;
+        }
+      }
+      synchronized (consumers) {
+        if (consumers.closed) {
+          // Its last handler was just unregistered, replace it
+          consumerMap.remove(address, consumers);
+          continue;
+        }
+        boolean first = consumers.isEmpty();
+        consumers.add(handler, atServer);
         // If we would just create a task for it, that would be send upon connection creation redundandly to all other re-registered handlers
-        if (atServer) {
-          if (connected) {
+        if (first && atServer && send) {
+          if (state.get() == CONNECTED) {
             logger.info("Registering address: " + address);
             send("register", address, null, headers, null);
           } else {
-            initializeTransport();
             connectTransport();
           }
         }
-      } else {
-        ArrayList<MessageHandler> tmp = new ArrayList<MessageHandler>(consumers.handlers);
-        tmp.add(handler);
-        handlers = new ArrayList<MessageHandler>(tmp);
+        return first ? consumers : null;
       }
-      consumerMap.put(address, new HandlerList(handlers, atServer));
     }
   }
 
   void unregister(MessageHandler<?> handler, boolean atServer) {
-    String address = handler.address();
-    synchronized (consumerMap) {
-      HandlerList consumers = consumerMap.get(address);
-      if (consumers == null) {
+    HandlerList consumers = handler.list;
+    if (consumers == null) {
+      return;
+    }
+    synchronized (consumers) {
+      if (!consumers.remove(handler)) {
         return;
       }
-      if (!consumers.handlers.contains(handler)) {
-        return;
-      }
-      List<MessageHandler> handlers = new ArrayList<MessageHandler>(consumers.handlers);
-      handlers.remove(handler);
-      if (atServer && handlers.isEmpty()) {
-        consumerMap.remove(address);
-        Map<String, Object> obj = new HashMap<String, Object>();
-        obj.put("type", "unregister");
-        obj.put("address", address);
-        final String msg = codec.encode(obj);
-        send(msg);
-      } else {
-        consumerMap.put(address, new HandlerList(new ArrayList<MessageHandler>(handlers), atServer));
+      consumers.reregisterAtServer = atServer;
+      if (atServer && consumers.isEmpty()) {
+        // Send it before the list is removed, so a handler registered again sends its register after it
+        consumers.closed = true;
+        send("unregister", consumers.address, null, null, null);
+        consumerMap.remove(consumers.address, consumers);
       }
     }
   }
@@ -591,6 +1529,56 @@ public class EventBusClient {
     return this;
   }
 
+  /**
+   * Set a handler notified of the registration of the consumer addresses at the server each time the client
+   * connects. It is called on the event loop after each batch of registrations, the last call is complete.
+   *
+   * @param registrationHandler the registration handler
+   * @return a reference to this, so the API can be used fluently
+   * @see EventBusClientOptions#setRegistrationRate(int)
+   */
+  public EventBusClient registrationHandler(Handler<RegistrationProgress> registrationHandler) {
+    this.registrationHandler = registrationHandler;
+    return this;
+  }
+
+  /**
+   * @return the endpoint of the bridge the client is connected or connecting to
+   */
+  public Endpoint endpoint() {
+    return endpoint;
+  }
+
+  /**
+   * @return the counters of the auto reconnect tries of this client
+   */
+  public ReconnectMetrics reconnectMetrics() {
+    return reconnectMetrics;
+  }
+
+  /**
+   * Returns a snapshot of the latencies of the requests, from the time a request is written to the connection until
+   * its reply or failure is received, keyed by address. The addresses beyond
+   * {@link EventBusClientOptions#getMaxLatencyHistograms()} are recorded together under {@link #OTHER_ADDRESSES}.
+   *
+   * @param reset whether to reset the latencies, so the next snapshot only covers the following requests
+   * @return the latencies of the requests, empty unless {@link EventBusClientOptions#setRequestLatencyHistograms(boolean)}
+   * is enabled
+   */
+  public Map<String, LatencySnapshot> requestLatencies(boolean reset) {
+    if (requestLatencies == null) {
+      return Collections.emptyMap();
+    }
+    return requestLatencies.snapshot(reset);
+  }
+
+  private void recordLatency(ReplyHandler<?> reply) {
+    long sentAt = reply.sentAt;
+    if (requestLatencies != null && sentAt != 0L) {
+      requestLatencies.record(reply.destination, (System.nanoTime() - sentAt) / 1000);
+    }
+  }
+
   /**
    * Set a default exception handler.
    *
@@ -609,12 +1597,12 @@ public class EventBusClient {
    * @param closeHandler the close handler
    * @return a reference to this, so the API can be used fluently
    */
-  public synchronized EventBusClient closeHandler(Handler<Void> closeHandler) {
+  public EventBusClient closeHandler(Handler<Void> closeHandler) {
     this.closeHandler = closeHandler;
     return this;
   }
 
-  private void handleError(String message, Throwable t) {
+  void handleError(String message, Throwable t) {
     this.logger.error(message, t);
     Handler<Throwable> handler = this.exceptionHandler;
     if (handler != null) {
@@ -628,50 +1616,120 @@ public class EventBusClient {
   }
 
   private void send(String type, String address, Object body, Map<String, String> headers, String replyAddress) {
-    Map<String, Object> obj = new HashMap<String, Object>();
-    obj.put("type", type);
-    obj.put("address", address);
-    if (replyAddress != null) {
-      obj.put("replyAddress", replyAddress);
-    }
-    if (headers != null) {
-      obj.put("headers", headers);
-    }
-    if (body != null) {
-      obj.put("body", body);
-    }
-    final String msg = codec.encode(obj);
-    send(msg);
+    execute(encoder(type, address, body, headers, replyAddress), null);
   }
 
-  private void send(final String message) {
-    execute(new Handler<Transport>() {
+  private Handler<ByteBuf> encoder(final String type, final String address, final Object body, final Map<String, String> headers, final String replyAddress) {
+    return new Handler<ByteBuf>() {
       @Override
-      public void handle(Transport event) {
-        if (message.length() > MESSAGE_PRINT_LIMIT) {
-          logger.info("Sending message with " + message.length() + " chars.");
-        } else {
-          logger.info("Sending message: " + message);
+      public void handle(ByteBuf buff) {
+        int start = buff.writerIndex();
+        codec.encode(buff, type, address, replyAddress, headers, body);
+        if (logger.isInfoEnabled()) {
+          int length = buff.writerIndex() - start;
+          if (length > MESSAGE_PRINT_LIMIT) {
+            logger.info("Sending message with " + length + " bytes.");
+          } else {
+            logger.info("Sending message: " + buff.toString(start, length, StandardCharsets.UTF_8));
+          }
         }
-        transport.send(message);
       }
-    });
+    };
   }
 
-  private class HandlerList {
+  /**
+   * The handlers registered to an address, in register order.
+   * <p>
+   * The handlers are the nodes of a linked list, so a handler is added or removed in constant time without
+   * copying the list. Changes are made while holding the lock of the list, dispatching iterates the list without
+   * locking: a removed handler keeps its link to the next handler so an iteration in progress can continue past it,
+   * and it is skipped.
+   */
+  final class HandlerList {
+
+    final String address;
+    // Set when its last handler is unregistered at the server, a closed list is replaced rather than reused
+    volatile boolean closed;
+    volatile boolean reregisterAtServer;
+    // The type all handlers bind message bodies to, null when they disagree and the body is decoded generically
+    volatile Class<?> bodyType;
+    private volatile MessageHandler<?> head;
+    private MessageHandler<?> tail;
+    // Number of handlers per body type, so the common body type is known without iterating the handlers
+    private final Map<Class<?>, int[]> bodyTypes = new HashMap<Class<?>, int[]>(2);
+
+    HandlerList(String address) {
+      this.address = address;
+    }
 
-    private final List<MessageHandler> handlers;
-    private final boolean reregisterAtServer;
+    boolean isEmpty() {
+      return head == null;
+    }
 
-    HandlerList(List<MessageHandler> handlers, boolean reregisterAtServer) {
-      this.handlers = handlers;
-      this.reregisterAtServer = reregisterAtServer;
+    void add(MessageHandler<?> handler, boolean atServer) {
+      if (handler.list != null) {
+        throw new IllegalStateException("Handler already registered");
+      }
+      handler.list = this;
+      handler.prev = tail;
+      handler.next = null;
+      if (tail == null) {
+        head = handler;
+      } else {
+        tail.next = handler;
+      }
+      tail = handler;
+      reregisterAtServer = atServer;
+      Class<?> type = bodyTypeOf(handler);
+      int[] count = bodyTypes.get(type);
+      if (count == null) {
+        bodyTypes.put(type, new int[]{1});
+      } else {
+        count[0]++;
+      }
+      updateBodyType();
     }
 
-    void send(Message message) {
-      for (MessageHandler handler : handlers) {
+    boolean remove(MessageHandler<?> handler) {
+      if (handler.list != this) {
+        return false;
+      }
+      handler.list = null;
+      MessageHandler<?> prev = handler.prev;
+      MessageHandler<?> next = handler.next;
+      if (prev == null) {
+        head = next;
+      } else {
+        prev.next = next;
+      }
+      if (next == null) {
+        tail = prev;
+      } else {
+        next.prev = prev;
+      }
+      // Keep handler.next for the iterations in progress
+      handler.prev = null;
+      Class<?> type = bodyTypeOf(handler);
+      int[] count = bodyTypes.get(type);
+      if (--count[0] == 0) {
+        bodyTypes.remove(type);
+      }
+      updateBodyType();
+      return true;
+    }
+
+    private void updateBodyType() {
+      bodyType = bodyTypes.size() == 1 ? bodyTypes.keySet().iterator().next() : null;
+    }
+
+    void send(Message<Object> message) {
+      for (MessageHandler handler = head; handler != null; handler = handler.next) {
+        if (handler.list != this) {
+          // Unregistered meanwhile
+          continue;
+        }
         try {
-          handler.handleMessage(message);
+          handler.handleMessage(bind(message, handler.bodyType()));
         } catch (Throwable t) {
           handleError("Exception in message handler.", t);
         }
@@ -679,7 +1737,10 @@ public class EventBusClient {
     }
 
     void fail(Throwable cause) {
-      for (MessageHandler handler : handlers) {
+      for (MessageHandler handler = head; handler != null; handler = handler.next) {
+        if (handler.list != this) {
+          continue;
+        }
         try {
           handler.handleError(cause);
         } catch (Throwable t) {
@@ -688,4 +1749,186 @@ public class EventBusClient {
       }
     }
   }
+
+  /**
+   * Registers addresses at the server in batches on the event loop, each batch is flushed at once and the next one
+   * is sent on the next event loop iteration, after the write queue drained and as the registration rate allows.
+   */
+  private class Registrations implements Runnable {
+
+    private final List<HandlerList> addresses;
+    private final boolean reportProgress;
+    private final Channel ch = channel;
+    private int index;
+
+    Registrations(List<HandlerList> addresses, boolean reportProgress) {
+      this.addresses = addresses;
+      this.reportProgress = reportProgress;
+    }
+
+    @Override
+    public void run() {
+      if (state.get() != CONNECTED || channel != ch) {
+        // All the addresses are registered again after connecting
+        return;
+      }
+      if (index < addresses.size()) {
+        if (transport.writeQueueFull()) {
+          registrationsAwaitingDrain.add(this);
+          return;
+        }
+        final int permits = acquireRegistrations(Math.min(options.getRegistrationBatchSize(), addresses.size() - index));
+        if (permits == 0) {
+          long delay = (long) Math.ceil((1 - registrationPermits) * TimeUnit.SECONDS.toNanos(1) / options.getRegistrationRate());
+          group.next().schedule(this, Math.max(1L, delay), TimeUnit.NANOSECONDS);
+          return;
+        }
+        final Map<String, String> headers = defaultOptions == null ? null : defaultOptions.getHeaders();
+        transport.batch(new Runnable() {
+          @Override
+          public void run() {
+            for (int i = 0; i < permits; i++) {
+              HandlerList consumers = addresses.get(index++);
+              // Hold the lock so the unregistration of the address is sent after it
+              synchronized (consumers) {
+                if (!consumers.closed) {
+                  logger.info("Registering address: " + consumers.address);
+                  transport.send(encoder("register", consumers.address, null, headers, null));
+                }
+              }
+            }
+          }
+        });
+      }
+      Handler<RegistrationProgress> handler = registrationHandler;
+      if (reportProgress && handler != null) {
+        try {
+          handler.handle(new RegistrationProgress(index, addresses.size()));
+        } catch (Throwable t) {
+          handleError("Exception in registration handler.", t);
+        }
+      }
+      if (index < addresses.size()) {
+        group.next().execute(this);
+      }
+    }
+  }
+
+  /**
+   * The future of a request, cancelling it releases the pending request.
+   */
+  private class ReplyFuture<T> extends CompletableFuture<Message<T>> {
+
+    private ReplyHandler<T> reply;
+
+    void complete(AsyncResult<Message<T>> ar) {
+      if (ar.succeeded()) {
+        complete(ar.result());
+      } else {
+        completeExceptionally(ar.cause());
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean cancelled = super.cancel(mayInterruptIfRunning);
+      if (cancelled && replyMap.remove(reply.address, reply)) {
+        reply.cancel();
+      }
+      return cancelled;
+    }
+  }
+
+  /**
+   * A pending request, it is completed by whoever removes it from the reply map first: the reply, the error
+   * or the timeout.
+   */
+  private class ReplyHandler<T> extends TimeoutWheel.Timeout {
+
+    private final String address;
+    private final String destination;
+    private final Class<T> bodyType;
+    private final Executor executor;
+    private final Handler<AsyncResult<Message<T>>> handler;
+    // When the request was written, 0 until then
+    private volatile long sentAt;
+
+    ReplyHandler(String address, String destination, Class<T> bodyType, Executor executor, Handler<AsyncResult<Message<T>>> handler) {
+      this.address = address;
+      this.destination = destination;
+      this.bodyType = bodyType;
+      this.executor = executor;
+      this.handler = handler;
+    }
+
+    void handleMessage(final Message<Object> msg) {
+      cancel();
+      dispatch(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            handler.handle(AsyncResult.success((Message<T>) (Message) bind(msg, bodyType)));
+          } catch (Throwable t) {
+            EventBusClient.this.handleError("Exception in message handler.", t);
+          }
+        }
+      });
+    }
+
+    void handleError(final Throwable err) {
+      cancel();
+      dispatch(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            handler.handle(AsyncResult.<Message<T>>failure(err));
+          } catch (Throwable t) {
+            EventBusClient.this.handleError("Exception in message error handler.", t);
+          }
+        }
+      });
+    }
+
+    private void dispatch(Runnable task) {
+      if (executor == null) {
+        task.run();
+      } else {
+        try {
+          executor.execute(task);
+        } catch (RejectedExecutionException e) {
+          EventBusClient.this.handleError("Could not execute the reply handler.", e);
+        }
+      }
+    }
+
+    @Override
+    protected void expired() {
+      if (replyMap.remove(address, this)) {
+        handleError(new TimeoutException());
+      }
+    }
+  }
+
+  /**
+   * The type {@code handler} binds message bodies to, {@code Object.class} when it does not specify one.
+   */
+  private static Class<?> bodyTypeOf(MessageHandler<?> handler) {
+    Class<?> type = handler.bodyType();
+    return type == null ? Object.class : type;
+  }
+
+  private Message<Object> bind(Message<Object> message, Class<?> type) {
+    if (type == null || type == message.bodyType()) {
+      return message;
+    }
+    Message<Object> view = message.withBodyType((Class<Object>) type);
+    if (view != null) {
+      return view;
+    }
+    Object body = message.body();
+    if (body == null || type.isInstance(body)) {
+      return message;
+    }
+    return new Message<Object>(this, message.address(), message.headers(), codec.decode(codec.encode(body), type), message.replyAddress());
+  }
 }
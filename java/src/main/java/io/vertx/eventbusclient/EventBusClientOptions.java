@@ -1,6 +1,8 @@
 package io.vertx.eventbusclient;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -30,6 +32,26 @@ public class EventBusClientOptions {
    */
   public static final int DEFAULT_PING_INTERVAL = 5000;
 
+  /**
+   * The default value of ping only when idle = false
+   */
+  public static final boolean DEFAULT_PING_ONLY_WHEN_IDLE = false;
+
+  /**
+   * The default maximum number of missed pongs = 0 (0 = no limit)
+   */
+  public static final int DEFAULT_MAX_MISSED_PONGS = 0;
+
+  /**
+   * The default value of whether the client records the latencies of the requests = false
+   */
+  public static final boolean DEFAULT_REQUEST_LATENCY_HISTOGRAMS = false;
+
+  /**
+   * The default maximum number of addresses with their own latency histogram = 64
+   */
+  public static final int DEFAULT_MAX_LATENCY_HISTOGRAMS = 64;
+
   /**
    * SSL enable by default = false
    */
@@ -75,8 +97,170 @@ public class EventBusClientOptions {
    */
   public static final int DEFAULT_MAX_WEBSOCKET_FRAME_SIZE = 65536;
 
+  /**
+   * The default value for maximum size of a WebSocket message reassembled from fragments = 262144 bytes
+   */
+  public static final int DEFAULT_MAX_WEBSOCKET_MESSAGE_SIZE = 4 * DEFAULT_MAX_WEBSOCKET_FRAME_SIZE;
+
+  /**
+   * The default size of the fragments WebSocket messages are sent in = 0 (0 = not fragmented)
+   */
+  public static final int DEFAULT_WEBSOCKET_FRAGMENT_SIZE = 0;
+
+  /**
+   * The default value of whether the WebSocket client negotiates permessage-deflate compression = false
+   */
+  public static final boolean DEFAULT_WEBSOCKET_COMPRESSION = false;
+
+  /**
+   * The default WebSocket compression level = 6
+   */
+  public static final int DEFAULT_WEBSOCKET_COMPRESSION_LEVEL = 6;
+
+  /**
+   * The default window size the server compresses WebSocket messages with = 15 bits
+   */
+  public static final int DEFAULT_WEBSOCKET_COMPRESSION_WINDOW_BITS = 15;
+
+  /**
+   * The default size below which WebSocket messages are sent uncompressed = 128 bytes
+   */
+  public static final int DEFAULT_WEBSOCKET_COMPRESSION_THRESHOLD = 128;
+
+  /**
+   * The default duration of a tick of the request timeout wheel = 100 ms
+   */
+  public static final int DEFAULT_TIMEOUT_WHEEL_TICK = 100;
+
+  /**
+   * The default number of buckets of the request timeout wheel = 512
+   */
+  public static final int DEFAULT_TIMEOUT_WHEEL_SIZE = 512;
+
+  /**
+   * The default maximum number of frames written to the connection before flushing it = 256
+   */
+  public static final int DEFAULT_MAX_WRITE_BATCH_SIZE = 256;
+
+  /**
+   * The default maximum time frames sent from other threads than the event loop wait before being flushed = 0 microseconds
+   */
+  public static final int DEFAULT_MAX_WRITE_LINGER = 0;
+
+  /**
+   * The default high water mark of the write buffer = 65536 bytes
+   */
+  public static final int DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK = 65536;
+
+  /**
+   * The default low water mark of the write buffer = 32768 bytes
+   */
+  public static final int DEFAULT_WRITE_BUFFER_LOW_WATER_MARK = 32768;
+
+  /**
+   * The default maximum number of messages buffered while not connected = 10000
+   */
+  public static final int DEFAULT_OFFLINE_BUFFER_MAX_MESSAGES = 10000;
+
+  /**
+   * The default maximum number of bytes buffered while not connected = 16 MiB
+   */
+  public static final int DEFAULT_OFFLINE_BUFFER_MAX_BYTES = 16 * 1024 * 1024;
+
+  /**
+   * The default offline buffer overflow policy = DROP_OLDEST
+   */
+  public static final OverflowPolicy DEFAULT_OFFLINE_BUFFER_OVERFLOW_POLICY = OverflowPolicy.DROP_OLDEST;
+
+  /**
+   * The default number of buffered messages replayed per event loop iteration after connecting = 128
+   */
+  public static final int DEFAULT_OFFLINE_REPLAY_BATCH_SIZE = 128;
+
+  /**
+   * The default size of an outbox segment = 16 MiB
+   */
+  public static final int DEFAULT_OUTBOX_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+  /**
+   * The default maximum size of the outbox = 1 GiB
+   */
+  public static final long DEFAULT_OUTBOX_MAX_SIZE = 1024L * 1024 * 1024;
+
+  /**
+   * The default outbox sync = false
+   */
+  public static final boolean DEFAULT_OUTBOX_SYNC = false;
+
+  /**
+   * The default number of addresses registered per event loop iteration = 128
+   */
+  public static final int DEFAULT_REGISTRATION_BATCH_SIZE = 128;
+
+  /**
+   * The default maximum number of addresses registered per second = 0 (0 = no limit)
+   */
+  public static final int DEFAULT_REGISTRATION_RATE = 0;
+
+  /**
+   * The default endpoint selection = {@link EndpointSelection#ROUND_ROBIN}
+   */
+  public static final EndpointSelection DEFAULT_ENDPOINT_SELECTION = EndpointSelection.ROUND_ROBIN;
+
+  /**
+   * The default time an endpoint is not selected after the client failed to connect to it = 30000 ms
+   */
+  public static final int DEFAULT_ENDPOINT_COOLDOWN = 30000;
+
+  /**
+   * The default asynchronous DNS resolution = true
+   */
+  public static final boolean DEFAULT_ASYNC_DNS_RESOLUTION = true;
+
+  /**
+   * The default minimum time a DNS answer is cached = 0 s
+   */
+  public static final int DEFAULT_DNS_CACHE_MIN_TIME_TO_LIVE = 0;
+
+  /**
+   * The default maximum time a DNS answer is cached = {@link Integer#MAX_VALUE} s (the TTL of the records)
+   */
+  public static final int DEFAULT_DNS_CACHE_MAX_TIME_TO_LIVE = Integer.MAX_VALUE;
+
+  /**
+   * The default time a failed DNS resolution is cached = 0 s (not cached)
+   */
+  public static final int DEFAULT_DNS_CACHE_NEGATIVE_TIME_TO_LIVE = 0;
+
+  /**
+   * The default DNS query timeout = 5000 ms
+   */
+  public static final long DEFAULT_DNS_QUERY_TIMEOUT = 5000;
+
+  /**
+   * The default connect strategy = {@link ConnectStrategy#SEQUENTIAL}
+   */
+  public static final ConnectStrategy DEFAULT_CONNECT_STRATEGY = ConnectStrategy.SEQUENTIAL;
+
+  /**
+   * The default delay before racing the next address of a host = 250 ms
+   */
+  public static final int DEFAULT_HAPPY_EYEBALLS_DELAY = 250;
+
   private String host;
   private int port;
+  private List<Endpoint> endpoints;
+  private EndpointSelection endpointSelection;
+  private int endpointCooldown;
+
+  private boolean asyncDnsResolution;
+  private List<String> dnsServers;
+  private int dnsCacheMinTimeToLive;
+  private int dnsCacheMaxTimeToLive;
+  private int dnsCacheNegativeTimeToLive;
+  private long dnsQueryTimeout;
+  private ConnectStrategy connectStrategy;
+  private int happyEyeballsDelay;
 
   private boolean ssl;
   private String trustStorePath;
@@ -87,10 +271,15 @@ public class EventBusClientOptions {
 
   private int idleTimeout;
   private int pingInterval;
+  private boolean pingOnlyWhenIdle;
+  private int maxMissedPongs;
+  private boolean requestLatencyHistograms;
+  private int maxLatencyHistograms;
 
   private int connectTimeout;
   private boolean autoReconnect;
   private int autoReconnectInterval;
+  private ReconnectPolicy reconnectPolicy;
   private int maxAutoReconnectTries;
 
   private String proxyHost;
@@ -101,9 +290,39 @@ public class EventBusClientOptions {
 
   private String webSocketPath;
   private int maxWebSocketFrameSize;
+  private int maxWebSocketMessageSize;
+  private int webSocketFragmentSize;
+  private boolean webSocketCompression;
+  private int webSocketCompressionLevel;
+  private int webSocketCompressionWindowBits;
+  private int webSocketCompressionThreshold;
 
   private String localAddress;
 
+  private boolean lazyMessageDecoding;
+
+  private int timeoutWheelTick;
+  private int timeoutWheelSize;
+
+  private int maxWriteBatchSize;
+  private int maxWriteLinger;
+
+  private int writeBufferHighWaterMark;
+  private int writeBufferLowWaterMark;
+
+  private int offlineBufferMaxMessages;
+  private int offlineBufferMaxBytes;
+  private OverflowPolicy offlineBufferOverflowPolicy;
+  private int offlineReplayBatchSize;
+
+  private String outboxPath;
+  private int outboxSegmentSize;
+  private long outboxMaxSize;
+  private boolean outboxSync;
+
+  private int registrationBatchSize;
+  private int registrationRate;
+
   /**
    * Default constructor
    */
@@ -114,6 +333,10 @@ public class EventBusClientOptions {
     this.idleTimeout = DEFAULT_IDLE_TIMEOUT;
     this.connectTimeout = DEFAULT_CONNECT_TIMEOUT;
     this.pingInterval = DEFAULT_PING_INTERVAL;
+    this.pingOnlyWhenIdle = DEFAULT_PING_ONLY_WHEN_IDLE;
+    this.maxMissedPongs = DEFAULT_MAX_MISSED_PONGS;
+    this.requestLatencyHistograms = DEFAULT_REQUEST_LATENCY_HISTOGRAMS;
+    this.maxLatencyHistograms = DEFAULT_MAX_LATENCY_HISTOGRAMS;
     this.verifyHost = DEFAULT_VERIFY_HOST;
     this.trustAll = DEFAULT_TRUST_ALL;
     this.autoReconnect = DEFAULT_AUTO_RECONNECT;
@@ -121,6 +344,38 @@ public class EventBusClientOptions {
     this.maxAutoReconnectTries = DEFAULT_MAX_AUTO_RECONNECT_TRIES;
     this.webSocketPath = EventBusClientOptions.DEFAULT_WEBSOCKET_PATH;
     this.maxWebSocketFrameSize = EventBusClientOptions.DEFAULT_MAX_WEBSOCKET_FRAME_SIZE;
+    this.maxWebSocketMessageSize = DEFAULT_MAX_WEBSOCKET_MESSAGE_SIZE;
+    this.webSocketFragmentSize = DEFAULT_WEBSOCKET_FRAGMENT_SIZE;
+    this.webSocketCompression = DEFAULT_WEBSOCKET_COMPRESSION;
+    this.webSocketCompressionLevel = DEFAULT_WEBSOCKET_COMPRESSION_LEVEL;
+    this.webSocketCompressionWindowBits = DEFAULT_WEBSOCKET_COMPRESSION_WINDOW_BITS;
+    this.webSocketCompressionThreshold = DEFAULT_WEBSOCKET_COMPRESSION_THRESHOLD;
+    this.timeoutWheelTick = DEFAULT_TIMEOUT_WHEEL_TICK;
+    this.timeoutWheelSize = DEFAULT_TIMEOUT_WHEEL_SIZE;
+    this.maxWriteBatchSize = DEFAULT_MAX_WRITE_BATCH_SIZE;
+    this.maxWriteLinger = DEFAULT_MAX_WRITE_LINGER;
+    this.writeBufferHighWaterMark = DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK;
+    this.writeBufferLowWaterMark = DEFAULT_WRITE_BUFFER_LOW_WATER_MARK;
+    this.offlineBufferMaxMessages = DEFAULT_OFFLINE_BUFFER_MAX_MESSAGES;
+    this.offlineBufferMaxBytes = DEFAULT_OFFLINE_BUFFER_MAX_BYTES;
+    this.offlineBufferOverflowPolicy = DEFAULT_OFFLINE_BUFFER_OVERFLOW_POLICY;
+    this.offlineReplayBatchSize = DEFAULT_OFFLINE_REPLAY_BATCH_SIZE;
+    this.outboxSegmentSize = DEFAULT_OUTBOX_SEGMENT_SIZE;
+    this.outboxMaxSize = DEFAULT_OUTBOX_MAX_SIZE;
+    this.outboxSync = DEFAULT_OUTBOX_SYNC;
+    this.registrationBatchSize = DEFAULT_REGISTRATION_BATCH_SIZE;
+    this.registrationRate = DEFAULT_REGISTRATION_RATE;
+    this.endpoints = new ArrayList<Endpoint>();
+    this.endpointSelection = DEFAULT_ENDPOINT_SELECTION;
+    this.endpointCooldown = DEFAULT_ENDPOINT_COOLDOWN;
+    this.asyncDnsResolution = DEFAULT_ASYNC_DNS_RESOLUTION;
+    this.dnsServers = new ArrayList<String>();
+    this.dnsCacheMinTimeToLive = DEFAULT_DNS_CACHE_MIN_TIME_TO_LIVE;
+    this.dnsCacheMaxTimeToLive = DEFAULT_DNS_CACHE_MAX_TIME_TO_LIVE;
+    this.dnsCacheNegativeTimeToLive = DEFAULT_DNS_CACHE_NEGATIVE_TIME_TO_LIVE;
+    this.dnsQueryTimeout = DEFAULT_DNS_QUERY_TIMEOUT;
+    this.connectStrategy = DEFAULT_CONNECT_STRATEGY;
+    this.happyEyeballsDelay = DEFAULT_HAPPY_EYEBALLS_DELAY;
   }
 
   /**
@@ -137,9 +392,14 @@ public class EventBusClientOptions {
     this.trustAll = options.trustAll;
     this.idleTimeout = options.idleTimeout;
     this.pingInterval = options.pingInterval;
+    this.pingOnlyWhenIdle = options.pingOnlyWhenIdle;
+    this.maxMissedPongs = options.maxMissedPongs;
+    this.requestLatencyHistograms = options.requestLatencyHistograms;
+    this.maxLatencyHistograms = options.maxLatencyHistograms;
     this.connectTimeout = options.connectTimeout;
     this.autoReconnect = options.autoReconnect;
     this.autoReconnectInterval = options.autoReconnectInterval;
+    this.reconnectPolicy = options.reconnectPolicy;
     this.maxAutoReconnectTries = options.maxAutoReconnectTries;
     this.proxyHost = options.proxyHost;
     this.proxyPort = options.proxyPort;
@@ -148,6 +408,41 @@ public class EventBusClientOptions {
     this.proxyUsername = options.proxyUsername;
     this.webSocketPath = options.webSocketPath;
     this.maxWebSocketFrameSize = options.maxWebSocketFrameSize;
+    this.maxWebSocketMessageSize = options.maxWebSocketMessageSize;
+    this.webSocketFragmentSize = options.webSocketFragmentSize;
+    this.webSocketCompression = options.webSocketCompression;
+    this.webSocketCompressionLevel = options.webSocketCompressionLevel;
+    this.webSocketCompressionWindowBits = options.webSocketCompressionWindowBits;
+    this.webSocketCompressionThreshold = options.webSocketCompressionThreshold;
+    this.localAddress = options.localAddress;
+    this.lazyMessageDecoding = options.lazyMessageDecoding;
+    this.timeoutWheelTick = options.timeoutWheelTick;
+    this.timeoutWheelSize = options.timeoutWheelSize;
+    this.maxWriteBatchSize = options.maxWriteBatchSize;
+    this.maxWriteLinger = options.maxWriteLinger;
+    this.writeBufferHighWaterMark = options.writeBufferHighWaterMark;
+    this.writeBufferLowWaterMark = options.writeBufferLowWaterMark;
+    this.offlineBufferMaxMessages = options.offlineBufferMaxMessages;
+    this.offlineBufferMaxBytes = options.offlineBufferMaxBytes;
+    this.offlineBufferOverflowPolicy = options.offlineBufferOverflowPolicy;
+    this.offlineReplayBatchSize = options.offlineReplayBatchSize;
+    this.outboxPath = options.outboxPath;
+    this.outboxSegmentSize = options.outboxSegmentSize;
+    this.outboxMaxSize = options.outboxMaxSize;
+    this.outboxSync = options.outboxSync;
+    this.registrationBatchSize = options.registrationBatchSize;
+    this.registrationRate = options.registrationRate;
+    this.endpoints = new ArrayList<Endpoint>(options.endpoints);
+    this.endpointSelection = options.endpointSelection;
+    this.endpointCooldown = options.endpointCooldown;
+    this.asyncDnsResolution = options.asyncDnsResolution;
+    this.dnsServers = new ArrayList<String>(options.dnsServers);
+    this.dnsCacheMinTimeToLive = options.dnsCacheMinTimeToLive;
+    this.dnsCacheMaxTimeToLive = options.dnsCacheMaxTimeToLive;
+    this.dnsCacheNegativeTimeToLive = options.dnsCacheNegativeTimeToLive;
+    this.dnsQueryTimeout = options.dnsQueryTimeout;
+    this.connectStrategy = options.connectStrategy;
+    this.happyEyeballsDelay = options.happyEyeballsDelay;
   }
 
   /**
@@ -187,255 +482,752 @@ public class EventBusClientOptions {
   }
 
   /**
-   * Set whether SSL/TLS is enabled
+   * Set the endpoints of the bridges the client connects to instead of {@link #getHost()} and {@link #getPort()}.
+   * When the client fails to connect to an endpoint it connects right away to another one, and the endpoint is not
+   * selected again during the {@link #setEndpointCooldown(int) endpoint cooldown}.
    *
-   * @param ssl true if enabled
+   * @param endpoints the endpoints
    * @return a reference to this, so the API can be used fluently
    */
-  public EventBusClientOptions setSsl(boolean ssl) {
-    this.ssl = ssl;
+  public EventBusClientOptions setEndpoints(List<Endpoint> endpoints) {
+    if (endpoints == null) {
+      throw new NullPointerException("endpoints must not be null");
+    }
+    this.endpoints = new ArrayList<Endpoint>(endpoints);
     return this;
   }
 
   /**
-   * @return is SSL/TLS enabled?
-   */
-  public boolean isSsl() {
-    return this.ssl;
-  }
-
-  /**
-   * Set the idle timeout, in seconds. zero means don't timeout.
-   * This determines if a connection will timeout and be closed if no data is received within the timeout.
+   * Add an endpoint of a bridge the client connects to.
    *
-   * @param idleTimeout the idle timeout, in milliseconds
+   * @param host the host of the bridge
+   * @param port the port of the bridge
    * @return a reference to this, so the API can be used fluently
+   * @see #setEndpoints(List)
    */
-  public EventBusClientOptions setIdleTimeout(int idleTimeout) {
-    if (idleTimeout < 0) {
-      throw new IllegalArgumentException("idleTimeout must be >= 0");
-    }
-    this.idleTimeout = idleTimeout;
+  public EventBusClientOptions addEndpoint(String host, int port) {
+    this.endpoints.add(new Endpoint(host, port));
     return this;
   }
 
   /**
-   * @return the idle timeout, in milliseconds (0 means no timeout)
+   * @return the endpoints of the bridges the client connects to, empty when the client connects to {@link #getHost()}
    */
-  public int getIdleTimeout() {
-    return this.idleTimeout;
+  public List<Endpoint> getEndpoints() {
+    return endpoints;
   }
 
   /**
-   * Set the connect timeout
+   * Set how the client chooses the endpoint it connects to.
    *
-   * @param connectTimeout connect timeout, in ms
+   * @param endpointSelection the endpoint selection
    * @return a reference to this, so the API can be used fluently
    */
-  public EventBusClientOptions setConnectTimeout(int connectTimeout) {
-    if (connectTimeout < 0) {
-      throw new IllegalArgumentException("connectTimeout must be >= 0");
+  public EventBusClientOptions setEndpointSelection(EndpointSelection endpointSelection) {
+    if (endpointSelection == null) {
+      throw new NullPointerException("endpointSelection must not be null");
     }
-    this.connectTimeout = connectTimeout;
+    this.endpointSelection = endpointSelection;
     return this;
   }
 
   /**
-   * @return the value of connect timeout
+   * @return how the client chooses the endpoint it connects to
    */
-  public int getConnectTimeout() {
-    return connectTimeout;
+  public EndpointSelection getEndpointSelection() {
+    return endpointSelection;
   }
 
   /**
-   * Set the ping interval
+   * Set the time an endpoint is not selected after the client failed to connect to it, unless all the endpoints
+   * failed.
    *
-   * @param pingInterval ping interval, in ms
+   * @param endpointCooldown the cooldown in ms
    * @return a reference to this, so the API can be used fluently
    */
-  public EventBusClientOptions setPingInterval(int pingInterval) {
-    if (pingInterval <= 0) {
-      throw new IllegalArgumentException("pingInterval must be > 0");
+  public EventBusClientOptions setEndpointCooldown(int endpointCooldown) {
+    if (endpointCooldown < 0) {
+      throw new IllegalArgumentException("endpointCooldown must be >= 0");
     }
-    this.pingInterval = pingInterval;
+    this.endpointCooldown = endpointCooldown;
     return this;
   }
 
   /**
-   * @return the value of ping interval
+   * @return the time in ms an endpoint is not selected after the client failed to connect to it
    */
-  public int getPingInterval() {
-    return pingInterval;
+  public int getEndpointCooldown() {
+    return endpointCooldown;
   }
 
   /**
-   * Set whether hostname verification is enabled
+   * Set whether the hosts are resolved with the asynchronous DNS resolver of the client, otherwise they are resolved
+   * with the JDK resolver which blocks the event loop.
    *
-   * @param verifyHost true if enabled
+   * @param asyncDnsResolution true to resolve the hosts asynchronously
    * @return a reference to this, so the API can be used fluently
    */
-  public EventBusClientOptions setVerifyHost(boolean verifyHost) {
-    this.verifyHost = verifyHost;
+  public EventBusClientOptions setAsyncDnsResolution(boolean asyncDnsResolution) {
+    this.asyncDnsResolution = asyncDnsResolution;
     return this;
   }
 
   /**
-   * Is hostname verification (for SSL/TLS) enabled?
-   *
-   * @return true if enabled
+   * @return whether the hosts are resolved with the asynchronous DNS resolver of the client
    */
-  public boolean isVerifyHost() {
-    return this.verifyHost;
+  public boolean isAsyncDnsResolution() {
+    return asyncDnsResolution;
   }
 
   /**
-   * Set whether all server certificates should be trusted (if so, hosts are never verified)
+   * Set the DNS servers queried by the asynchronous DNS resolver instead of the servers of the system.
    *
-   * @param trustAll true if all should be trusted
+   * @param dnsServers the servers as {@code host} or {@code host:port}
    * @return a reference to this, so the API can be used fluently
    */
-  public EventBusClientOptions setTrustAll(boolean trustAll) {
-    this.trustAll = trustAll;
+  public EventBusClientOptions setDnsServers(List<String> dnsServers) {
+    if (dnsServers == null) {
+      throw new NullPointerException("dnsServers must not be null");
+    }
+    this.dnsServers = new ArrayList<String>(dnsServers);
     return this;
   }
 
   /**
-   * @return true if all server certificates should be trusted
+   * Add a DNS server queried by the asynchronous DNS resolver instead of the servers of the system.
+   *
+   * @param dnsServer the server as {@code host} or {@code host:port}
+   * @return a reference to this, so the API can be used fluently
    */
-  public boolean isTrustAll() {
-    return this.trustAll;
+  public EventBusClientOptions addDnsServer(String dnsServer) {
+    if (dnsServer == null) {
+      throw new NullPointerException("dnsServer must not be null");
+    }
+    this.dnsServers.add(dnsServer);
+    return this;
   }
 
   /**
-   * Are auto reconnects enabled, even if the client does not try to send a message?
-   *
-   * @return if auto reconnects are enabled
+   * @return the DNS servers queried by the asynchronous DNS resolver, empty when the servers of the system are queried
    */
-  public boolean isAutoReconnect() {
-    return this.autoReconnect;
+  public List<String> getDnsServers() {
+    return dnsServers;
   }
 
   /**
-   * Set whether auto reconnects are enabled, even if the client does not try to send a message
+   * Set the minimum time a DNS answer is cached, overriding a shorter TTL of its records.
    *
-   * @param autoReconnect true if auto reconnects are enabled
+   * @param dnsCacheMinTimeToLive the time in s
    * @return a reference to this, so the API can be used fluently
    */
-  public EventBusClientOptions setAutoReconnect(boolean autoReconnect) {
-    this.autoReconnect = autoReconnect;
+  public EventBusClientOptions setDnsCacheMinTimeToLive(int dnsCacheMinTimeToLive) {
+    if (dnsCacheMinTimeToLive < 0) {
+      throw new IllegalArgumentException("dnsCacheMinTimeToLive must be >= 0");
+    }
+    this.dnsCacheMinTimeToLive = dnsCacheMinTimeToLive;
     return this;
   }
 
   /**
-   * Get the length of the pause between auto reconnect tries
-   *
-   * @return length of the pause in ms
+   * @return the minimum time in s a DNS answer is cached
    */
-  public int getAutoReconnectInterval() {
-    return this.autoReconnectInterval;
+  public int getDnsCacheMinTimeToLive() {
+    return dnsCacheMinTimeToLive;
   }
 
   /**
-   * Set the length of the pause between auto reconnect tries
+   * Set the maximum time a DNS answer is cached, overriding a longer TTL of its records.
    *
-   * @param autoReconnectInterval length of the pause in ms
+   * @param dnsCacheMaxTimeToLive the time in s
    * @return a reference to this, so the API can be used fluently
    */
-  public EventBusClientOptions setAutoReconnectInterval(int autoReconnectInterval) {
-    this.autoReconnectInterval = autoReconnectInterval;
+  public EventBusClientOptions setDnsCacheMaxTimeToLive(int dnsCacheMaxTimeToLive) {
+    if (dnsCacheMaxTimeToLive < 0) {
+      throw new IllegalArgumentException("dnsCacheMaxTimeToLive must be >= 0");
+    }
+    this.dnsCacheMaxTimeToLive = dnsCacheMaxTimeToLive;
     return this;
   }
 
   /**
-   * Get the maximum number of auto reconnect tries
-   *
-   * @return maximum number of reconnect tries
+   * @return the maximum time in s a DNS answer is cached
    */
-  public int getMaxAutoReconnectTries() {
-    return this.maxAutoReconnectTries;
+  public int getDnsCacheMaxTimeToLive() {
+    return dnsCacheMaxTimeToLive;
   }
 
   /**
-   * Set maximum number of auto reconnect tries
+   * Set the time a failed DNS resolution is cached, so reconnecting to a host that does not resolve does not query
+   * the DNS servers again meanwhile.
    *
-   * @param maxAutoReconnectTries maximum number of reconnect tries
+   * @param dnsCacheNegativeTimeToLive the time in s, {@code 0} to not cache the failures
    * @return a reference to this, so the API can be used fluently
    */
-  public EventBusClientOptions setMaxAutoReconnectTries(int maxAutoReconnectTries) {
-    this.maxAutoReconnectTries = maxAutoReconnectTries;
+  public EventBusClientOptions setDnsCacheNegativeTimeToLive(int dnsCacheNegativeTimeToLive) {
+    if (dnsCacheNegativeTimeToLive < 0) {
+      throw new IllegalArgumentException("dnsCacheNegativeTimeToLive must be >= 0");
+    }
+    this.dnsCacheNegativeTimeToLive = dnsCacheNegativeTimeToLive;
     return this;
   }
 
-  public String getTrustStorePath() {
-    return trustStorePath;
+  /**
+   * @return the time in s a failed DNS resolution is cached
+   */
+  public int getDnsCacheNegativeTimeToLive() {
+    return dnsCacheNegativeTimeToLive;
   }
 
-  public EventBusClientOptions setTrustStorePath(String trustStorePath) {
-    this.trustStorePath = trustStorePath;
+  /**
+   * Set the time the asynchronous DNS resolver waits for the answer to a query.
+   *
+   * @param dnsQueryTimeout the timeout in ms
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setDnsQueryTimeout(long dnsQueryTimeout) {
+    if (dnsQueryTimeout <= 0) {
+      throw new IllegalArgumentException("dnsQueryTimeout must be > 0");
+    }
+    this.dnsQueryTimeout = dnsQueryTimeout;
     return this;
   }
 
-  public String getTrustStorePassword() {
-    return trustStorePassword;
+  /**
+   * @return the time in ms the asynchronous DNS resolver waits for the answer to a query
+   */
+  public long getDnsQueryTimeout() {
+    return dnsQueryTimeout;
   }
 
-  public EventBusClientOptions setTrustStorePassword(String trustStorePassword) {
-    this.trustStorePassword = trustStorePassword;
+  /**
+   * Set how the client connects to a host resolving to several addresses.
+   *
+   * @param connectStrategy the connect strategy
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setConnectStrategy(ConnectStrategy connectStrategy) {
+    if (connectStrategy == null) {
+      throw new NullPointerException("connectStrategy must not be null");
+    }
+    this.connectStrategy = connectStrategy;
     return this;
   }
 
-  public String getTrustStoreType() {
-    return trustStoreType;
-  }
-
-  public EventBusClientOptions setTrustStoreType(String trustStoreType) {
-    if (!Arrays.asList("jks", "pfx", "pem", null).contains(trustStoreType)) {
-      throw new IllegalArgumentException("Invalid trust store type it must be one of jks (Java), pfx (PKCS12) or pem (PKCS8)");
-    }
-    this.trustStoreType = trustStoreType;
-    return this;
+  /**
+   * @return how the client connects to a host resolving to several addresses
+   */
+  public ConnectStrategy getConnectStrategy() {
+    return connectStrategy;
   }
 
   /**
-   * Set the path to connect the WebSocket client to
+   * Set the time the client waits for a connection attempt before racing it with the next address, when the connect
+   * strategy is {@link ConnectStrategy#HAPPY_EYEBALLS}.
    *
-   * @param webSocketPath the storePath
+   * @param happyEyeballsDelay the delay in ms
    * @return a reference to this, so the API can be used fluently
    */
-  public EventBusClientOptions setWebSocketPath(String webSocketPath) {
-    this.webSocketPath = webSocketPath;
+  public EventBusClientOptions setHappyEyeballsDelay(int happyEyeballsDelay) {
+    if (happyEyeballsDelay < 0) {
+      throw new IllegalArgumentException("happyEyeballsDelay must be >= 0");
+    }
+    this.happyEyeballsDelay = happyEyeballsDelay;
     return this;
   }
 
   /**
-   * Get the path to connect the WebSocket client to
-   *
-   * @return the storePath
+   * @return the time in ms the client waits for a connection attempt before racing it with the next address
    */
-  public String getWebSocketPath() {
-    return this.webSocketPath;
+  public int getHappyEyeballsDelay() {
+    return happyEyeballsDelay;
   }
 
   /**
-   * Get the maximum websocket framesize to use
+   * Set whether SSL/TLS is enabled
    *
-   * @return the max websocket framesize
+   * @param ssl true if enabled
+   * @return a reference to this, so the API can be used fluently
    */
-  public int getMaxWebSocketFrameSize() {
-    return this.maxWebSocketFrameSize;
+  public EventBusClientOptions setSsl(boolean ssl) {
+    this.ssl = ssl;
+    return this;
   }
 
   /**
-   * Set the max websocket frame size
+   * @return is SSL/TLS enabled?
+   */
+  public boolean isSsl() {
+    return this.ssl;
+  }
+
+  /**
+   * Set the idle timeout, in seconds. zero means don't timeout.
+   * This determines if a connection will timeout and be closed if no data is received within the timeout.
+   *
+   * @param idleTimeout the idle timeout, in milliseconds
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setIdleTimeout(int idleTimeout) {
+    if (idleTimeout < 0) {
+      throw new IllegalArgumentException("idleTimeout must be >= 0");
+    }
+    this.idleTimeout = idleTimeout;
+    return this;
+  }
+
+  /**
+   * @return the idle timeout, in milliseconds (0 means no timeout)
+   */
+  public int getIdleTimeout() {
+    return this.idleTimeout;
+  }
+
+  /**
+   * Set the connect timeout
+   *
+   * @param connectTimeout connect timeout, in ms
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setConnectTimeout(int connectTimeout) {
+    if (connectTimeout < 0) {
+      throw new IllegalArgumentException("connectTimeout must be >= 0");
+    }
+    this.connectTimeout = connectTimeout;
+    return this;
+  }
+
+  /**
+   * @return the value of connect timeout
+   */
+  public int getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  /**
+   * Set the ping interval
+   *
+   * @param pingInterval ping interval, in ms
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setPingInterval(int pingInterval) {
+    if (pingInterval <= 0) {
+      throw new IllegalArgumentException("pingInterval must be > 0");
+    }
+    this.pingInterval = pingInterval;
+    return this;
+  }
+
+  /**
+   * @return the value of ping interval
+   */
+  public int getPingInterval() {
+    return pingInterval;
+  }
+
+  /**
+   * Set whether the client sends a ping only when it did not write anything to the connection during the ping
+   * interval, so a busy connection does not carry pings too. The SockJS bridge closes connections that do not
+   * send pings regardless of the other messages, keep it disabled with it.
+   *
+   * @param pingOnlyWhenIdle whether to ping only when idle
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setPingOnlyWhenIdle(boolean pingOnlyWhenIdle) {
+    this.pingOnlyWhenIdle = pingOnlyWhenIdle;
+    return this;
+  }
+
+  /**
+   * @return whether the client sends a ping only when it did not write anything during the ping interval
+   */
+  public boolean isPingOnlyWhenIdle() {
+    return pingOnlyWhenIdle;
+  }
+
+  /**
+   * Set the number of ping intervals a ping can stay without pong before the client closes the connection and
+   * reconnects. It requires a bridge replying to pings, as the TCP bridge does and the SockJS bridge does not.
+   *
+   * @param maxMissedPongs the number of missed pongs, {@code 0} never closes the connection
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setMaxMissedPongs(int maxMissedPongs) {
+    if (maxMissedPongs < 0) {
+      throw new IllegalArgumentException("maxMissedPongs must be >= 0");
+    }
+    this.maxMissedPongs = maxMissedPongs;
+    return this;
+  }
+
+  /**
+   * @return the number of missed pongs after which the client reconnects
+   */
+  public int getMaxMissedPongs() {
+    return maxMissedPongs;
+  }
+
+  /**
+   * Set whether the client records the latency of each request, from the time it is written to the connection
+   * until its reply is received, in a histogram per address.
+   *
+   * @param requestLatencyHistograms whether to record the latencies of the requests
+   * @return a reference to this, so the API can be used fluently
+   * @see EventBusClient#requestLatencies(boolean)
+   */
+  public EventBusClientOptions setRequestLatencyHistograms(boolean requestLatencyHistograms) {
+    this.requestLatencyHistograms = requestLatencyHistograms;
+    return this;
+  }
+
+  /**
+   * @return whether the client records the latencies of the requests
+   */
+  public boolean isRequestLatencyHistograms() {
+    return requestLatencyHistograms;
+  }
+
+  /**
+   * Set the maximum number of addresses with their own latency histogram, the requests to the other addresses
+   * are recorded together under {@link EventBusClient#OTHER_ADDRESSES}.
+   *
+   * @param maxLatencyHistograms the maximum number of histograms
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setMaxLatencyHistograms(int maxLatencyHistograms) {
+    if (maxLatencyHistograms <= 0) {
+      throw new IllegalArgumentException("maxLatencyHistograms must be > 0");
+    }
+    this.maxLatencyHistograms = maxLatencyHistograms;
+    return this;
+  }
+
+  /**
+   * @return the maximum number of addresses with their own latency histogram
+   */
+  public int getMaxLatencyHistograms() {
+    return maxLatencyHistograms;
+  }
+
+  /**
+   * Set whether hostname verification is enabled
+   *
+   * @param verifyHost true if enabled
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setVerifyHost(boolean verifyHost) {
+    this.verifyHost = verifyHost;
+    return this;
+  }
+
+  /**
+   * Is hostname verification (for SSL/TLS) enabled?
+   *
+   * @return true if enabled
+   */
+  public boolean isVerifyHost() {
+    return this.verifyHost;
+  }
+
+  /**
+   * Set whether all server certificates should be trusted (if so, hosts are never verified)
+   *
+   * @param trustAll true if all should be trusted
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setTrustAll(boolean trustAll) {
+    this.trustAll = trustAll;
+    return this;
+  }
+
+  /**
+   * @return true if all server certificates should be trusted
+   */
+  public boolean isTrustAll() {
+    return this.trustAll;
+  }
+
+  /**
+   * Are auto reconnects enabled, even if the client does not try to send a message?
+   *
+   * @return if auto reconnects are enabled
+   */
+  public boolean isAutoReconnect() {
+    return this.autoReconnect;
+  }
+
+  /**
+   * Set whether auto reconnects are enabled, even if the client does not try to send a message
+   *
+   * @param autoReconnect true if auto reconnects are enabled
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setAutoReconnect(boolean autoReconnect) {
+    this.autoReconnect = autoReconnect;
+    return this;
+  }
+
+  /**
+   * Get the length of the pause between auto reconnect tries
+   *
+   * @return length of the pause in ms
+   */
+  public int getAutoReconnectInterval() {
+    return this.autoReconnectInterval;
+  }
+
+  /**
+   * Set the length of the pause between auto reconnect tries
+   *
+   * @param autoReconnectInterval length of the pause in ms
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setAutoReconnectInterval(int autoReconnectInterval) {
+    this.autoReconnectInterval = autoReconnectInterval;
+    return this;
+  }
+
+  /**
+   * Get the policy computing the pause before each auto reconnect try
+   *
+   * @return the reconnect policy
+   */
+  public ReconnectPolicy getReconnectPolicy() {
+    return reconnectPolicy;
+  }
+
+  /**
+   * Set the policy computing the pause before each auto reconnect try, for instance an {@link ExponentialBackoff}
+   * so many clients losing their connection at the same time do not reconnect in lockstep.
+   *
+   * @param reconnectPolicy the reconnect policy, {@code null} pauses {@link #getAutoReconnectInterval()} before each try
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setReconnectPolicy(ReconnectPolicy reconnectPolicy) {
+    this.reconnectPolicy = reconnectPolicy;
+    return this;
+  }
+
+  /**
+   * Get the maximum number of auto reconnect tries
+   *
+   * @return maximum number of reconnect tries
+   */
+  public int getMaxAutoReconnectTries() {
+    return this.maxAutoReconnectTries;
+  }
+
+  /**
+   * Set maximum number of auto reconnect tries
+   *
+   * @param maxAutoReconnectTries maximum number of reconnect tries
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setMaxAutoReconnectTries(int maxAutoReconnectTries) {
+    this.maxAutoReconnectTries = maxAutoReconnectTries;
+    return this;
+  }
+
+  public String getTrustStorePath() {
+    return trustStorePath;
+  }
+
+  public EventBusClientOptions setTrustStorePath(String trustStorePath) {
+    this.trustStorePath = trustStorePath;
+    return this;
+  }
+
+  public String getTrustStorePassword() {
+    return trustStorePassword;
+  }
+
+  public EventBusClientOptions setTrustStorePassword(String trustStorePassword) {
+    this.trustStorePassword = trustStorePassword;
+    return this;
+  }
+
+  public String getTrustStoreType() {
+    return trustStoreType;
+  }
+
+  public EventBusClientOptions setTrustStoreType(String trustStoreType) {
+    if (!Arrays.asList("jks", "pfx", "pem", null).contains(trustStoreType)) {
+      throw new IllegalArgumentException("Invalid trust store type it must be one of jks (Java), pfx (PKCS12) or pem (PKCS8)");
+    }
+    this.trustStoreType = trustStoreType;
+    return this;
+  }
+
+  /**
+   * Set the path to connect the WebSocket client to
+   *
+   * @param webSocketPath the storePath
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setWebSocketPath(String webSocketPath) {
+    this.webSocketPath = webSocketPath;
+    return this;
+  }
+
+  /**
+   * Get the path to connect the WebSocket client to
+   *
+   * @return the storePath
+   */
+  public String getWebSocketPath() {
+    return this.webSocketPath;
+  }
+
+  /**
+   * Get the maximum websocket framesize to use
+   *
+   * @return the max websocket framesize
+   */
+  public int getMaxWebSocketFrameSize() {
+    return this.maxWebSocketFrameSize;
+  }
+
+  /**
+   * Set the max websocket frame size
+   *
+   * @param websocketMaxWebsocketFrameSize the max frame size, in bytes
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setMaxWebSocketFrameSize(int websocketMaxWebsocketFrameSize) {
+    this.maxWebSocketFrameSize = websocketMaxWebsocketFrameSize;
+    return this;
+  }
+
+  /**
+   * Set the maximum size of a message the WebSocket client reassembles from fragments, the client closes the
+   * connection when a message exceeds it. Each fragment is limited by {@link #setMaxWebSocketFrameSize(int)}.
+   *
+   * @param maxWebSocketMessageSize the maximum message size, in bytes
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setMaxWebSocketMessageSize(int maxWebSocketMessageSize) {
+    if (maxWebSocketMessageSize <= 0) {
+      throw new IllegalArgumentException("maxWebSocketMessageSize must be > 0");
+    }
+    this.maxWebSocketMessageSize = maxWebSocketMessageSize;
+    return this;
+  }
+
+  /**
+   * @return the maximum size of a message reassembled from fragments, in bytes
+   */
+  public int getMaxWebSocketMessageSize() {
+    return maxWebSocketMessageSize;
+  }
+
+  /**
+   * Set the size of the fragments the WebSocket client sends the messages larger than it in, so a large message
+   * does not have to fit in the server frame size. The fragments are slices of the encoded message, they are not
+   * copied.
    *
-   * @param websocketMaxWebsocketFrameSize the max frame size, in bytes
+   * @param webSocketFragmentSize the fragment size in bytes, {@code 0} sends each message in a single frame
    * @return a reference to this, so the API can be used fluently
    */
-  public EventBusClientOptions setMaxWebSocketFrameSize(int websocketMaxWebsocketFrameSize) {
-    this.maxWebSocketFrameSize = websocketMaxWebsocketFrameSize;
+  public EventBusClientOptions setWebSocketFragmentSize(int webSocketFragmentSize) {
+    if (webSocketFragmentSize < 0) {
+      throw new IllegalArgumentException("webSocketFragmentSize must be >= 0");
+    }
+    this.webSocketFragmentSize = webSocketFragmentSize;
+    return this;
+  }
+
+  /**
+   * @return the size of the fragments WebSocket messages are sent in, {@code 0} when they are not fragmented
+   */
+  public int getWebSocketFragmentSize() {
+    return webSocketFragmentSize;
+  }
+
+  /**
+   * Set whether the WebSocket client negotiates the permessage-deflate extension with the server, messages are
+   * then compressed in both directions when the server accepts it and sent uncompressed otherwise.
+   *
+   * @param webSocketCompression whether to negotiate compression
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setWebSocketCompression(boolean webSocketCompression) {
+    this.webSocketCompression = webSocketCompression;
+    return this;
+  }
+
+  /**
+   * @return whether the WebSocket client negotiates permessage-deflate compression
+   */
+  public boolean isWebSocketCompression() {
+    return webSocketCompression;
+  }
+
+  /**
+   * Set the level the WebSocket client compresses messages with, from {@code 0} which only frames them to
+   * {@code 9} which compresses the most at the highest CPU cost.
+   *
+   * @param webSocketCompressionLevel the compression level
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setWebSocketCompressionLevel(int webSocketCompressionLevel) {
+    if (webSocketCompressionLevel < 0 || webSocketCompressionLevel > 9) {
+      throw new IllegalArgumentException("webSocketCompressionLevel must be >= 0 and <= 9");
+    }
+    this.webSocketCompressionLevel = webSocketCompressionLevel;
+    return this;
+  }
+
+  /**
+   * @return the level the WebSocket client compresses messages with
+   */
+  public int getWebSocketCompressionLevel() {
+    return webSocketCompressionLevel;
+  }
+
+  /**
+   * Set the size of the window the server compresses messages with as a power of two, requested with the
+   * {@code server_max_window_bits} parameter. A smaller window saves memory on both sides at the expense of the
+   * compression ratio, the server declines compression when it cannot honour it.
+   *
+   * @param webSocketCompressionWindowBits the window size in bits
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setWebSocketCompressionWindowBits(int webSocketCompressionWindowBits) {
+    if (webSocketCompressionWindowBits < 8 || webSocketCompressionWindowBits > 15) {
+      throw new IllegalArgumentException("webSocketCompressionWindowBits must be >= 8 and <= 15");
+    }
+    this.webSocketCompressionWindowBits = webSocketCompressionWindowBits;
+    return this;
+  }
+
+  /**
+   * @return the size of the window the server compresses messages with, in bits
+   */
+  public int getWebSocketCompressionWindowBits() {
+    return webSocketCompressionWindowBits;
+  }
+
+  /**
+   * Set the size below which the WebSocket client sends messages uncompressed, as compressing small messages costs
+   * CPU and hardly saves any bytes.
+   *
+   * @param webSocketCompressionThreshold the size in bytes
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setWebSocketCompressionThreshold(int webSocketCompressionThreshold) {
+    if (webSocketCompressionThreshold < 0) {
+      throw new IllegalArgumentException("webSocketCompressionThreshold must be >= 0");
+    }
+    this.webSocketCompressionThreshold = webSocketCompressionThreshold;
     return this;
   }
 
+  /**
+   * @return the size below which the WebSocket client sends messages uncompressed
+   */
+  public int getWebSocketCompressionThreshold() {
+    return webSocketCompressionThreshold;
+  }
+
   /**
    * Get proxy host.
    *
@@ -563,4 +1355,371 @@ public class EventBusClientOptions {
   public String getLocalAddress() {
     return localAddress;
   }
+
+  /**
+   * Set whether received messages are decoded lazily.
+   * <p>
+   * When enabled, only the envelope of a received message is decoded before routing it on its address, messages
+   * without a consumer are dropped without decoding their body, and the body is decoded on the first call to
+   * {@link Message#body()}.
+   *
+   * @param lazyMessageDecoding true to decode message bodies lazily
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setLazyMessageDecoding(boolean lazyMessageDecoding) {
+    this.lazyMessageDecoding = lazyMessageDecoding;
+    return this;
+  }
+
+  /**
+   * @return whether received messages are decoded lazily
+   */
+  public boolean isLazyMessageDecoding() {
+    return lazyMessageDecoding;
+  }
+
+  /**
+   * Set the duration of a tick of the wheel expiring request timeouts, a request times out at most one tick after
+   * its send timeout.
+   *
+   * @param timeoutWheelTick the tick duration, in ms
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setTimeoutWheelTick(int timeoutWheelTick) {
+    if (timeoutWheelTick <= 0) {
+      throw new IllegalArgumentException("timeoutWheelTick must be > 0");
+    }
+    this.timeoutWheelTick = timeoutWheelTick;
+    return this;
+  }
+
+  /**
+   * @return the duration of a tick of the request timeout wheel, in ms
+   */
+  public int getTimeoutWheelTick() {
+    return timeoutWheelTick;
+  }
+
+  /**
+   * Set the number of buckets of the wheel expiring request timeouts, it is rounded up to a power of two. Timeouts
+   * longer than a turn of the wheel are kept in their bucket for several turns.
+   *
+   * @param timeoutWheelSize the number of buckets
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setTimeoutWheelSize(int timeoutWheelSize) {
+    if (timeoutWheelSize <= 0 || timeoutWheelSize > 1 << 30) {
+      throw new IllegalArgumentException("timeoutWheelSize must be > 0 and <= 2^30");
+    }
+    this.timeoutWheelSize = timeoutWheelSize;
+    return this;
+  }
+
+  /**
+   * @return the number of buckets of the request timeout wheel
+   */
+  public int getTimeoutWheelSize() {
+    return timeoutWheelSize;
+  }
+
+  /**
+   * Set the maximum number of frames written to the connection before flushing it, when messages are sent from
+   * other threads than the event loop.
+   *
+   * @param maxWriteBatchSize the maximum number of frames flushed at once
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setMaxWriteBatchSize(int maxWriteBatchSize) {
+    if (maxWriteBatchSize <= 0) {
+      throw new IllegalArgumentException("maxWriteBatchSize must be > 0");
+    }
+    this.maxWriteBatchSize = maxWriteBatchSize;
+    return this;
+  }
+
+  /**
+   * @return the maximum number of frames flushed at once
+   */
+  public int getMaxWriteBatchSize() {
+    return maxWriteBatchSize;
+  }
+
+  /**
+   * Set the maximum time messages sent from other threads than the event loop wait for more messages before being
+   * flushed, a full batch is flushed without waiting. The default {@code 0} flushes the messages as soon as the
+   * event loop gets to them.
+   *
+   * @param maxWriteLinger the maximum linger time, in microseconds
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setMaxWriteLinger(int maxWriteLinger) {
+    if (maxWriteLinger < 0) {
+      throw new IllegalArgumentException("maxWriteLinger must be >= 0");
+    }
+    this.maxWriteLinger = maxWriteLinger;
+    return this;
+  }
+
+  /**
+   * @return the maximum linger time of messages sent from other threads than the event loop, in microseconds
+   */
+  public int getMaxWriteLinger() {
+    return maxWriteLinger;
+  }
+
+  /**
+   * Set the high water mark of the write buffer, {@link EventBusClient#writeQueueFull()} returns true when the
+   * messages not yet written to the connection reach it.
+   *
+   * @param writeBufferHighWaterMark the high water mark, in bytes
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setWriteBufferHighWaterMark(int writeBufferHighWaterMark) {
+    if (writeBufferHighWaterMark < 0) {
+      throw new IllegalArgumentException("writeBufferHighWaterMark must be >= 0");
+    }
+    this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+    return this;
+  }
+
+  /**
+   * @return the high water mark of the write buffer, in bytes
+   */
+  public int getWriteBufferHighWaterMark() {
+    return writeBufferHighWaterMark;
+  }
+
+  /**
+   * Set the low water mark of the write buffer, the drain handler is called when the messages not yet written to the
+   * connection fall below it. It must not be greater than the high water mark.
+   *
+   * @param writeBufferLowWaterMark the low water mark, in bytes
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setWriteBufferLowWaterMark(int writeBufferLowWaterMark) {
+    if (writeBufferLowWaterMark < 0) {
+      throw new IllegalArgumentException("writeBufferLowWaterMark must be >= 0");
+    }
+    this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+    return this;
+  }
+
+  /**
+   * @return the low water mark of the write buffer, in bytes
+   */
+  public int getWriteBufferLowWaterMark() {
+    return writeBufferLowWaterMark;
+  }
+
+  /**
+   * Set the maximum number of messages buffered while the client is not connected.
+   *
+   * @param offlineBufferMaxMessages the maximum number of messages
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setOfflineBufferMaxMessages(int offlineBufferMaxMessages) {
+    if (offlineBufferMaxMessages < 0) {
+      throw new IllegalArgumentException("offlineBufferMaxMessages must be >= 0");
+    }
+    this.offlineBufferMaxMessages = offlineBufferMaxMessages;
+    return this;
+  }
+
+  /**
+   * @return the maximum number of messages buffered while the client is not connected
+   */
+  public int getOfflineBufferMaxMessages() {
+    return offlineBufferMaxMessages;
+  }
+
+  /**
+   * Set the maximum number of encoded bytes buffered while the client is not connected.
+   *
+   * @param offlineBufferMaxBytes the maximum number of bytes
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setOfflineBufferMaxBytes(int offlineBufferMaxBytes) {
+    if (offlineBufferMaxBytes < 0) {
+      throw new IllegalArgumentException("offlineBufferMaxBytes must be >= 0");
+    }
+    this.offlineBufferMaxBytes = offlineBufferMaxBytes;
+    return this;
+  }
+
+  /**
+   * @return the maximum number of encoded bytes buffered while the client is not connected
+   */
+  public int getOfflineBufferMaxBytes() {
+    return offlineBufferMaxBytes;
+  }
+
+  /**
+   * Set what happens to a message sent while the client is not connected when the offline buffer is full.
+   *
+   * @param offlineBufferOverflowPolicy the overflow policy
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setOfflineBufferOverflowPolicy(OverflowPolicy offlineBufferOverflowPolicy) {
+    if (offlineBufferOverflowPolicy == null) {
+      throw new IllegalArgumentException("offlineBufferOverflowPolicy must not be null");
+    }
+    this.offlineBufferOverflowPolicy = offlineBufferOverflowPolicy;
+    return this;
+  }
+
+  /**
+   * @return the offline buffer overflow policy
+   */
+  public OverflowPolicy getOfflineBufferOverflowPolicy() {
+    return offlineBufferOverflowPolicy;
+  }
+
+  /**
+   * Set the number of buffered messages replayed per event loop iteration after connecting, the replay also waits
+   * for the write queue to drain when it is full.
+   *
+   * @param offlineReplayBatchSize the number of messages
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setOfflineReplayBatchSize(int offlineReplayBatchSize) {
+    if (offlineReplayBatchSize <= 0) {
+      throw new IllegalArgumentException("offlineReplayBatchSize must be > 0");
+    }
+    this.offlineReplayBatchSize = offlineReplayBatchSize;
+    return this;
+  }
+
+  /**
+   * @return the number of buffered messages replayed per event loop iteration after connecting
+   */
+  public int getOfflineReplayBatchSize() {
+    return offlineReplayBatchSize;
+  }
+
+  /**
+   * Set the directory of the outbox, a persistent log storing the messages sent while the client is not connected
+   * instead of the memory. The messages survive a restart of the application and are sent once the client connects,
+   * a directory can be used by a single client at a time.
+   *
+   * @param outboxPath the outbox directory, {@code null} keeps the messages in memory
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setOutboxPath(String outboxPath) {
+    this.outboxPath = outboxPath;
+    return this;
+  }
+
+  /**
+   * @return the outbox directory
+   */
+  public String getOutboxPath() {
+    return outboxPath;
+  }
+
+  /**
+   * Set the size of the segment files of the outbox, a message larger than a segment cannot be stored in the outbox.
+   *
+   * @param outboxSegmentSize the segment size, in bytes
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setOutboxSegmentSize(int outboxSegmentSize) {
+    if (outboxSegmentSize < 1024) {
+      throw new IllegalArgumentException("outboxSegmentSize must be >= 1024");
+    }
+    this.outboxSegmentSize = outboxSegmentSize;
+    return this;
+  }
+
+  /**
+   * @return the size of the segment files of the outbox, in bytes
+   */
+  public int getOutboxSegmentSize() {
+    return outboxSegmentSize;
+  }
+
+  /**
+   * Set the maximum size of the outbox, it replaces {@link #setOfflineBufferMaxBytes(int)} when the outbox is used.
+   * The outbox holds at least one segment.
+   *
+   * @param outboxMaxSize the maximum size, in bytes
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setOutboxMaxSize(long outboxMaxSize) {
+    if (outboxMaxSize <= 0) {
+      throw new IllegalArgumentException("outboxMaxSize must be > 0");
+    }
+    this.outboxMaxSize = outboxMaxSize;
+    return this;
+  }
+
+  /**
+   * @return the maximum size of the outbox, in bytes
+   */
+  public long getOutboxMaxSize() {
+    return outboxMaxSize;
+  }
+
+  /**
+   * Set whether each message stored in the outbox is synced to disk, otherwise the operating system writes them
+   * to disk and they survive a crash of the application but not of the operating system.
+   *
+   * @param outboxSync whether each message is synced
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setOutboxSync(boolean outboxSync) {
+    this.outboxSync = outboxSync;
+    return this;
+  }
+
+  /**
+   * @return whether each message stored in the outbox is synced to disk
+   */
+  public boolean isOutboxSync() {
+    return outboxSync;
+  }
+
+  /**
+   * Set the number of addresses registered at the server per event loop iteration, when the client connects or
+   * consumers are created with {@link EventBusClient#consumers(java.util.Collection, Class, Handler)}. The
+   * registrations of a batch are flushed at once and messages are sent between the batches.
+   *
+   * @param registrationBatchSize the number of addresses
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setRegistrationBatchSize(int registrationBatchSize) {
+    if (registrationBatchSize <= 0) {
+      throw new IllegalArgumentException("registrationBatchSize must be > 0");
+    }
+    this.registrationBatchSize = registrationBatchSize;
+    return this;
+  }
+
+  /**
+   * @return the number of addresses registered at the server per event loop iteration
+   */
+  public int getRegistrationBatchSize() {
+    return registrationBatchSize;
+  }
+
+  /**
+   * Set the maximum number of addresses registered at the server per second when the client connects or
+   * consumers are created in bulk, so restoring many consumers after a reconnect does not overload the server.
+   *
+   * @param registrationRate the number of addresses per second, {@code 0} does not limit it
+   * @return a reference to this, so the API can be used fluently
+   */
+  public EventBusClientOptions setRegistrationRate(int registrationRate) {
+    if (registrationRate < 0) {
+      throw new IllegalArgumentException("registrationRate must be >= 0");
+    }
+    this.registrationRate = registrationRate;
+    return this;
+  }
+
+  /**
+   * @return the maximum number of addresses registered at the server per second
+   */
+  public int getRegistrationRate() {
+    return registrationRate;
+  }
 }
@@ -0,0 +1,147 @@
+package io.vertx.eventbusclient;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A {@link ReconnectPolicy} growing the pause exponentially from a minimum pause up to a maximum pause, the pause
+ * before the try {@code n} is {@code minDelay * exponent^(n - 1)} capped to {@code maxDelay}, before jitter.
+ */
+public class ExponentialBackoff implements ReconnectPolicy {
+
+  /**
+   * The default minimum pause = 1000 ms
+   */
+  public static final long DEFAULT_MIN_DELAY = 1000;
+
+  /**
+   * The default maximum pause = 30000 ms
+   */
+  public static final long DEFAULT_MAX_DELAY = 30000;
+
+  /**
+   * The default exponent = 2
+   */
+  public static final double DEFAULT_EXPONENT = 2;
+
+  /**
+   * The default jitter = {@link Jitter#FULL}
+   */
+  public static final Jitter DEFAULT_JITTER = Jitter.FULL;
+
+  private long minDelay = DEFAULT_MIN_DELAY;
+  private long maxDelay = DEFAULT_MAX_DELAY;
+  private double exponent = DEFAULT_EXPONENT;
+  private Jitter jitter = DEFAULT_JITTER;
+
+  /**
+   * Set the pause before the first try.
+   *
+   * @param minDelay the minimum pause in ms
+   * @return a reference to this, so the API can be used fluently
+   */
+  public ExponentialBackoff setMinDelay(long minDelay) {
+    if (minDelay < 0) {
+      throw new IllegalArgumentException("minDelay must be >= 0");
+    }
+    this.minDelay = minDelay;
+    return this;
+  }
+
+  /**
+   * @return the minimum pause in ms
+   */
+  public long getMinDelay() {
+    return minDelay;
+  }
+
+  /**
+   * Set the maximum pause between two tries.
+   *
+   * @param maxDelay the maximum pause in ms
+   * @return a reference to this, so the API can be used fluently
+   */
+  public ExponentialBackoff setMaxDelay(long maxDelay) {
+    if (maxDelay < 0) {
+      throw new IllegalArgumentException("maxDelay must be >= 0");
+    }
+    this.maxDelay = maxDelay;
+    return this;
+  }
+
+  /**
+   * @return the maximum pause in ms
+   */
+  public long getMaxDelay() {
+    return maxDelay;
+  }
+
+  /**
+   * Set the factor the pause grows by after each try.
+   *
+   * @param exponent the exponent
+   * @return a reference to this, so the API can be used fluently
+   */
+  public ExponentialBackoff setExponent(double exponent) {
+    if (exponent < 1) {
+      throw new IllegalArgumentException("exponent must be >= 1");
+    }
+    this.exponent = exponent;
+    return this;
+  }
+
+  /**
+   * @return the exponent
+   */
+  public double getExponent() {
+    return exponent;
+  }
+
+  /**
+   * Set how the pauses are randomized.
+   *
+   * @param jitter the jitter
+   * @return a reference to this, so the API can be used fluently
+   */
+  public ExponentialBackoff setJitter(Jitter jitter) {
+    if (jitter == null) {
+      throw new NullPointerException("jitter must not be null");
+    }
+    this.jitter = jitter;
+    return this;
+  }
+
+  /**
+   * @return the jitter
+   */
+  public Jitter getJitter() {
+    return jitter;
+  }
+
+  @Override
+  public long delay(int attempt, long previousDelay) {
+    long max = Math.max(minDelay, maxDelay);
+    switch (jitter) {
+      case FULL:
+        return random(0, exponential(attempt, max));
+      case DECORRELATED:
+        if (previousDelay <= 0) {
+          return minDelay;
+        }
+        return random(minDelay, (long) Math.min(max, previousDelay * exponent));
+      default:
+        return exponential(attempt, max);
+    }
+  }
+
+  private long exponential(int attempt, long max) {
+    double delay = minDelay * Math.pow(exponent, Math.max(0, attempt - 1));
+    return delay >= max ? max : (long) delay;
+  }
+
+  private static long random(long min, long max) {
+    if (max <= min) {
+      return min;
+    }
+    return ThreadLocalRandom.current().nextLong(min, max + 1);
+  }
+}
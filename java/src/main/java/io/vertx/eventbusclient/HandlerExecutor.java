@@ -0,0 +1,228 @@
+package io.vertx.eventbusclient;
+
+import java.lang.reflect.Method;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the handlers of consumers and requests off the event loop of the client, so a slow handler does not delay
+ * reading, writing, pings or reply timeouts.
+ * <p>
+ * The handlers of a consumer run in the order of the messages it receives, except with {@link #of(Executor)}, the
+ * handlers of different consumers run in parallel. A consumer that has more messages waiting for its handler than
+ * {@link MessageConsumer#setMaxBufferedMessages(int)} stops the client from reading the connection until it catches up.
+ */
+public final class HandlerExecutor {
+
+  private static final AtomicInteger stripedCount = new AtomicInteger();
+
+  /**
+   * Run the handlers on {@code executor} as they are received, the handlers of a consumer may run concurrently.
+   *
+   * @param executor the executor
+   * @return the handler executor
+   */
+  public static HandlerExecutor of(Executor executor) {
+    if (executor == null) {
+      throw new NullPointerException("executor must not be null");
+    }
+    return new HandlerExecutor(executor, false, null, null);
+  }
+
+  /**
+   * Run the handlers on {@code executor}, one at a time and in order for each consumer.
+   *
+   * @param executor the executor
+   * @return the handler executor
+   */
+  public static HandlerExecutor ordered(Executor executor) {
+    if (executor == null) {
+      throw new NullPointerException("executor must not be null");
+    }
+    return new HandlerExecutor(executor, true, null, null);
+  }
+
+  /**
+   * Run the handlers on {@code threads} threads owned by the executor, the handlers of an address always run on the
+   * same thread. Call {@link #close()} to stop the threads.
+   *
+   * @param threads the number of threads
+   * @return the handler executor
+   */
+  public static HandlerExecutor striped(int threads) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("threads must be > 0");
+    }
+    final String prefix = "vertx-eventbus-client-handler-" + stripedCount.getAndIncrement() + "-";
+    ExecutorService[] stripes = new ExecutorService[threads];
+    for (int i = 0;i < threads;i++) {
+      final String name = prefix + i;
+      stripes[i] = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, name);
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return new HandlerExecutor(null, true, stripes, null);
+  }
+
+  /**
+   * Like {@link #striped(int)} with as many threads as available processors.
+   *
+   * @return the handler executor
+   */
+  public static HandlerExecutor striped() {
+    return striped(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Run the handlers on virtual threads, one at a time and in order for each consumer. Call {@link #close()} to
+   * stop accepting handlers.
+   *
+   * @return the handler executor
+   * @throws UnsupportedOperationException when the JVM does not support virtual threads
+   */
+  public static HandlerExecutor virtualThreads() {
+    ExecutorService executor = newVirtualThreadPerTaskExecutor();
+    if (executor == null) {
+      throw new UnsupportedOperationException("Virtual threads are not supported by this JVM");
+    }
+    return new HandlerExecutor(executor, true, null, executor);
+  }
+
+  /**
+   * @return whether the JVM supports {@link #virtualThreads()}
+   */
+  public static boolean isVirtualThreadsSupported() {
+    ExecutorService executor = newVirtualThreadPerTaskExecutor();
+    if (executor != null) {
+      executor.shutdown();
+      return true;
+    }
+    return false;
+  }
+
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      // Java 21, resolved reflectively as the client targets Java 8
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) method.invoke(null);
+    } catch (Throwable ignore) {
+      // Not available, or a preview feature that is not enabled
+      return null;
+    }
+  }
+
+  private final Executor executor;
+  private final boolean ordered;
+  private final ExecutorService[] stripes;
+  private final ExecutorService owned;
+
+  private HandlerExecutor(Executor executor, boolean ordered, ExecutorService[] stripes, ExecutorService owned) {
+    this.executor = executor;
+    this.ordered = ordered;
+    this.stripes = stripes;
+    this.owned = owned;
+  }
+
+  /**
+   * Stops the threads owned by this executor, handlers already submitted still run.
+   */
+  public void close() {
+    if (stripes != null) {
+      for (ExecutorService stripe : stripes) {
+        stripe.shutdown();
+      }
+    }
+    if (owned != null) {
+      owned.shutdown();
+    }
+  }
+
+  /**
+   * @param rejectionHandler called once for each task queued by an ordered executor when the underlying executor
+   *                         rejects them, other executors throw the {@code RejectedExecutionException}
+   * @return the executor running the handlers of a consumer of {@code address}
+   */
+  Executor consumerExecutor(String address, Handler<Throwable> rejectionHandler) {
+    if (stripes != null) {
+      return stripe(address);
+    }
+    return ordered ? new SerialExecutor(executor, rejectionHandler) : executor;
+  }
+
+  /**
+   * @return the executor running the handler of a request, a single reply needs no ordering
+   */
+  Executor replyExecutor(String replyAddress) {
+    return stripes != null ? stripe(replyAddress) : executor;
+  }
+
+  private Executor stripe(String address) {
+    int h = address.hashCode();
+    h ^= h >>> 16;
+    return stripes[(h & 0x7FFFFFFF) % stripes.length];
+  }
+
+  /**
+   * Runs the tasks one at a time and in order on an executor, the tasks queued when the executor rejects them are
+   * discarded and reported to the rejection handler so the next tasks are scheduled again.
+   */
+  private static class SerialExecutor implements Executor, Runnable {
+
+    private final Executor executor;
+    private final Handler<Throwable> rejectionHandler;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    SerialExecutor(Executor executor, Handler<Throwable> rejectionHandler) {
+      this.executor = executor;
+      this.rejectionHandler = rejectionHandler;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+      tasks.add(task);
+      schedule();
+    }
+
+    private void schedule() {
+      while (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+        try {
+          executor.execute(this);
+          return;
+        } catch (RejectedExecutionException e) {
+          while (tasks.poll() != null) {
+            rejectionHandler.handle(e);
+          }
+          scheduled.set(false);
+          // Tasks added meanwhile could not schedule while the flag was set
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+          task.run();
+        }
+      } finally {
+        scheduled.set(false);
+        // A task may have been added after the queue was seen empty and before the flag was cleared
+        schedule();
+      }
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package io.vertx.eventbusclient;
+
+/**
+ * How {@link ExponentialBackoff} randomizes the pauses between reconnect tries.
+ */
+public enum Jitter {
+  /**
+   * The pause is not randomized
+   */
+  NONE,
+  /**
+   * The pause is random between {@code 0} and the exponential pause
+   */
+  FULL,
+  /**
+   * The pause is random between the minimum pause and the previous pause times the exponent, capped to the
+   * maximum pause
+   */
+  DECORRELATED
+}
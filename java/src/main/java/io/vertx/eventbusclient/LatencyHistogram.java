@@ -0,0 +1,88 @@
+package io.vertx.eventbusclient;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in microseconds with buckets growing exponentially, like an HDR histogram.
+ * <p>
+ * Values below 128 microseconds have their own bucket, above each power of two is divided in 64 buckets, so a value is
+ * reported with an error below 1.6%. Values are capped to about 71 minutes. Recording does not allocate and can
+ * happen concurrently with a snapshot.
+ * <p>
+ * This is not intended to be used by application.
+ */
+final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 7;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+  private static final long MAX_VALUE = (1L << 32) - 1;
+  private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong max = new AtomicLong();
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    // value >>> exponent is in [64, 128)
+    int exponent = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+    return SUB_BUCKETS + (exponent - 1) * HALF_SUB_BUCKETS + (int) (value >>> exponent) - HALF_SUB_BUCKETS;
+  }
+
+  /**
+   * @return the highest value recorded in the bucket at {@code index}
+   */
+  static long highestValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int exponent = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+    long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+    return ((subBucket + 1) << exponent) - 1;
+  }
+
+  /**
+   * Records a latency.
+   *
+   * @param micros the latency in microseconds
+   */
+  void record(long micros) {
+    long value = Math.min(Math.max(0, micros), MAX_VALUE);
+    counts.incrementAndGet(index(value));
+    count.incrementAndGet();
+    sum.addAndGet(value);
+    long current;
+    while (value < (current = min.get()) && !min.compareAndSet(current, value)) {
+      // Retry
+    }
+    while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+      // Retry
+    }
+  }
+
+  /**
+   * @param reset whether to reset the histogram, the values recorded while resetting are in this snapshot or the next
+   * @return a snapshot of the histogram
+   */
+  LatencySnapshot snapshot(boolean reset) {
+    long[] copy = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = reset ? counts.getAndSet(i, 0) : counts.get(i);
+      total += copy[i];
+    }
+    if (reset) {
+      count.addAndGet(-total);
+      long snapshotMin = min.getAndSet(Long.MAX_VALUE);
+      long snapshotMax = max.getAndSet(0);
+      return new LatencySnapshot(copy, total, sum.getAndSet(0), total == 0 ? 0 : snapshotMin, snapshotMax);
+    }
+    return new LatencySnapshot(copy, total, sum.get(), total == 0 ? 0 : min.get(), max.get());
+  }
+}
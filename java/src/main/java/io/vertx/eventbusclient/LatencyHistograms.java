@@ -0,0 +1,55 @@
+package io.vertx.eventbusclient;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The latency histograms of a client keyed by address, the addresses beyond the maximum number of histograms share
+ * the {@link EventBusClient#OTHER_ADDRESSES} histogram.
+ * <p>
+ * This is not intended to be used by application.
+ */
+final class LatencyHistograms {
+
+  private final int maxHistograms;
+  private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<String, LatencyHistogram>();
+  private final LatencyHistogram others = new LatencyHistogram();
+
+  LatencyHistograms(int maxHistograms) {
+    this.maxHistograms = maxHistograms;
+  }
+
+  /**
+   * Records a latency, this is called on the event loop.
+   *
+   * @param address the address
+   * @param micros the latency in microseconds
+   */
+  void record(String address, long micros) {
+    LatencyHistogram histogram = histograms.get(address);
+    if (histogram == null) {
+      if (histograms.size() >= maxHistograms) {
+        histogram = others;
+      } else {
+        histogram = new LatencyHistogram();
+        histograms.put(address, histogram);
+      }
+    }
+    histogram.record(micros);
+  }
+
+  Map<String, LatencySnapshot> snapshot(boolean reset) {
+    Map<String, LatencySnapshot> snapshots = new LinkedHashMap<String, LatencySnapshot>();
+    for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+      snapshots.put(entry.getKey(), entry.getValue().snapshot(reset));
+    }
+    LatencySnapshot snapshot = others.snapshot(reset);
+    if (snapshot.count() > 0) {
+      snapshots.put(EventBusClient.OTHER_ADDRESSES, snapshot);
+    }
+    return Collections.unmodifiableMap(snapshots);
+  }
+}
@@ -0,0 +1,102 @@
+package io.vertx.eventbusclient;
+
+/**
+ * A snapshot of the latencies of the requests sent to an address, from the time a request is written to the
+ * connection until its reply is received. The latencies are in microseconds and reported with an error below 1.6%.
+ *
+ * @see EventBusClient#requestLatencies(boolean)
+ */
+public final class LatencySnapshot {
+
+  private final long[] counts;
+  private final long count;
+  private final long sum;
+  private final long min;
+  private final long max;
+
+  LatencySnapshot(long[] counts, long count, long sum, long min, long max) {
+    this.counts = counts;
+    this.count = count;
+    this.sum = sum;
+    this.min = min;
+    this.max = max;
+  }
+
+  /**
+   * @return the number of latencies recorded
+   */
+  public long count() {
+    return count;
+  }
+
+  /**
+   * @return the lowest latency in microseconds, {@code 0} when none was recorded
+   */
+  public long min() {
+    return min;
+  }
+
+  /**
+   * @return the highest latency in microseconds, {@code 0} when none was recorded
+   */
+  public long max() {
+    return max;
+  }
+
+  /**
+   * @return the mean latency in microseconds, {@code 0} when none was recorded
+   */
+  public double mean() {
+    return count == 0 ? 0 : (double) sum / count;
+  }
+
+  /**
+   * Returns the latency below which a percentage of the latencies are.
+   *
+   * @param percentile the percentage, between {@code 0} and {@code 100}
+   * @return the latency in microseconds, {@code 0} when none was recorded
+   */
+  public long percentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("percentile must be >= 0 and <= 100");
+    }
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.max(min, Math.min(max, LatencyHistogram.highestValue(i)));
+      }
+    }
+    return max;
+  }
+
+  /**
+   * @return the median latency in microseconds
+   */
+  public long p50() {
+    return percentile(50);
+  }
+
+  /**
+   * @return the 99th percentile latency in microseconds
+   */
+  public long p99() {
+    return percentile(99);
+  }
+
+  /**
+   * @return the 99.9th percentile latency in microseconds
+   */
+  public long p999() {
+    return percentile(99.9);
+  }
+
+  @Override
+  public String toString() {
+    return "LatencySnapshot[count=" + count + ",p50=" + p50() + ",p99=" + p99() + ",p999=" + p999() + ",max=" + max + "]";
+  }
+}
@@ -1,5 +1,8 @@
 package io.vertx.eventbusclient;
 
+import io.netty.buffer.Unpooled;
+import io.vertx.eventbusclient.json.JsonCodec;
+
 import java.util.Collections;
 import java.util.Map;
 
@@ -18,8 +21,11 @@ public class Message<T> {
   private final EventBusClient client;
   private final String address;
   private final Map<String, String> headers;
-  private final T body;
+  private T body;
   private final String replyAddress;
+  private final JsonCodec codec;
+  private final Class<T> bodyType;
+  private volatile byte[] encodedBody;
 
   /**
    * Constructor of the Message.
@@ -36,6 +42,43 @@ public class Message<T> {
     this.headers = (headers == null) ? Collections.<String, String>emptyMap() : headers;
     this.body = body;
     this.replyAddress = replyAddress;
+    this.codec = null;
+    this.bodyType = null;
+  }
+
+  /**
+   * Constructor of a Message decoding its body on first access.
+   *
+   * @param client the {@link EventBusClient} which is used to reply the message.
+   * @param address the address this Message is sent to.
+   * @param headers the message headers.
+   * @param replyAddress the reply address, it can be null.
+   * @param codec the codec decoding the body.
+   * @param encodedBody the UTF-8 encoded JSON body.
+   * @param bodyType the type the body is bound to.
+   */
+  Message(EventBusClient client, String address, Map<String, String> headers, String replyAddress, JsonCodec codec, byte[] encodedBody, Class<T> bodyType) {
+    this.client = client;
+    this.address = address;
+    this.headers = (headers == null) ? Collections.<String, String>emptyMap() : headers;
+    this.replyAddress = replyAddress;
+    this.codec = codec;
+    this.encodedBody = encodedBody;
+    this.bodyType = bodyType;
+  }
+
+  /**
+   * Returns a message sharing the undecoded body of this message, bound to another type.
+   *
+   * @param type the type the body is bound to
+   * @return the message, or null when the body of this message is decoded already
+   */
+  <U> Message<U> withBodyType(Class<U> type) {
+    byte[] encoded = encodedBody;
+    if (encoded == null) {
+      return null;
+    }
+    return new Message<U>(client, address, headers, replyAddress, codec, encoded, type);
   }
 
   /**
@@ -58,13 +101,24 @@ public class Message<T> {
 
   /**
    * The body of the message. Can be null.
+   * <p>
+   * When the client decodes messages lazily, the body is decoded on the first call.
    *
    * @return  the body, or null.
    */
   public T body() {
+    byte[] encoded = encodedBody;
+    if (encoded != null) {
+      body = codec.decode(Unpooled.wrappedBuffer(encoded), bodyType);
+      encodedBody = null;
+    }
     return body;
   }
 
+  Class<T> bodyType() {
+    return bodyType;
+  }
+
   /**
    * The reply address. Can be null.
    *
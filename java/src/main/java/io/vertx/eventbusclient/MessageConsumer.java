@@ -1,5 +1,8 @@
 package io.vertx.eventbusclient;
 
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -8,48 +11,279 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * It is possible to have multiple {@code MessageConsumer} instances on the same address, the handlers will be called
  * when a message is received from event bus, the order of the handlers to be invoked is the register order.
  * <p>
+ * The consumer can control the flow of the messages it receives with {@link #pause()}, {@link #resume()} and
+ * {@link #fetch(long)}. The messages received while it does not demand more messages are buffered, when the buffer
+ * holds {@link #setMaxBufferedMessages(int) max buffered messages}, the client stops reading from the connection until
+ * the consumer consumed half of them.
+ * <p>
+ * A consumer created with a {@link HandlerExecutor} runs its handler on that executor, the messages waiting for the
+ * handler count as buffered messages.
+ * <p>
  * The consumer is unregistered from the event bus using the {@link #unregister()} method.
  *
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
 public class MessageConsumer<T> {
 
+  /**
+   * The default maximum number of messages buffered while the consumer does not demand messages = 1000
+   */
+  public static final int DEFAULT_MAX_BUFFERED_MESSAGES = 1000;
+
   private EventBusClient client;
   final String address;
   final MessageHandler<T> handler;
   private final AtomicBoolean registered = new AtomicBoolean(true);
+  private final Handler<Message<T>> messageHandler;
+  private final ArrayDeque<Message<T>> pending = new ArrayDeque<Message<T>>();
+  private final Runnable drainTask = new Runnable() {
+    @Override
+    public void run() {
+      drain();
+    }
+  };
+  private long demand = Long.MAX_VALUE;
+  private int maxBufferedMessages = DEFAULT_MAX_BUFFERED_MESSAGES;
+  private boolean drainScheduled;
+  private boolean readingPaused;
+  private final Executor executor;
+  // Messages submitted to the executor and not yet handled
+  private int executing;
+  private boolean executorPaused;
 
   /**
    * Constructor of the MessageConsumer.
    *
    * @param client the {@link EventBusClient} used to unregister the handler from event bus.
    * @param address the address to monitor the messages from event bus.
+   * @param bodyType the type the message bodies are bound to, or null.
    * @param handler the handler which will be called when a message is received from event bus.
    */
-  MessageConsumer(final EventBusClient client, final String address, final Handler<Message<T>> handler) {
+  MessageConsumer(final EventBusClient client, final String address, final Class<T> bodyType, final Handler<Message<T>> handler) {
+    this(client, address, bodyType, null, handler);
+  }
+
+  /**
+   * Constructor of the MessageConsumer running the handler on an executor.
+   *
+   * @param client the {@link EventBusClient} used to unregister the handler from event bus.
+   * @param address the address to monitor the messages from event bus.
+   * @param bodyType the type the message bodies are bound to, or null.
+   * @param executor the executor running the handler, or null to run it on the event loop.
+   * @param handler the handler which will be called when a message is received from event bus.
+   */
+  MessageConsumer(final EventBusClient client, final String address, final Class<T> bodyType, HandlerExecutor executor, final Handler<Message<T>> handler) {
     this.client = client;
     this.address = address;
+    this.executor = executor == null ? null : executor.consumerExecutor(address, new Handler<Throwable>() {
+      @Override
+      public void handle(Throwable err) {
+        executed();
+        client.handleError("Could not execute the message handler.", err);
+      }
+    });
+    this.messageHandler = handler;
     this.handler = new MessageHandler<T>() {
       @Override
       public String address() {
         return address;
       }
 
+      @Override
+      public Class<T> bodyType() {
+        return bodyType;
+      }
+
       @Override
       public void handleMessage(Message<T> msg) {
-        handler.handle(msg);
+        MessageConsumer.this.handleMessage(msg);
       }
     };
   }
 
+  /**
+   * Set the maximum number of messages buffered while the consumer does not demand messages.
+   *
+   * @param maxBufferedMessages the maximum number of buffered messages
+   * @return a reference to this, so the API can be used fluently
+   */
+  public synchronized MessageConsumer<T> setMaxBufferedMessages(int maxBufferedMessages) {
+    if (maxBufferedMessages <= 0) {
+      throw new IllegalArgumentException("maxBufferedMessages must be > 0");
+    }
+    this.maxBufferedMessages = maxBufferedMessages;
+    return this;
+  }
+
+  /**
+   * @return the maximum number of messages buffered while the consumer does not demand messages
+   */
+  public synchronized int getMaxBufferedMessages() {
+    return maxBufferedMessages;
+  }
+
+  /**
+   * Pause the consumer, the received messages are buffered until the consumer is resumed or fetches messages.
+   *
+   * @return a reference to this, so the API can be used fluently
+   */
+  public synchronized MessageConsumer<T> pause() {
+    demand = 0L;
+    return this;
+  }
+
+  /**
+   * Resume the consumer, the buffered messages are delivered first.
+   *
+   * @return a reference to this, so the API can be used fluently
+   */
+  public MessageConsumer<T> resume() {
+    return fetch(Long.MAX_VALUE);
+  }
+
+  /**
+   * Fetch {@code amount} messages, the buffered messages are delivered first.
+   * <p>
+   * The messages are delivered on the event loop of the client.
+   *
+   * @param amount the number of messages to fetch, {@code Long.MAX_VALUE} resumes the consumer
+   * @return a reference to this, so the API can be used fluently
+   */
+  public MessageConsumer<T> fetch(long amount) {
+    if (amount < 0L) {
+      throw new IllegalArgumentException("amount must be >= 0");
+    }
+    synchronized (this) {
+      demand += amount;
+      if (demand < 0L) {
+        demand = Long.MAX_VALUE;
+      }
+      if (pending.isEmpty() || drainScheduled) {
+        return this;
+      }
+      drainScheduled = true;
+    }
+    client.runOnEventLoop(drainTask);
+    return this;
+  }
+
+  /**
+   * Called on the event loop with each message sent to the consumer.
+   */
+  private void handleMessage(Message<T> msg) {
+    synchronized (this) {
+      if (demand == 0L || !pending.isEmpty()) {
+        pending.add(msg);
+        if (!readingPaused && pending.size() >= maxBufferedMessages) {
+          readingPaused = true;
+          client.pauseReading();
+        }
+        return;
+      }
+      if (demand != Long.MAX_VALUE) {
+        demand--;
+      }
+    }
+    dispatch(msg);
+  }
+
+  private void drain() {
+    while (true) {
+      Message<T> msg;
+      synchronized (this) {
+        if (demand == 0L || (msg = pending.poll()) == null) {
+          drainScheduled = false;
+          return;
+        }
+        if (demand != Long.MAX_VALUE) {
+          demand--;
+        }
+        if (readingPaused && pending.size() <= maxBufferedMessages / 2) {
+          readingPaused = false;
+          client.resumeReading();
+        }
+      }
+      try {
+        dispatch(msg);
+      } catch (Throwable t) {
+        client.handleError("Exception in message handler.", t);
+      }
+    }
+  }
+
+  /**
+   * Calls the handler on the event loop or submits it to the executor.
+   */
+  private void dispatch(final Message<T> msg) {
+    if (executor == null) {
+      messageHandler.handle(msg);
+      return;
+    }
+    synchronized (this) {
+      if (++executing >= maxBufferedMessages && !executorPaused) {
+        executorPaused = true;
+        client.pauseReading();
+      }
+    }
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            messageHandler.handle(msg);
+          } catch (Throwable t) {
+            client.handleError("Exception in message handler.", t);
+          } finally {
+            executed();
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      executed();
+      throw e;
+    }
+  }
+
+  private void executed() {
+    synchronized (this) {
+      if (--executing > maxBufferedMessages / 2 || !executorPaused) {
+        return;
+      }
+      executorPaused = false;
+    }
+    client.runOnEventLoop(new Runnable() {
+      @Override
+      public void run() {
+        client.resumeReading();
+      }
+    });
+  }
+
   /**
    * Unregister the {@code handler} from the event bus.
    * <p>
-   * The handler is only unregistered once, multiple invokes to this method do nothing.
+   * The handler is only unregistered once, multiple invokes to this method do nothing. The buffered messages are
+   * discarded.
    */
   public void unregister() {
     if (this.registered.compareAndSet(true, false)) {
       this.client.unregister(this.handler, true);
+      client.runOnEventLoop(new Runnable() {
+        @Override
+        public void run() {
+          synchronized (MessageConsumer.this) {
+            pending.clear();
+            if (readingPaused) {
+              readingPaused = false;
+              client.resumeReading();
+            }
+            if (executorPaused) {
+              executorPaused = false;
+              client.resumeReading();
+            }
+          }
+        }
+      });
     }
   }
 }
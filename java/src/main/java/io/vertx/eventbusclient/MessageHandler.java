@@ -1,7 +1,5 @@
 package io.vertx.eventbusclient;
 
-import java.util.concurrent.ScheduledFuture;
-
 /**
  * A registered message handler that will be called when a message is received from event bus.
  * <p>
@@ -17,7 +15,10 @@ import java.util.concurrent.ScheduledFuture;
  */
 abstract class MessageHandler<T> {
 
-  private ScheduledFuture<?> timeout;
+  // The list the handler is registered in, the links are modified while holding the lock of the list
+  volatile EventBusClient.HandlerList list;
+  volatile MessageHandler<?> next;
+  MessageHandler<?> prev;
 
   /**
    * Address on which this handler observes.
@@ -26,6 +27,15 @@ abstract class MessageHandler<T> {
    */
   public abstract String address();
 
+  /**
+   * Type the body of the received messages are bound to.
+   *
+   * @return the body type, or null when the body is not bound to a specific type.
+   */
+  public Class<T> bodyType() {
+    return null;
+  }
+
   /**
    * Handles the {@link Message}.
    *
@@ -40,22 +50,4 @@ abstract class MessageHandler<T> {
    */
   public void handleError(Throwable err) {
   }
-
-  /**
-   * Sets the timeout runnable when client does not get response from server.
-   *
-   * @param timeout the runnable to execute when timeout.
-   */
-  void setTimeout(ScheduledFuture<?> timeout) {
-    this.timeout = timeout;
-  }
-
-  /**
-   * Cancels the timeout runnable.
-   */
-  void cancelTimeout() {
-    if (this.timeout != null && !this.timeout.isCancelled()) {
-      this.timeout.cancel(false);
-    }
-  }
 }
@@ -0,0 +1,98 @@
+package io.vertx.eventbusclient;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A Reactive Streams {@link Publisher} of the messages sent to an address.
+ * <p>
+ * The publisher registers a {@link MessageConsumer} when it is subscribed and fetches as many messages as its
+ * subscriber requests, so a subscriber that does not keep up eventually stops the client from reading the
+ * connection. Cancelling the subscription unregisters the consumer.
+ * <p>
+ * A publisher accepts a single subscriber, signals are delivered on the event loop of the client. On Java 9 and
+ * above, {@code org.reactivestreams.FlowAdapters} adapts it to a {@code java.util.concurrent.Flow.Publisher}.
+ * <p>
+ * It requires the {@code org.reactivestreams:reactive-streams} library.
+ */
+public class MessagePublisher<T> implements Publisher<Message<T>> {
+
+  private final EventBusClient client;
+  private final String address;
+  private final Class<T> bodyType;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  /**
+   * Create a publisher of the messages sent to {@code address}.
+   *
+   * @param client  the client
+   * @param address the address
+   * @param type    the type the message bodies are bound to, {@code null} decodes them to maps, lists and values
+   */
+  public MessagePublisher(EventBusClient client, String address, Class<T> type) {
+    this.client = client;
+    this.address = address;
+    this.bodyType = type;
+  }
+
+  @Override
+  public void subscribe(final Subscriber<? super Message<T>> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("subscriber must not be null");
+    }
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+      });
+      subscriber.onError(new IllegalStateException("This publisher accepts a single subscriber"));
+      return;
+    }
+    final AtomicBoolean cancelled = new AtomicBoolean();
+    final MessageConsumer<T> consumer = new MessageConsumer<T>(client, address, bodyType, new Handler<Message<T>>() {
+      @Override
+      public void handle(Message<T> msg) {
+        if (!cancelled.get()) {
+          subscriber.onNext(msg);
+        }
+      }
+    });
+    consumer.pause();
+    subscriber.onSubscribe(new Subscription() {
+      @Override
+      public void request(long n) {
+        if (n <= 0L) {
+          if (cancelled.compareAndSet(false, true)) {
+            consumer.unregister();
+            client.runOnEventLoop(new Runnable() {
+              @Override
+              public void run() {
+                subscriber.onError(new IllegalArgumentException("The number of requested messages must be > 0"));
+              }
+            });
+          }
+        } else if (!cancelled.get()) {
+          consumer.fetch(n);
+        }
+      }
+
+      @Override
+      public void cancel() {
+        if (cancelled.compareAndSet(false, true)) {
+          consumer.unregister();
+        }
+      }
+    });
+    if (!cancelled.get()) {
+      client.register(consumer);
+    }
+  }
+}
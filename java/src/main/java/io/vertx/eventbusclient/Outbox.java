@@ -0,0 +1,446 @@
+package io.vertx.eventbusclient;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An append only log of the messages sent while the client is not connected, stored in memory mapped segment files so
+ * they survive a restart of the application.
+ * <p>
+ * The log is a sequence of fixed size segments named after their index, a record never spans two segments. A record
+ * is its length, the wall clock deadline of a request, the reply address of a request and the encoded message. The
+ * length is written last, so a record interrupted by a crash is never read.
+ * <p>
+ * Polling moves an in memory read cursor, a polled record stays in the log until it is released once its message is
+ * written or dropped. The offset of the first record not released is kept in a separate file, it moves past the
+ * released records in the order of the records and a segment is deleted once all its records are released. Rewinding
+ * moves the read cursor back to that offset, so the records polled but not written when the connection is lost are
+ * polled again, as are the records not yet persisted in the head file when the application stops.
+ * <p>
+ * Appending copies the message to the mapped segment, the pages are written to disk by the operating system unless
+ * the log syncs each append. The log is not thread safe, the client guards it with its lock.
+ * <p>
+ * This is not intended to be used by application.
+ */
+final class Outbox {
+
+  private static final InternalLogger logger = InternalLoggerFactory.getInstance(Outbox.class);
+
+  private static final String HEAD_FILE = "head";
+  private static final String SEGMENT_SUFFIX = ".segment";
+  private static final int END_OF_SEGMENT = -1;
+  // Length, deadline and reply address length
+  private static final int RECORD_HEADER_SIZE = 4 + 8 + 2;
+  private static final byte[] NO_REPLY_ADDRESS = new byte[0];
+
+  private final File dir;
+  private final int segmentSize;
+  private final long maxSegments;
+  private final int maxMessages;
+  private final boolean sync;
+  private RandomAccessFile headFile;
+  private FileLock lock;
+  private MappedByteBuffer headBuffer;
+  private final TreeMap<Long, MappedByteBuffer> segments = new TreeMap<Long, MappedByteBuffer>();
+  // Write handlers of the records appended by this client, in the order of the records
+  private final ArrayDeque<PendingWrite> pendingWrites = new ArrayDeque<PendingWrite>();
+  // Records polled and not yet released, in the order of the records
+  private final ArrayDeque<PolledRecord> polled = new ArrayDeque<PolledRecord>();
+  // Offset of the first record not released, persisted in the head file
+  private long head;
+  // Offset of the next record to poll
+  private long readOffset;
+  private long tail;
+  // Number of records not yet polled
+  private int size;
+
+  /**
+   * Opens the log stored in {@code dir}, creating it when it does not exist.
+   *
+   * @param dir the directory of the log
+   * @param segmentSize the size of a segment
+   * @param maxSize the maximum size of the segments
+   * @param maxMessages the maximum number of records
+   * @param sync whether each append is synced to disk
+   */
+  Outbox(File dir, int segmentSize, long maxSize, int maxMessages, boolean sync) throws IOException {
+    this.dir = dir;
+    this.segmentSize = segmentSize;
+    this.maxSegments = Math.max(1L, maxSize / segmentSize);
+    this.maxMessages = maxMessages;
+    this.sync = sync;
+    open();
+  }
+
+  /**
+   * Opens the log after it was closed, does nothing when it is open.
+   */
+  void open() throws IOException {
+    if (headFile != null) {
+      return;
+    }
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Could not create the outbox directory " + dir);
+    }
+    RandomAccessFile file = new RandomAccessFile(new File(dir, HEAD_FILE), "rw");
+    try {
+      lock = file.getChannel().tryLock();
+    } catch (OverlappingFileLockException e) {
+      lock = null;
+    }
+    if (lock == null) {
+      file.close();
+      throw new IOException("The outbox " + dir + " is used by another client");
+    }
+    headFile = file;
+    headBuffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, 8);
+    head = headBuffer.getLong(0);
+    File[] files = dir.listFiles();
+    if (files != null) {
+      for (File segment : files) {
+        String name = segment.getName();
+        if (!name.endsWith(SEGMENT_SUFFIX)) {
+          continue;
+        }
+        long index = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        if (index < head / segmentSize) {
+          delete(segment);
+        } else {
+          segments.put(index, map(segment));
+        }
+      }
+    }
+    // Find the tail and count the records
+    long offset = head;
+    size = 0;
+    while (true) {
+      offset = skipEndOfSegment(offset);
+      MappedByteBuffer segment = segments.get(offset / segmentSize);
+      int length = segment != null ? segment.getInt(position(offset)) : 0;
+      if (length <= 0) {
+        break;
+      }
+      offset += 4 + length;
+      size++;
+    }
+    tail = offset;
+    readOffset = head;
+  }
+
+  /**
+   * Writes the log to disk and closes it, the write handlers of the records not yet released are forgotten.
+   */
+  void close() throws IOException {
+    if (headFile == null) {
+      return;
+    }
+    force();
+    for (MappedByteBuffer segment : segments.values()) {
+      unmap(segment);
+    }
+    segments.clear();
+    pendingWrites.clear();
+    polled.clear();
+    unmap(headBuffer);
+    headBuffer = null;
+    size = 0;
+    try {
+      lock.release();
+    } finally {
+      headFile.close();
+      headFile = null;
+      lock = null;
+    }
+  }
+
+  /**
+   * @return the number of records not yet polled
+   */
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return whether {@code message} can be appended without exceeding the limits of the log
+   */
+  boolean fits(PendingMessage message) {
+    int recordSize = recordSize(message);
+    if (headFile == null || size + polled.size() >= maxMessages || recordSize > segmentSize) {
+      return false;
+    }
+    long index = tail / segmentSize;
+    if (position(tail) + recordSize > segmentSize) {
+      index++;
+    }
+    return index - head / segmentSize < maxSegments;
+  }
+
+  /**
+   * Appends a message, {@link #fits(PendingMessage)} must be checked before.
+   */
+  void append(PendingMessage message) throws IOException {
+    byte[] replyAddress = replyAddress(message);
+    ByteBuf encoded = message.encoded;
+    int recordSize = recordSize(message);
+    long index = tail / segmentSize;
+    int position = position(tail);
+    if (position + recordSize > segmentSize) {
+      MappedByteBuffer current = segments.get(index);
+      if (current != null && segmentSize - position >= 4) {
+        current.putInt(position, END_OF_SEGMENT);
+      }
+      index++;
+      position = 0;
+      tail = index * segmentSize;
+    }
+    MappedByteBuffer segment = segment(index);
+    long deadline = 0L;
+    if (message.replyAddress != null) {
+      deadline = System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(message.deadline - System.nanoTime());
+    }
+    segment.putLong(position + 4, deadline);
+    segment.putShort(position + 12, (short) replyAddress.length);
+    ByteBuffer dst = segment.duplicate();
+    dst.position(position + RECORD_HEADER_SIZE);
+    dst.put(replyAddress);
+    dst.limit(dst.position() + encoded.readableBytes());
+    encoded.getBytes(encoded.readerIndex(), dst);
+    if (position + recordSize + 4 <= segmentSize) {
+      // Bytes after the tail may be left by a record interrupted by a crash
+      segment.putInt(position + recordSize, 0);
+    }
+    segment.putInt(position, recordSize - 4);
+    if (sync) {
+      segment.force();
+    }
+    if (message.writeHandler != null) {
+      pendingWrites.add(new PendingWrite(tail, message.writeHandler));
+    }
+    tail += recordSize;
+    size++;
+  }
+
+  /**
+   * Polls the record at the read cursor, it stays in the log until it is {@link #release(PendingMessage) released}.
+   *
+   * @return the message or {@code null} when no record is left to poll
+   */
+  PendingMessage poll() {
+    if (size == 0) {
+      return null;
+    }
+    long offset = skipEndOfSegment(readOffset);
+    MappedByteBuffer segment = segments.get(offset / segmentSize);
+    int position = position(offset);
+    int length = segment.getInt(position);
+    long deadline = segment.getLong(position + 4);
+    byte[] replyAddress = new byte[segment.getShort(position + 12)];
+    ByteBuffer src = segment.duplicate();
+    src.position(position + RECORD_HEADER_SIZE);
+    src.get(replyAddress);
+    src.limit(position + 4 + length);
+    ByteBuf encoded = Unpooled.buffer(src.remaining());
+    encoded.writeBytes(src);
+    PendingWrite write = pendingWrites.peek();
+    if (write != null && write.offset == offset) {
+      pendingWrites.poll();
+    } else {
+      write = null;
+    }
+    long end = offset + 4 + length;
+    polled.add(new PolledRecord(end, write));
+    readOffset = end;
+    size--;
+    String address = null;
+    long nanoDeadline = 0L;
+    if (replyAddress.length > 0) {
+      address = new String(replyAddress, StandardCharsets.UTF_8);
+      nanoDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadline - System.currentTimeMillis());
+    }
+    return new PendingMessage(encoded, write != null ? write.handler : null, address, nanoDeadline, end);
+  }
+
+  /**
+   * Releases a polled record once its message is written or dropped, the head moves past the first records when they
+   * are all released. Releasing a record rewound and not polled again does nothing.
+   */
+  void release(PendingMessage message) {
+    if (headFile == null) {
+      return;
+    }
+    for (PolledRecord record : polled) {
+      if (record.end == message.end) {
+        record.released = true;
+        break;
+      }
+    }
+    long offset = head;
+    while (!polled.isEmpty() && polled.peek().released) {
+      offset = polled.poll().end;
+    }
+    if (offset != head) {
+      setHead(offset);
+    }
+  }
+
+  /**
+   * Moves the read cursor back to the head, the records polled and not yet released are polled again.
+   */
+  void rewind() {
+    if (polled.isEmpty()) {
+      return;
+    }
+    for (Iterator<PolledRecord> it = polled.descendingIterator();it.hasNext();) {
+      PolledRecord record = it.next();
+      if (record.write != null) {
+        pendingWrites.addFirst(record.write);
+      }
+    }
+    size += polled.size();
+    polled.clear();
+    readOffset = head;
+  }
+
+  /**
+   * Writes the mapped segments and the head to disk.
+   */
+  void force() {
+    if (headFile == null) {
+      return;
+    }
+    for (MappedByteBuffer segment : segments.values()) {
+      segment.force();
+    }
+    headBuffer.force();
+  }
+
+  private void setHead(long offset) {
+    long index = head / segmentSize;
+    head = offset;
+    headBuffer.putLong(0, offset);
+    if (sync) {
+      headBuffer.force();
+    }
+    if (offset / segmentSize > index) {
+      // Release the segments fully released
+      for (Iterator<Map.Entry<Long, MappedByteBuffer>> it = segments.entrySet().iterator();it.hasNext();) {
+        Map.Entry<Long, MappedByteBuffer> entry = it.next();
+        if (entry.getKey() >= offset / segmentSize) {
+          break;
+        }
+        it.remove();
+        unmap(entry.getValue());
+        delete(segmentFile(entry.getKey()));
+      }
+    }
+  }
+
+  /**
+   * @return the offset of the next record starting at {@code offset}, moving to the next segment at the end of a segment
+   */
+  private long skipEndOfSegment(long offset) {
+    int position = position(offset);
+    if (position > 0) {
+      MappedByteBuffer segment = segments.get(offset / segmentSize);
+      if (segmentSize - position < 4 || (segment != null && segment.getInt(position) == END_OF_SEGMENT)) {
+        return (offset / segmentSize + 1) * segmentSize;
+      }
+    }
+    return offset;
+  }
+
+  private MappedByteBuffer segment(long index) throws IOException {
+    MappedByteBuffer segment = segments.get(index);
+    if (segment == null) {
+      segment = map(segmentFile(index));
+      segments.put(index, segment);
+    }
+    return segment;
+  }
+
+  private MappedByteBuffer map(File file) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      // A new file is filled with zeros
+      raf.setLength(segmentSize);
+      return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    } finally {
+      raf.close();
+    }
+  }
+
+  private File segmentFile(long index) {
+    return new File(dir, String.format("%020d%s", index, SEGMENT_SUFFIX));
+  }
+
+  private int position(long offset) {
+    return (int) (offset % segmentSize);
+  }
+
+  private static int recordSize(PendingMessage message) {
+    return RECORD_HEADER_SIZE + replyAddress(message).length + message.encoded.readableBytes();
+  }
+
+  private static byte[] replyAddress(PendingMessage message) {
+    return message.replyAddress != null ? message.replyAddress.getBytes(StandardCharsets.UTF_8) : NO_REPLY_ADDRESS;
+  }
+
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      PlatformDependent.freeDirectBuffer(buffer);
+    } catch (Throwable ignore) {
+      // Unmapped when garbage collected
+    }
+  }
+
+  private static void delete(File file) {
+    if (!file.delete()) {
+      logger.warn("Could not delete the outbox segment " + file);
+    }
+  }
+
+  private static class PolledRecord {
+
+    private final long end;
+    private final PendingWrite write;
+    private boolean released;
+
+    PolledRecord(long end, PendingWrite write) {
+      this.end = end;
+      this.write = write;
+    }
+  }
+
+  private static class PendingWrite {
+
+    private final long offset;
+    private final Handler<AsyncResult<Void>> handler;
+
+    PendingWrite(long offset, Handler<AsyncResult<Void>> handler) {
+      this.offset = offset;
+      this.handler = handler;
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package io.vertx.eventbusclient;
+
+/**
+ * What happens to a message sent while the client is not connected when the offline buffer is full.
+ */
+public enum OverflowPolicy {
+  /**
+   * The message is rejected, the method sending it throws an {@link IllegalStateException}
+   */
+  REJECT,
+  /**
+   * The oldest buffered messages are dropped to make room for the message
+   */
+  DROP_OLDEST,
+  /**
+   * The message is dropped
+   */
+  DROP_NEWEST
+}
@@ -0,0 +1,45 @@
+package io.vertx.eventbusclient;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A message sent while the client is not connected, encoded when it is sent.
+ * <p>
+ * This is not intended to be used by application.
+ */
+final class PendingMessage {
+
+  final ByteBuf encoded;
+  final Handler<AsyncResult<Void>> writeHandler;
+  final String replyAddress;
+  final long deadline;
+  final long end;
+
+  /**
+   * @param encoded the encoded message
+   * @param writeHandler the handler called when the message is written, may be {@code null}
+   * @param replyAddress the reply address of a request, {@code null} otherwise
+   * @param deadline the {@link System#nanoTime()} after which a request expires
+   */
+  PendingMessage(ByteBuf encoded, Handler<AsyncResult<Void>> writeHandler, String replyAddress, long deadline) {
+    this(encoded, writeHandler, replyAddress, deadline, -1L);
+  }
+
+  /**
+   * @param end the offset after the outbox record of the message, {@code -1} when it is not read from the outbox
+   */
+  PendingMessage(ByteBuf encoded, Handler<AsyncResult<Void>> writeHandler, String replyAddress, long deadline, long end) {
+    this.encoded = encoded;
+    this.writeHandler = writeHandler;
+    this.replyAddress = replyAddress;
+    this.deadline = deadline;
+    this.end = end;
+  }
+
+  /**
+   * A request expires when its timeout elapsed, other messages never expire.
+   */
+  boolean isExpired(long now) {
+    return replyAddress != null && now - deadline >= 0;
+  }
+}
@@ -0,0 +1,92 @@
+package io.vertx.eventbusclient;
+
+/**
+ * Counters of the auto reconnect tries of a client, updated as the client reconnects.
+ *
+ * @see EventBusClient#reconnectMetrics()
+ */
+public final class ReconnectMetrics {
+
+  // Only written from the event loop
+  private volatile long attempts;
+  private volatile long reconnects;
+  private volatile int consecutiveAttempts;
+  private volatile long lastDelay;
+  private volatile long totalDelay;
+  private volatile long lastOutage;
+  private volatile long disconnectedAt;
+
+  ReconnectMetrics() {
+  }
+
+  void disconnected() {
+    if (disconnectedAt == 0) {
+      disconnectedAt = System.nanoTime();
+    }
+  }
+
+  void attemptScheduled(int attempt, long delay) {
+    attempts++;
+    consecutiveAttempts = attempt;
+    lastDelay = delay;
+    totalDelay += delay;
+  }
+
+  void connected() {
+    long at = disconnectedAt;
+    if (at != 0) {
+      reconnects++;
+      lastOutage = (System.nanoTime() - at) / 1000000;
+      disconnectedAt = 0;
+    }
+    consecutiveAttempts = 0;
+  }
+
+  /**
+   * @return the number of reconnect tries scheduled since the client was created
+   */
+  public long attempts() {
+    return attempts;
+  }
+
+  /**
+   * @return the number of times the client connected again after losing its connection
+   */
+  public long reconnects() {
+    return reconnects;
+  }
+
+  /**
+   * @return the number of reconnect tries scheduled since the client was last connected
+   */
+  public int consecutiveAttempts() {
+    return consecutiveAttempts;
+  }
+
+  /**
+   * @return the pause before the last reconnect try, in ms
+   */
+  public long lastDelay() {
+    return lastDelay;
+  }
+
+  /**
+   * @return the sum of the pauses before the reconnect tries, in ms
+   */
+  public long totalDelay() {
+    return totalDelay;
+  }
+
+  /**
+   * @return how long the client was disconnected before it last reconnected, in ms
+   */
+  public long lastOutage() {
+    return lastOutage;
+  }
+
+  @Override
+  public String toString() {
+    return "ReconnectMetrics[attempts=" + attempts + ",reconnects=" + reconnects + ",consecutiveAttempts=" +
+      consecutiveAttempts + ",lastDelay=" + lastDelay + ",totalDelay=" + totalDelay + ",lastOutage=" + lastOutage + "]";
+  }
+}
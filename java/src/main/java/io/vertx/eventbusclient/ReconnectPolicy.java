@@ -0,0 +1,22 @@
+package io.vertx.eventbusclient;
+
+/**
+ * Computes the pause before each auto reconnect try.
+ * <p>
+ * The policy is called on the event loop of the client, it should be quick and not block. A policy can be shared
+ * by several clients, {@link ExponentialBackoff} spreads their tries with jitter so clients disconnected at the same
+ * time do not reconnect in lockstep.
+ *
+ * @see EventBusClientOptions#setReconnectPolicy(ReconnectPolicy)
+ */
+public interface ReconnectPolicy {
+
+  /**
+   * Computes the pause before a reconnect try.
+   *
+   * @param attempt the number of the try since the client was last connected, starting at {@code 1}
+   * @param previousDelay the pause before the previous try in ms, {@code 0} for the first try
+   * @return the pause in ms
+   */
+  long delay(int attempt, long previousDelay);
+}
@@ -0,0 +1,41 @@
+package io.vertx.eventbusclient;
+
+/**
+ * The progress of the registration of the consumer addresses at the server after the client connected.
+ */
+public final class RegistrationProgress {
+
+  private final int registered;
+  private final int total;
+
+  RegistrationProgress(int registered, int total) {
+    this.registered = registered;
+    this.total = total;
+  }
+
+  /**
+   * @return the number of addresses registered so far
+   */
+  public int registered() {
+    return registered;
+  }
+
+  /**
+   * @return the number of addresses to register
+   */
+  public int total() {
+    return total;
+  }
+
+  /**
+   * @return whether all the addresses are registered
+   */
+  public boolean isComplete() {
+    return registered == total;
+  }
+
+  @Override
+  public String toString() {
+    return "RegistrationProgress[registered=" + registered + ",total=" + total + "]";
+  }
+}
@@ -0,0 +1,243 @@
+package io.vertx.eventbusclient;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A hashed timing wheel driven by a single task on an event loop, the task ticks while timeouts are pending and
+ * stops when the wheel is empty, the next scheduled timeout starts it again.
+ * <p>
+ * Timeouts can be scheduled from any thread, they are linked into the wheel by the event loop on the next tick.
+ * Each tick expires the whole bucket it lands on, a timeout expires at the earliest at its deadline and at the
+ * latest one tick after it. Timeouts are intrusive list nodes, so scheduling does not allocate besides the
+ * timeout itself and cancelling unlinks it in constant time, cancelling from another thread than the event loop
+ * unlinks it on the event loop.
+ * <p>
+ * This is not intended to be used by application.
+ */
+final class TimeoutWheel implements Runnable {
+
+  private static final InternalLogger logger = InternalLoggerFactory.getInstance(TimeoutWheel.class);
+
+  private final EventExecutor executor;
+  private final long tickNanos;
+  private final Timeout[] wheel;
+  private final int mask;
+  private final long startTime = System.nanoTime();
+  private final Queue<Timeout> added = PlatformDependent.newMpscQueue();
+  private final AtomicInteger pending = new AtomicInteger();
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  // Next tick to process and whether the task stopped, only accessed from the event loop
+  private long tick;
+  private boolean stopped;
+
+  /**
+   * @param executor the event loop driving the wheel
+   * @param tickDuration the duration of a tick
+   * @param unit the unit of the tick duration
+   * @param wheelSize the number of buckets, rounded up to a power of two
+   */
+  TimeoutWheel(EventExecutor executor, long tickDuration, TimeUnit unit, int wheelSize) {
+    if (tickDuration <= 0) {
+      throw new IllegalArgumentException("tickDuration must be > 0");
+    }
+    if (wheelSize <= 0 || wheelSize > 1 << 30) {
+      throw new IllegalArgumentException("wheelSize must be > 0 and <= 2^30");
+    }
+    int size = 1;
+    while (size < wheelSize) {
+      size <<= 1;
+    }
+    this.executor = executor;
+    this.tickNanos = unit.toNanos(tickDuration);
+    this.wheel = new Timeout[size];
+    this.mask = size - 1;
+  }
+
+  /**
+   * @return the number of timeouts that are neither expired nor cancelled
+   */
+  int pending() {
+    return pending.get();
+  }
+
+  /**
+   * Schedules a timeout, a timeout can be scheduled only once and a timeout cancelled before being scheduled
+   * is ignored.
+   *
+   * @param timeout the timeout
+   * @param delay the delay after which the timeout expires
+   * @param unit the unit of the delay
+   */
+  void schedule(Timeout timeout, long delay, TimeUnit unit) {
+    if (timeout.state != Timeout.ACTIVE) {
+      return;
+    }
+    timeout.wheel = this;
+    timeout.deadline = System.nanoTime() + unit.toNanos(delay);
+    pending.incrementAndGet();
+    added.offer(timeout);
+    if (!running.get() && running.compareAndSet(false, true)) {
+      executor.schedule(this, tickNanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Override
+  public void run() {
+    long target = (System.nanoTime() - startTime) / tickNanos;
+    if (stopped) {
+      // No timeout was linked meanwhile, skip the ticks elapsed since the wheel stopped
+      stopped = false;
+      tick = Math.max(tick, target);
+    }
+    while (tick <= target) {
+      transferAdded();
+      expireBucket(wheel[(int) (tick & mask)]);
+      tick++;
+    }
+    if (pending.get() == 0) {
+      running.set(false);
+      // A timeout scheduled before the flag was cleared did not start the task
+      if (pending.get() == 0 || !running.compareAndSet(false, true)) {
+        stopped = true;
+        return;
+      }
+    }
+    executor.schedule(this, tickNanos, TimeUnit.NANOSECONDS);
+  }
+
+  private void transferAdded() {
+    Timeout timeout;
+    while ((timeout = added.poll()) != null) {
+      if (timeout.state != Timeout.ACTIVE) {
+        continue;
+      }
+      long delta = timeout.deadline - startTime;
+      long calculated = Math.max((delta + tickNanos - 1) / tickNanos, tick);
+      timeout.rounds = (calculated - tick) / wheel.length;
+      link(timeout, (int) (calculated & mask));
+    }
+  }
+
+  private void expireBucket(Timeout timeout) {
+    // Unlink the expired timeouts of the bucket first and chain them, so the callbacks can freely cancel
+    // or schedule timeouts
+    Timeout expired = null;
+    while (timeout != null) {
+      Timeout next = timeout.next;
+      if (timeout.state != Timeout.ACTIVE) {
+        unlink(timeout);
+      } else if (timeout.rounds > 0) {
+        timeout.rounds--;
+      } else {
+        unlink(timeout);
+        if (Timeout.STATE.compareAndSet(timeout, Timeout.ACTIVE, Timeout.EXPIRED)) {
+          pending.decrementAndGet();
+          timeout.next = expired;
+          expired = timeout;
+        }
+      }
+      timeout = next;
+    }
+    while (expired != null) {
+      Timeout next = expired.next;
+      expired.next = null;
+      try {
+        expired.expired();
+      } catch (Throwable t) {
+        logger.warn("Exception in timeout handler.", t);
+      }
+      expired = next;
+    }
+  }
+
+  private void link(Timeout timeout, int bucket) {
+    Timeout head = wheel[bucket];
+    timeout.bucket = bucket;
+    timeout.prev = null;
+    timeout.next = head;
+    if (head != null) {
+      head.prev = timeout;
+    }
+    wheel[bucket] = timeout;
+  }
+
+  private void unlink(Timeout timeout) {
+    if (timeout.bucket < 0) {
+      return;
+    }
+    if (timeout.prev != null) {
+      timeout.prev.next = timeout.next;
+    } else {
+      wheel[timeout.bucket] = timeout.next;
+    }
+    if (timeout.next != null) {
+      timeout.next.prev = timeout.prev;
+    }
+    timeout.prev = null;
+    timeout.next = null;
+    timeout.bucket = -1;
+  }
+
+  /**
+   * A timeout of the wheel, subclasses implement what happens when it expires.
+   */
+  abstract static class Timeout {
+
+    private static final int ACTIVE = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    private volatile int state;
+    private volatile TimeoutWheel wheel;
+    private long deadline;
+
+    // Wheel state, only accessed from the event loop
+    private Timeout prev;
+    private Timeout next;
+    private int bucket = -1;
+    private long rounds;
+
+    /**
+     * Called on the event loop when the timeout expires.
+     */
+    protected abstract void expired();
+
+    /**
+     * Cancels the timeout.
+     *
+     * @return true if the timeout was cancelled, false if it had already expired or was cancelled
+     */
+    boolean cancel() {
+      if (!STATE.compareAndSet(this, ACTIVE, CANCELLED)) {
+        return false;
+      }
+      final TimeoutWheel w = wheel;
+      if (w != null) {
+        w.pending.decrementAndGet();
+        if (w.executor.inEventLoop()) {
+          w.unlink(this);
+        } else {
+          // Unlink it now rather than when the wheel reaches its bucket, so it does not retain memory until then
+          w.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+              w.unlink(Timeout.this);
+            }
+          });
+        }
+      }
+      return true;
+    }
+  }
+}
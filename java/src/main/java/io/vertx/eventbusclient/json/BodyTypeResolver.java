@@ -0,0 +1,18 @@
+package io.vertx.eventbusclient.json;
+
+/**
+ * Resolves the type the body of a received message should be bound to.
+ * <p>
+ * This is not intended to be used by application.
+ */
+public interface BodyTypeResolver {
+
+  /**
+   * Returns the type to bind the body of a message sent to {@code address} to.
+   *
+   * @param address the address of the message, can be null
+   * @return the body type, {@code Object.class} decodes the body to maps, lists, strings, numbers and booleans,
+   * {@code null} skips the body when the message will not be handled
+   */
+  Class<?> bodyType(String address);
+}
@@ -0,0 +1,83 @@
+package io.vertx.eventbusclient.json;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A message received from the bridge, as decoded by a {@link JsonCodec}.
+ * <p>
+ * This is not intended to be used by application.
+ */
+public class Envelope {
+
+  String type;
+  String address;
+  String replyAddress;
+  Map<String, String> headers;
+  Object body;
+  Throwable bodyError;
+  ByteBuf encodedBody;
+  String message;
+
+  /**
+   * @return the message type, e.g. {@code message}, {@code rec}, {@code err} or {@code pong}
+   */
+  public String type() {
+    return type;
+  }
+
+  /**
+   * @return the address, can be null
+   */
+  public String address() {
+    return address;
+  }
+
+  /**
+   * @return the reply address, can be null
+   */
+  public String replyAddress() {
+    return replyAddress;
+  }
+
+  /**
+   * @return the headers, never null
+   */
+  public Map<String, String> headers() {
+    return headers == null ? Collections.<String, String>emptyMap() : headers;
+  }
+
+  /**
+   * @return the body, bound to the type resolved for the address, can be null
+   */
+  public Object body() {
+    return body;
+  }
+
+  /**
+   * @return the failure to bind the body to the type resolved for the address, the body is then null, or null when
+   * the body was bound
+   */
+  public Throwable bodyError() {
+    return bodyError;
+  }
+
+  /**
+   * The undecoded body of a message obtained with {@link JsonCodec#scanEnvelope(ByteBuf)}, it is a slice of the
+   * message buffer and is only valid as long as this buffer is.
+   *
+   * @return the encoded body, or null when the body is absent, null, or already decoded
+   */
+  public ByteBuf encodedBody() {
+    return encodedBody;
+  }
+
+  /**
+   * @return the error message of an {@code err} message, can be null
+   */
+  public String message() {
+    return message;
+  }
+}
@@ -0,0 +1,263 @@
+package io.vertx.eventbusclient.json;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Scans the envelope fields of a message received from the bridge without decoding its body, the body is
+ * only delimited as a slice of the message buffer.
+ * <p>
+ * The scanner works on the UTF-8 bytes and does not depend on a JSON library, it only validates what it needs to
+ * delimit the values, the body is validated when it is decoded.
+ */
+final class EnvelopeScanner {
+
+  private final ByteBuf buff;
+  private final int end;
+  private int idx;
+
+  private EnvelopeScanner(ByteBuf buff) {
+    this.buff = buff;
+    this.idx = buff.readerIndex();
+    this.end = buff.writerIndex();
+  }
+
+  static Envelope scan(ByteBuf buff) {
+    return new EnvelopeScanner(buff).scanEnvelope();
+  }
+
+  private Envelope scanEnvelope() {
+    Envelope envelope = new Envelope();
+    skipWhitespace();
+    expect('{');
+    skipWhitespace();
+    if (peek() == '}') {
+      return envelope;
+    }
+    while (true) {
+      skipWhitespace();
+      String name = readString();
+      skipWhitespace();
+      expect(':');
+      skipWhitespace();
+      if ("type".equals(name)) {
+        envelope.type = readNullableString();
+      } else if ("address".equals(name)) {
+        envelope.address = readNullableString();
+      } else if ("replyAddress".equals(name)) {
+        envelope.replyAddress = readNullableString();
+      } else if ("message".equals(name)) {
+        envelope.message = readNullableString();
+      } else if ("headers".equals(name)) {
+        envelope.headers = readHeaders();
+      } else if ("body".equals(name)) {
+        int start = idx;
+        skipValue();
+        if (!isNull(start, idx)) {
+          envelope.encodedBody = buff.slice(start, idx - start);
+        }
+      } else {
+        skipValue();
+      }
+      skipWhitespace();
+      byte b = next();
+      if (b == '}') {
+        return envelope;
+      } else if (b != ',') {
+        throw malformed();
+      }
+    }
+  }
+
+  private Map<String, String> readHeaders() {
+    if (peek() != '{') {
+      skipValue();
+      return null;
+    }
+    idx++;
+    Map<String, String> headers = new LinkedHashMap<String, String>();
+    skipWhitespace();
+    if (peek() == '}') {
+      idx++;
+      return headers;
+    }
+    while (true) {
+      skipWhitespace();
+      String name = readString();
+      skipWhitespace();
+      expect(':');
+      skipWhitespace();
+      byte b = peek();
+      if (b == '"') {
+        headers.put(name, readString());
+      } else {
+        int start = idx;
+        skipValue();
+        if (b != '{' && b != '[' && !isNull(start, idx)) {
+          headers.put(name, buff.toString(start, idx - start, StandardCharsets.UTF_8));
+        }
+      }
+      skipWhitespace();
+      b = next();
+      if (b == '}') {
+        return headers;
+      } else if (b != ',') {
+        throw malformed();
+      }
+    }
+  }
+
+  private String readNullableString() {
+    if (peek() == '"') {
+      return readString();
+    }
+    skipValue();
+    return null;
+  }
+
+  private String readString() {
+    expect('"');
+    int start = idx;
+    StringBuilder sb = null;
+    while (true) {
+      byte b = next();
+      if (b == '"') {
+        String s = buff.toString(start, idx - 1 - start, StandardCharsets.UTF_8);
+        return sb == null ? s : sb.append(s).toString();
+      } else if (b == '\\') {
+        if (sb == null) {
+          sb = new StringBuilder();
+        }
+        sb.append(buff.toString(start, idx - 1 - start, StandardCharsets.UTF_8));
+        byte escaped = next();
+        switch (escaped) {
+          case '"':
+          case '\\':
+          case '/':
+            sb.append((char) escaped);
+            break;
+          case 'b':
+            sb.append('\b');
+            break;
+          case 'f':
+            sb.append('\f');
+            break;
+          case 'n':
+            sb.append('\n');
+            break;
+          case 'r':
+            sb.append('\r');
+            break;
+          case 't':
+            sb.append('\t');
+            break;
+          case 'u':
+            if (idx + 4 > end) {
+              throw malformed();
+            }
+            try {
+              sb.append((char) Integer.parseInt(buff.toString(idx, 4, StandardCharsets.US_ASCII), 16));
+            } catch (NumberFormatException e) {
+              throw malformed();
+            }
+            idx += 4;
+            break;
+          default:
+            throw malformed();
+        }
+        start = idx;
+      }
+      // UTF-8 continuation bytes never match a quote or a backslash
+    }
+  }
+
+  private void skipString() {
+    expect('"');
+    while (true) {
+      byte b = next();
+      if (b == '"') {
+        return;
+      } else if (b == '\\') {
+        next();
+      }
+    }
+  }
+
+  private void skipValue() {
+    byte b = peek();
+    if (b == '"') {
+      skipString();
+    } else if (b == '{' || b == '[') {
+      int depth = 0;
+      do {
+        b = peek();
+        if (b == '"') {
+          skipString();
+          continue;
+        }
+        if (b == '{' || b == '[') {
+          depth++;
+        } else if (b == '}' || b == ']') {
+          depth--;
+        }
+        idx++;
+      } while (depth > 0);
+    } else {
+      int start = idx;
+      while (idx < end) {
+        b = buff.getByte(idx);
+        if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) {
+          break;
+        }
+        idx++;
+      }
+      if (idx == start) {
+        throw malformed();
+      }
+    }
+  }
+
+  private boolean isNull(int start, int stop) {
+    return stop - start == 4
+      && buff.getByte(start) == 'n'
+      && buff.getByte(start + 1) == 'u'
+      && buff.getByte(start + 2) == 'l'
+      && buff.getByte(start + 3) == 'l';
+  }
+
+  private void skipWhitespace() {
+    while (idx < end && isWhitespace(buff.getByte(idx))) {
+      idx++;
+    }
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+  }
+
+  private void expect(char c) {
+    if (next() != c) {
+      throw malformed();
+    }
+  }
+
+  private byte peek() {
+    if (idx >= end) {
+      throw malformed();
+    }
+    return buff.getByte(idx);
+  }
+
+  private byte next() {
+    byte b = peek();
+    idx++;
+    return b;
+  }
+
+  private IllegalArgumentException malformed() {
+    return new IllegalArgumentException("Malformed message at offset " + (idx - buff.readerIndex()));
+  }
+}
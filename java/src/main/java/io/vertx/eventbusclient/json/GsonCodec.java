@@ -1,6 +1,19 @@
 package io.vertx.eventbusclient.json;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -18,4 +31,141 @@ public class GsonCodec extends JsonCodec {
   public <T> T decode(String json, Class<T> type) {
     return gson.fromJson(json, type);
   }
+
+  @Override
+  public <T> T decode(ByteBuf buff, Class<T> type) {
+    return gson.fromJson(new Utf8Reader(buff), type);
+  }
+
+  @Override
+  public Envelope decodeEnvelope(ByteBuf buff, BodyTypeResolver resolver) {
+    int readerIndex = buff.readerIndex();
+    try {
+      return parseEnvelope(new JsonReader(new Utf8Reader(buff)), resolver);
+    } catch (RuntimeException e) {
+      // The reader is left in the middle of the body, decode the envelope again without it, a malformed message
+      // fails again
+      buff.readerIndex(readerIndex);
+      Envelope envelope = parseEnvelope(new JsonReader(new Utf8Reader(buff)), SKIP_BODY);
+      envelope.bodyError = e;
+      return envelope;
+    }
+  }
+
+  private Envelope parseEnvelope(JsonReader reader, BodyTypeResolver resolver) {
+    Envelope envelope = new Envelope();
+    try {
+      JsonElement pendingBody = null;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if ("type".equals(name)) {
+          envelope.type = nextString(reader);
+        } else if ("address".equals(name)) {
+          envelope.address = nextString(reader);
+        } else if ("replyAddress".equals(name)) {
+          envelope.replyAddress = nextString(reader);
+        } else if ("message".equals(name)) {
+          envelope.message = nextString(reader);
+        } else if ("headers".equals(name)) {
+          envelope.headers = nextHeaders(reader);
+        } else if ("body".equals(name)) {
+          if (envelope.address != null) {
+            Class<?> type = resolver.bodyType(envelope.address);
+            if (type != null) {
+              envelope.body = gson.fromJson(reader, type);
+            } else {
+              reader.skipValue();
+            }
+          } else {
+            // The address comes after the body, keep the tree until it is known
+            pendingBody = new JsonParser().parse(reader);
+          }
+        } else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+      if (pendingBody != null) {
+        Class<?> type = resolver.bodyType(envelope.address);
+        if (type != null) {
+          envelope.body = gson.fromJson(pendingBody, type);
+        }
+      }
+    } catch (IOException e) {
+      throw new UndeclaredThrowableException(e);
+    }
+    return envelope;
+  }
+
+  private static String nextString(JsonReader reader) throws IOException {
+    if (reader.peek() == JsonToken.NULL) {
+      reader.nextNull();
+      return null;
+    }
+    return reader.nextString();
+  }
+
+  private static Map<String, String> nextHeaders(JsonReader reader) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+      reader.skipValue();
+      return null;
+    }
+    Map<String, String> headers = new LinkedHashMap<String, String>();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      JsonToken token = reader.peek();
+      if (token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN) {
+        headers.put(name, token == JsonToken.BOOLEAN ? String.valueOf(reader.nextBoolean()) : reader.nextString());
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+    return headers;
+  }
+
+  @Override
+  public void encode(ByteBuf dst, String type, String address, String replyAddress, Map<String, String> headers, Object body) {
+    JsonWriter writer = new JsonWriter(new Utf8Writer(dst));
+    try {
+      writer.beginObject();
+      writer.name("type").value(type);
+      if (address != null) {
+        writer.name("address").value(address);
+      }
+      if (replyAddress != null) {
+        writer.name("replyAddress").value(replyAddress);
+      }
+      if (headers != null) {
+        writer.name("headers").beginObject();
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+          writer.name(header.getKey()).value(header.getValue());
+        }
+        writer.endObject();
+      }
+      if (body != null) {
+        writer.name("body");
+        gson.toJson(body, bodyType(body), writer);
+      }
+      writer.endObject();
+      writer.flush();
+    } catch (IOException e) {
+      throw new UndeclaredThrowableException(e);
+    }
+  }
+
+  /**
+   * Use the collection interfaces rather than the runtime class, so Gson does not try to reflectively
+   * instantiate JDK internal implementations such as {@code Collections.EmptyMap}.
+   */
+  private static Type bodyType(Object body) {
+    if (body instanceof Map) {
+      return Map.class;
+    } else if (body instanceof Collection) {
+      return Collection.class;
+    }
+    return body.getClass();
+  }
 }
@@ -1,10 +1,23 @@
 package io.vertx.eventbusclient.json;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.TreeNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.UndeclaredThrowableException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -30,4 +43,136 @@ public class JacksonCodec extends JsonCodec {
       throw new UndeclaredThrowableException(e);
     }
   }
+
+  @Override
+  public <T> T decode(ByteBuf buff, Class<T> type) {
+    try {
+      if (buff.hasArray()) {
+        return mapper.readValue(buff.array(), buff.arrayOffset() + buff.readerIndex(), buff.readableBytes(), type);
+      }
+      return mapper.readValue((InputStream) new ByteBufInputStream(buff), type);
+    } catch (IOException e) {
+      throw new UndeclaredThrowableException(e);
+    }
+  }
+
+  @Override
+  public Envelope decodeEnvelope(ByteBuf buff, BodyTypeResolver resolver) {
+    int readerIndex = buff.readerIndex();
+    try {
+      return parseEnvelope(buff, resolver);
+    } catch (RuntimeException e) {
+      // The parser is left in the middle of the body, decode the envelope again without it, a malformed message
+      // fails again
+      buff.readerIndex(readerIndex);
+      Envelope envelope = parseEnvelope(buff, SKIP_BODY);
+      envelope.bodyError = e instanceof UndeclaredThrowableException ? e.getCause() : e;
+      return envelope;
+    }
+  }
+
+  private Envelope parseEnvelope(ByteBuf buff, BodyTypeResolver resolver) {
+    Envelope envelope = new Envelope();
+    try {
+      JsonParser parser;
+      if (buff.hasArray()) {
+        parser = mapper.getFactory().createParser(buff.array(), buff.arrayOffset() + buff.readerIndex(), buff.readableBytes());
+      } else {
+        parser = mapper.getFactory().createParser((InputStream) new ByteBufInputStream(buff));
+      }
+      try {
+        TreeNode pendingBody = null;
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+          throw new JsonParseException(parser, "Expected a JSON object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String name = parser.getCurrentName();
+          JsonToken token = parser.nextToken();
+          if ("type".equals(name)) {
+            envelope.type = parser.getValueAsString();
+          } else if ("address".equals(name)) {
+            envelope.address = parser.getValueAsString();
+          } else if ("replyAddress".equals(name)) {
+            envelope.replyAddress = parser.getValueAsString();
+          } else if ("message".equals(name)) {
+            envelope.message = parser.getValueAsString();
+          } else if ("headers".equals(name)) {
+            envelope.headers = readHeaders(parser, token);
+          } else if ("body".equals(name)) {
+            if (envelope.address != null) {
+              Class<?> type = resolver.bodyType(envelope.address);
+              if (type != null) {
+                envelope.body = mapper.readValue(parser, type);
+              } else {
+                parser.skipChildren();
+              }
+            } else {
+              // The address comes after the body, keep the tree until it is known
+              pendingBody = mapper.readTree(parser);
+            }
+          } else {
+            parser.skipChildren();
+          }
+        }
+        if (pendingBody != null) {
+          Class<?> type = resolver.bodyType(envelope.address);
+          if (type != null) {
+            envelope.body = mapper.treeToValue(pendingBody, type);
+          }
+        }
+      } finally {
+        parser.close();
+      }
+    } catch (IOException e) {
+      throw new UndeclaredThrowableException(e);
+    }
+    return envelope;
+  }
+
+  private static Map<String, String> readHeaders(JsonParser parser, JsonToken token) throws IOException {
+    if (token != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return null;
+    }
+    Map<String, String> headers = new LinkedHashMap<String, String>();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      if (parser.nextToken().isScalarValue()) {
+        headers.put(name, parser.getValueAsString());
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return headers;
+  }
+
+  @Override
+  public void encode(ByteBuf dst, String type, String address, String replyAddress, Map<String, String> headers, Object body) {
+    try {
+      JsonGenerator generator = mapper.getFactory().createGenerator((OutputStream) new ByteBufOutputStream(dst), JsonEncoding.UTF8);
+      generator.writeStartObject();
+      generator.writeStringField("type", type);
+      if (address != null) {
+        generator.writeStringField("address", address);
+      }
+      if (replyAddress != null) {
+        generator.writeStringField("replyAddress", replyAddress);
+      }
+      if (headers != null) {
+        generator.writeObjectFieldStart("headers");
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+          generator.writeStringField(header.getKey(), header.getValue());
+        }
+        generator.writeEndObject();
+      }
+      if (body != null) {
+        generator.writeFieldName("body");
+        mapper.writeValue(generator, body);
+      }
+      generator.writeEndObject();
+      generator.close();
+    } catch (IOException e) {
+      throw new UndeclaredThrowableException(e);
+    }
+  }
 }
@@ -1,7 +1,12 @@
 package io.vertx.eventbusclient.json;
 
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -19,6 +24,14 @@ public abstract class JsonCodec {
   public static final JsonCodec DEFAULT;
   private static final List<Throwable> FAILURES;
 
+  // Decodes the envelope of a message whose body could not be bound
+  static final BodyTypeResolver SKIP_BODY = new BodyTypeResolver() {
+    @Override
+    public Class<?> bodyType(String address) {
+      return null;
+    }
+  };
+
   static {
     List<Throwable> failures = new ArrayList<Throwable>();
     JsonCodec codec = null;
@@ -60,4 +73,113 @@ public abstract class JsonCodec {
    * @return the created object
    */
   public abstract <T> T decode(String json, Class<T> type);
+
+  /**
+   * Creates an object based of the UTF-8 encoded JSON bytes readable in {@code buff}.
+   * <p>
+   * The default implementation decodes the bytes to a string and calls {@link #decode(String, Class)}, codecs
+   * should override it to parse the bytes directly.
+   *
+   * @param buff the buffer containing the JSON bytes, it is not released
+   * @param type the class of the desired return type
+   * @param <T>  the desired return type
+   * @return the created object
+   */
+  public <T> T decode(ByteBuf buff, Class<T> type) {
+    return decode(buff.toString(StandardCharsets.UTF_8), type);
+  }
+
+  /**
+   * Encodes a bridge message envelope and appends its JSON representation to {@code dst}.
+   * <p>
+   * The default implementation builds a map of the envelope, encodes it with {@link #encode(Object)} and writes the
+   * resulting string, codecs should override it to stream the envelope directly to the buffer.
+   *
+   * @param dst          the buffer to write the UTF-8 encoded JSON to
+   * @param type         the message type, e.g. {@code send}, {@code publish} or {@code register}
+   * @param address      the address, can be null
+   * @param replyAddress the reply address, can be null
+   * @param headers      the headers, can be null
+   * @param body         the body, can be null
+   */
+  public void encode(ByteBuf dst, String type, String address, String replyAddress, Map<String, String> headers, Object body) {
+    Map<String, Object> obj = new LinkedHashMap<String, Object>();
+    obj.put("type", type);
+    if (address != null) {
+      obj.put("address", address);
+    }
+    if (replyAddress != null) {
+      obj.put("replyAddress", replyAddress);
+    }
+    if (headers != null) {
+      obj.put("headers", headers);
+    }
+    if (body != null) {
+      obj.put("body", body);
+    }
+    dst.writeCharSequence(encode(obj), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Decodes a message received from the bridge, binding its body to the type {@code resolver} returns for its address.
+   * <p>
+   * The default implementation decodes the message to a map and converts the body when needed, codecs should
+   * override it to bind the body while parsing.
+   * <p>
+   * A body that cannot be bound to its type does not fail the decoding, the envelope is returned without its body
+   * and the failure is available with {@link Envelope#bodyError()}.
+   *
+   * @param buff     the buffer containing the JSON bytes, it is not released
+   * @param resolver the body type resolver
+   * @return the decoded message
+   */
+  public Envelope decodeEnvelope(ByteBuf buff, BodyTypeResolver resolver) {
+    Map msg = decode(buff, Map.class);
+    Envelope envelope = new Envelope();
+    envelope.type = stringValue(msg.get("type"));
+    envelope.address = stringValue(msg.get("address"));
+    envelope.replyAddress = stringValue(msg.get("replyAddress"));
+    envelope.message = stringValue(msg.get("message"));
+    Object headers = msg.get("headers");
+    if (headers instanceof Map) {
+      Map<String, String> map = new LinkedHashMap<String, String>();
+      for (Object o : ((Map) headers).entrySet()) {
+        Map.Entry entry = (Map.Entry) o;
+        map.put(String.valueOf(entry.getKey()), stringValue(entry.getValue()));
+      }
+      envelope.headers = map;
+    }
+    Object body = msg.get("body");
+    Class<?> type = resolver.bodyType(envelope.address);
+    if (type == null) {
+      body = null;
+    } else if (body != null && !type.isInstance(body)) {
+      try {
+        body = decode(encode(body), type);
+      } catch (RuntimeException e) {
+        body = null;
+        envelope.bodyError = e;
+      }
+    }
+    envelope.body = body;
+    return envelope;
+  }
+
+  /**
+   * Decodes the envelope fields of a message received from the bridge, leaving its body undecoded.
+   * <p>
+   * The body is available as a slice of {@code buff} with {@link Envelope#encodedBody()} and can be decoded
+   * later with {@link #decode(ByteBuf, Class)}. This allows to route a message on its address before paying
+   * the cost of decoding its body.
+   *
+   * @param buff the buffer containing the JSON bytes, it is not released
+   * @return the envelope
+   */
+  public Envelope scanEnvelope(ByteBuf buff) {
+    return EnvelopeScanner.scan(buff);
+  }
+
+  private static String stringValue(Object o) {
+    return o == null ? null : o.toString();
+  }
 }
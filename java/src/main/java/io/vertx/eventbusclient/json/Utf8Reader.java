@@ -0,0 +1,100 @@
+package io.vertx.eventbusclient.json;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.Reader;
+
+/**
+ * Reads the characters of the UTF-8 bytes of a buffer, unlike an {@link java.io.InputStreamReader} it does not
+ * allocate an intermediate byte buffer.
+ * <p>
+ * The malformed sequences are read as {@code U+FFFD} like the {@code InputStreamReader} does.
+ */
+final class Utf8Reader extends Reader {
+
+  private static final char REPLACEMENT = '\uFFFD';
+
+  private final ByteBuf src;
+  private char lowSurrogate;
+
+  Utf8Reader(ByteBuf src) {
+    this.src = src;
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int len) {
+    if (len == 0) {
+      return 0;
+    }
+    int end = off + len;
+    int idx = off;
+    if (lowSurrogate != 0) {
+      cbuf[idx++] = lowSurrogate;
+      lowSurrogate = 0;
+    }
+    while (idx < end && src.isReadable()) {
+      int b = src.readByte();
+      if (b >= 0) {
+        cbuf[idx++] = (char) b;
+      } else {
+        int codePoint = decode(b & 0xFF);
+        if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+          cbuf[idx++] = (char) codePoint;
+        } else {
+          cbuf[idx++] = Character.highSurrogate(codePoint);
+          if (idx < end) {
+            cbuf[idx++] = Character.lowSurrogate(codePoint);
+          } else {
+            lowSurrogate = Character.lowSurrogate(codePoint);
+          }
+        }
+      }
+    }
+    return idx == off ? -1 : idx - off;
+  }
+
+  /**
+   * Decodes the code point starting with the non ASCII byte {@code b}, the continuation bytes are only consumed when
+   * they are valid.
+   */
+  private int decode(int b) {
+    int count;
+    int min;
+    int codePoint;
+    if ((b & 0xE0) == 0xC0) {
+      count = 1;
+      min = 0x80;
+      codePoint = b & 0x1F;
+    } else if ((b & 0xF0) == 0xE0) {
+      count = 2;
+      min = 0x800;
+      codePoint = b & 0x0F;
+    } else if ((b & 0xF8) == 0xF0) {
+      count = 3;
+      min = Character.MIN_SUPPLEMENTARY_CODE_POINT;
+      codePoint = b & 0x07;
+    } else {
+      return REPLACEMENT;
+    }
+    for (int i = 0;i < count;i++) {
+      if (!src.isReadable()) {
+        return REPLACEMENT;
+      }
+      int next = src.getByte(src.readerIndex());
+      if ((next & 0xC0) != 0x80) {
+        return REPLACEMENT;
+      }
+      src.skipBytes(1);
+      codePoint = (codePoint << 6) | (next & 0x3F);
+    }
+    if (codePoint < min || codePoint > Character.MAX_CODE_POINT
+      || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+      return REPLACEMENT;
+    }
+    return codePoint;
+  }
+
+  @Override
+  public void close() {
+  }
+}
@@ -0,0 +1,102 @@
+package io.vertx.eventbusclient.json;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Writes the characters encoded in UTF-8 straight to a buffer, unlike an {@link java.io.OutputStreamWriter} it does
+ * not allocate an intermediate byte buffer.
+ * <p>
+ * A surrogate pair split between two writes is kept until the low surrogate is written, unpaired surrogates are
+ * written as {@code ?}.
+ */
+final class Utf8Writer extends Writer {
+
+  private final ByteBuf dst;
+  private char highSurrogate;
+
+  Utf8Writer(ByteBuf dst) {
+    this.dst = dst;
+  }
+
+  @Override
+  public void write(int c) {
+    writeChar((char) c);
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) {
+    write(CharBuffer.wrap(cbuf), off, len);
+  }
+
+  @Override
+  public void write(String str, int off, int len) {
+    write((CharSequence) str, off, len);
+  }
+
+  @Override
+  public Writer append(CharSequence csq) {
+    write(csq, 0, csq.length());
+    return this;
+  }
+
+  private void write(CharSequence seq, int off, int len) {
+    int end = off + len;
+    if (off < end && highSurrogate != 0) {
+      writeChar(seq.charAt(off++));
+    }
+    if (off < end && Character.isHighSurrogate(seq.charAt(end - 1))) {
+      // Wait for the low surrogate
+      end--;
+      ByteBufUtil.writeUtf8(dst, seq, off, end);
+      highSurrogate = seq.charAt(end);
+    } else if (off < end) {
+      ByteBufUtil.writeUtf8(dst, seq, off, end);
+    }
+  }
+
+  private void writeChar(char c) {
+    if (highSurrogate != 0) {
+      char high = highSurrogate;
+      highSurrogate = 0;
+      if (Character.isLowSurrogate(c)) {
+        int codePoint = Character.toCodePoint(high, c);
+        dst.writeByte(0xF0 | (codePoint >> 18));
+        dst.writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+        dst.writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+        dst.writeByte(0x80 | (codePoint & 0x3F));
+        return;
+      }
+      dst.writeByte('?');
+    }
+    if (c < 0x80) {
+      dst.writeByte(c);
+    } else if (c < 0x800) {
+      dst.writeByte(0xC0 | (c >> 6));
+      dst.writeByte(0x80 | (c & 0x3F));
+    } else if (Character.isHighSurrogate(c)) {
+      highSurrogate = c;
+    } else if (Character.isLowSurrogate(c)) {
+      dst.writeByte('?');
+    } else {
+      dst.writeByte(0xE0 | (c >> 12));
+      dst.writeByte(0x80 | ((c >> 6) & 0x3F));
+      dst.writeByte(0x80 | (c & 0x3F));
+    }
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  @Override
+  public void close() {
+    if (highSurrogate != 0) {
+      highSurrogate = 0;
+      dst.writeByte('?');
+    }
+  }
+}
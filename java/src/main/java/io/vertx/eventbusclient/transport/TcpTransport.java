@@ -4,9 +4,11 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
 import io.vertx.eventbusclient.EventBusClientOptions;
+import io.vertx.eventbusclient.Handler;
 
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -15,12 +17,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public class TcpTransport extends Transport {
 
-  private ChannelHandlerContext handlerCtx;
+  private volatile ChannelHandlerContext handlerCtx;
   private boolean baseHandshakeComplete = false;
   private boolean tcpHandshakeComplete = false;
   private AtomicBoolean connectedHandlerInvoked = new AtomicBoolean(false);
-  private boolean reading;
-  private boolean flush;
 
   public TcpTransport(EventBusClientOptions options) {
     super(options);
@@ -45,18 +45,14 @@ public class TcpTransport extends Transport {
     channel.pipeline().addLast(new ByteToMessageDecoder() {
       @Override
       public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-        reading = true;
+        readStarted();
         super.channelRead(ctx, msg);
       }
 
       @Override
       public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
         super.channelReadComplete(ctx);
-        reading = false;
-        if (flush) {
-          flush = false;
-          ctx.flush();
-        }
+        readComplete(ctx);
       }
 
       @Override
@@ -80,7 +76,7 @@ public class TcpTransport extends Transport {
           if (in.readableBytes() < 4 + len) {
             return;
           }
-          String json = in.toString(readerIdx + 4, len, StandardCharsets.UTF_8);
+          ByteBuf json = in.retainedSlice(readerIdx + 4, len);
           in.readerIndex(readerIdx + 4 + len);
           messageHandler.handle(json);
         }
@@ -88,10 +84,11 @@ public class TcpTransport extends Transport {
 
       @Override
       public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        handlerCtx = null;
+        // The close handler leaves the connected state first, so the client queues the messages instead of sending them
         if (connectedHandlerInvoked.get()) {
           closeHandler.handle(null);
         }
+        handlerCtx = null;
       }
     });
   }
@@ -105,25 +102,23 @@ public class TcpTransport extends Transport {
   }
 
   @Override
-  public void send(final String message) {
-    if (handlerCtx.executor().inEventLoop()) {
-      ByteBuf buff = handlerCtx.alloc().buffer();
+  public boolean send(Handler<ByteBuf> encoder, GenericFutureListener<Future<Void>> listener) {
+    ChannelHandlerContext ctx = handlerCtx;
+    if (ctx == null) {
+      return false;
+    }
+    ByteBuf buff = allocateFrame(ctx);
+    try {
+      // Reserve the length prefix and fill it once the message is encoded
       buff.writeInt(0);
-      buff.writeCharSequence(message, StandardCharsets.UTF_8);
-      buff.setInt(0, buff.readableBytes() - 4);
-      if (reading) {
-        flush = true;
-        addSendErrorHandler(handlerCtx, message, handlerCtx.write(buff));
-      } else {
-        addSendErrorHandler(handlerCtx, message, handlerCtx.writeAndFlush(buff));
-      }
-    } else {
-      handlerCtx.executor().execute(new Runnable() {
-        @Override
-        public void run() {
-          send(message);
-        }
-      });
+      encoder.handle(buff);
+    } catch (RuntimeException e) {
+      buff.release();
+      throw e;
     }
+    buff.setInt(0, buff.readableBytes() - 4);
+    recordFrameSize(buff.readableBytes());
+    write(ctx, buff, listener);
+    return true;
   }
 }
@@ -1,5 +1,7 @@
 package io.vertx.eventbusclient.transport;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
 import io.netty.channel.*;
 import io.netty.handler.proxy.*;
 import io.netty.handler.ssl.SslContext;
@@ -10,10 +12,11 @@ import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import io.vertx.eventbusclient.ClientException;
-import io.vertx.eventbusclient.EventBusClient;
+import io.vertx.eventbusclient.Endpoint;
 import io.vertx.eventbusclient.EventBusClientOptions;
 import io.vertx.eventbusclient.Handler;
 import io.vertx.eventbusclient.ProxyType;
@@ -24,8 +27,13 @@ import java.io.FileInputStream;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyStore;
+import java.util.Queue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -33,15 +41,46 @@ import java.util.concurrent.TimeUnit;
 public abstract class Transport extends ChannelInitializer {
 
   final EventBusClientOptions options;
-  private final InternalLogger logger;
+  final InternalLogger logger;
   private final SslContext sslContext;
 
   Handler<Void> connectedHandler;
-  Handler<String> messageHandler;
+  Handler<ByteBuf> messageHandler;
   Handler<Void> closeHandler;
+  private volatile Handler<Void> drainHandler;
 
   private Handler<Throwable> exceptionHandler;
 
+  // The endpoint of the channel being connected
+  volatile Endpoint endpoint;
+
+  /**
+   * Initial capacity of the buffers frames are encoded to, adjusted as frames are sent.
+   */
+  private static final int INITIAL_FRAME_SIZE_ESTIMATE = 256;
+
+  // Racy on purpose, it is only a hint for the allocator
+  private int frameSizeEstimate = INITIAL_FRAME_SIZE_ESTIMATE;
+
+  // Frames written from other threads, drained by a single task on the event loop
+  private final Queue<Object> outbound = PlatformDependent.newMpscQueue();
+  private final AtomicInteger outboundSize = new AtomicInteger();
+  private final AtomicLong outboundBytes = new AtomicLong();
+  private final AtomicBoolean drainScheduled = new AtomicBoolean();
+  private final Runnable drainTask = new Runnable() {
+    @Override
+    public void run() {
+      drain();
+    }
+  };
+  private volatile ChannelHandlerContext outboundCtx;
+  private volatile Channel channel;
+
+  // Event loop state, flushes are deferred to the end of the read loop
+  private boolean reading;
+  private boolean flush;
+  private int writeCount;
+
   Transport(EventBusClientOptions options) {
 
     SslContext sslContext;
@@ -52,6 +91,7 @@ public abstract class Transport extends ChannelInitializer {
     }
 
     this.options = options;
+    this.endpoint = options.getEndpoints().isEmpty() ? new Endpoint(options.getHost(), options.getPort()) : options.getEndpoints().get(0);
     this.logger = InternalLoggerFactory.getInstance(Transport.class);
     this.sslContext = sslContext;
   }
@@ -108,7 +148,18 @@ public abstract class Transport extends ChannelInitializer {
   protected void initChannel(final Channel channel) throws Exception {
     final ChannelPipeline pipeline = channel.pipeline();
 
+    this.channel = channel;
     channel.config().setConnectTimeoutMillis(this.options.getConnectTimeout());
+    channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(options.getWriteBufferLowWaterMark(), options.getWriteBufferHighWaterMark()));
+    pipeline.addLast(new ChannelInboundHandlerAdapter() {
+      @Override
+      public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+          checkDrained();
+        }
+        super.channelWritabilityChanged(ctx);
+      }
+    });
 
     if (this.options.getProxyHost() == null && !this.options.isSsl()) {
       pipeline.addLast(new ChannelInboundHandlerAdapter() {
@@ -174,7 +225,7 @@ public abstract class Transport extends ChannelInitializer {
       if (options.isVerifyHost()) {
         sslParams.setEndpointIdentificationAlgorithm("HTTPS");
       }
-      SSLEngine sslEngine = sslContext.newEngine(channel.alloc(), this.options.getHost(), this.options.getPort());
+      SSLEngine sslEngine = sslContext.newEngine(channel.alloc(), endpoint.host(), endpoint.port());
       sslEngine.setUseClientMode(true);
       sslEngine.setSSLParameters(sslParams);
       SslHandler sslHandler = new SslHandler(sslEngine, false);
@@ -212,7 +263,14 @@ public abstract class Transport extends ChannelInitializer {
     connectedHandler = handler;
   }
 
-  public void messageHandler(Handler<String> handler) {
+  /**
+   * Set the handler called with each JSON message received from the server.
+   * <p>
+   * The handler is given a retained slice of the received frame and is responsible for releasing it.
+   *
+   * @param handler the message handler
+   */
+  public void messageHandler(Handler<ByteBuf> handler) {
     messageHandler = handler;
   }
 
@@ -220,6 +278,56 @@ public abstract class Transport extends ChannelInitializer {
     closeHandler = handler;
   }
 
+  /**
+   * Set the handler called on the event loop when the channel became writable again and the frames queued by
+   * the transport are below the low water mark.
+   *
+   * @param handler the drain handler
+   */
+  public void drainHandler(Handler<Void> handler) {
+    drainHandler = handler;
+  }
+
+  /**
+   * The number of frames written to the channel, it wraps around and is meant to be compared with a previous value
+   * to know whether frames were written meanwhile. This must be called on the event loop.
+   *
+   * @return the number of frames written
+   */
+  public int writeCount() {
+    return writeCount;
+  }
+
+  /**
+   * Whether the channel is not writable or the frames queued by the transport reached the high water mark.
+   *
+   * @return true when the write queue is full
+   */
+  public boolean writeQueueFull() {
+    if (outboundBytes.get() >= options.getWriteBufferHighWaterMark()) {
+      return true;
+    }
+    Channel ch = channel;
+    return ch != null && ch.isActive() && !ch.isWritable();
+  }
+
+  private void checkDrained() {
+    Handler<Void> handler = drainHandler;
+    Channel ch = channel;
+    if (handler != null && ch != null && ch.isWritable() && outboundBytes.get() <= options.getWriteBufferLowWaterMark()) {
+      handler.handle(null);
+    }
+  }
+
+  /**
+   * Set the endpoint of the channels initialized from now on, the host is used for TLS and the WebSocket handshake.
+   *
+   * @param endpoint the endpoint
+   */
+  public void setEndpoint(Endpoint endpoint) {
+    this.endpoint = endpoint;
+  }
+
   public void setExceptionHandler(Handler<Throwable> handler) {
     this.exceptionHandler = handler;
   }
@@ -241,26 +349,204 @@ public abstract class Transport extends ChannelInitializer {
    * Transports can use this method to implement error handling for messages sent to the server.
    *
    * @param handlerCtx the channel context
-   * @param message    the message being sent
+   * @param size       the size of the frame being sent, in bytes
    * @param future     the channel future created by a {@code write} method
    */
-  void addSendErrorHandler(final ChannelHandlerContext handlerCtx, final String message, ChannelFuture future) {
+  void addSendErrorHandler(final ChannelHandlerContext handlerCtx, final int size, ChannelFuture future) {
     future.addListener(new GenericFutureListener<Future<Void>>() {
       @Override
       public void operationComplete(Future<Void> future) {
         // Suppress "Could not send because connection is closed" and SSLExceptions, as they are handled in sslExceptionHandler
         //noinspection ThrowableResultOfMethodCallIgnored
         if (!future.isSuccess() && handlerCtx.channel().isOpen() && !(future.cause() instanceof SSLException)) {
-          if (message.length() > EventBusClient.MESSAGE_PRINT_LIMIT) {
-            handleError("Could not send message with " + message.length() + " chars.", future.cause());
-          } else {
-            handleError("Could not send message: " + message, future.cause());
-          }
+          handleError("Could not send message with " + size + " bytes.", future.cause());
         }
       }
     });
   }
 
+  /**
+   * Writes a frame to the channel.
+   * <p>
+   * On the event loop the frame is written right away, it is flushed at the end of the current read loop or
+   * immediately when not reading. Otherwise the frame is queued and the queue is drained by a single task on the
+   * event loop, that writes up to {@code maxWriteBatchSize} frames and flushes them at once. When
+   * {@code maxWriteLinger} is set, the task waits at most this time for the batch to fill before draining.
+   *
+   * @param handlerCtx the channel context
+   * @param frame      the frame
+   * @param listener   the listener notified when the frame is written, may be {@code null}
+   */
+  void write(ChannelHandlerContext handlerCtx, Object frame, GenericFutureListener<Future<Void>> listener) {
+    if (handlerCtx.executor().inEventLoop() && outbound.isEmpty()) {
+      int size = sizeOf(frame);
+      writeCount++;
+      ChannelFuture future;
+      if (reading) {
+        flush = true;
+        future = handlerCtx.write(frame);
+      } else {
+        future = handlerCtx.writeAndFlush(frame);
+      }
+      addSendErrorHandler(handlerCtx, size, future);
+      if (listener != null) {
+        future.addListener(listener);
+      }
+      return;
+    }
+    outboundCtx = handlerCtx;
+    outboundBytes.addAndGet(sizeOf(frame));
+    outbound.offer(listener == null ? frame : new PendingWrite(frame, listener));
+    int queued = outboundSize.incrementAndGet();
+    if (drainScheduled.compareAndSet(false, true)) {
+      int linger = options.getMaxWriteLinger();
+      if (linger > 0 && queued < options.getMaxWriteBatchSize()) {
+        handlerCtx.executor().schedule(drainTask, linger, TimeUnit.MICROSECONDS);
+      } else {
+        handlerCtx.executor().execute(drainTask);
+      }
+    } else if (queued == options.getMaxWriteBatchSize()) {
+      // Do not wait for the linger time when a batch is full
+      handlerCtx.executor().execute(drainTask);
+    }
+  }
+
+  private void drain() {
+    ChannelHandlerContext handlerCtx = outboundCtx;
+    int max = options.getMaxWriteBatchSize();
+    int count = 0;
+    Object frame;
+    while (count < max && (frame = outbound.poll()) != null) {
+      outboundSize.decrementAndGet();
+      GenericFutureListener<Future<Void>> listener = null;
+      if (frame instanceof PendingWrite) {
+        listener = ((PendingWrite) frame).listener;
+        frame = ((PendingWrite) frame).frame;
+      }
+      int size = sizeOf(frame);
+      outboundBytes.addAndGet(-size);
+      writeCount++;
+      ChannelFuture future = handlerCtx.write(frame);
+      addSendErrorHandler(handlerCtx, size, future);
+      if (listener != null) {
+        future.addListener(listener);
+      }
+      count++;
+    }
+    if (count > 0) {
+      if (reading) {
+        flush = true;
+      } else {
+        handlerCtx.flush();
+      }
+    }
+    if (!outbound.isEmpty()) {
+      handlerCtx.executor().execute(drainTask);
+    } else {
+      checkDrained();
+      drainScheduled.set(false);
+      // A frame may have been queued after the queue was seen empty and before the flag was cleared
+      if (!outbound.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+        handlerCtx.executor().execute(drainTask);
+      }
+    }
+  }
+
+  /**
+   * A queued frame with a listener.
+   */
+  private static class PendingWrite {
+
+    private final Object frame;
+    private final GenericFutureListener<Future<Void>> listener;
+
+    PendingWrite(Object frame, GenericFutureListener<Future<Void>> listener) {
+      this.frame = frame;
+      this.listener = listener;
+    }
+  }
+
+  private static int sizeOf(Object frame) {
+    if (frame instanceof ByteBuf) {
+      return ((ByteBuf) frame).readableBytes();
+    } else if (frame instanceof ByteBufHolder) {
+      return ((ByteBufHolder) frame).content().readableBytes();
+    }
+    return 0;
+  }
+
+  /**
+   * Transports call this method when they start handling data read from the channel.
+   */
+  void readStarted() {
+    reading = true;
+  }
+
+  /**
+   * Transports call this method at the end of a read loop, it flushes the frames written while reading.
+   *
+   * @param handlerCtx the channel context
+   */
+  void readComplete(ChannelHandlerContext handlerCtx) {
+    reading = false;
+    if (flush) {
+      flush = false;
+      handlerCtx.flush();
+    }
+  }
+
+  /**
+   * Runs a task sending several messages, the frames written on the event loop by the task are flushed once
+   * after it. This must be called on the event loop.
+   *
+   * @param task the task
+   */
+  public void batch(Runnable task) {
+    if (reading) {
+      task.run();
+      return;
+    }
+    reading = true;
+    try {
+      task.run();
+    } finally {
+      reading = false;
+      Channel ch = channel;
+      if (flush) {
+        flush = false;
+        if (ch != null) {
+          ch.flush();
+        }
+      }
+    }
+  }
+
+  /**
+   * Allocates a pooled buffer to encode a frame to, sized after the frames recently sent so it rarely
+   * needs to grow while encoding.
+   *
+   * @param handlerCtx the channel context
+   * @return the buffer
+   */
+  ByteBuf allocateFrame(ChannelHandlerContext handlerCtx) {
+    return handlerCtx.alloc().ioBuffer(frameSizeEstimate);
+  }
+
+  /**
+   * Records the size of an encoded frame, the estimate follows larger frames immediately and decays slowly
+   * towards smaller ones.
+   *
+   * @param size the encoded frame size, in bytes
+   */
+  void recordFrameSize(int size) {
+    int estimate = frameSizeEstimate;
+    if (size > estimate) {
+      frameSizeEstimate = size;
+    } else {
+      frameSizeEstimate = Math.max(INITIAL_FRAME_SIZE_ESTIMATE, estimate - ((estimate - size) >> 3));
+    }
+  }
+
   /**
    * This method is being called by {@code Transport} when the proxy & TLS handshake has been completed successfully.
    * <p>
@@ -274,10 +560,40 @@ public abstract class Transport extends ChannelInitializer {
   /**
    * This method needs to be overriden by {@code Transport} implementations.
    * It is being invoked by {@code EventBusClient} when a message needs to be sent.
+   * <p>
+   * The {@code encoder} is called with a pooled buffer obtained from the channel allocator and must write the
+   * UTF-8 encoded JSON message to it, the transport takes care of the framing.
    * Transports can pass {@code ChannelFuture}s created by {@code write} methods to {@code addSendErrorHandler} to
    * implement error handling for failed messages.
    *
+   * @param encoder  the handler writing the message to the frame buffer
+   * @param listener the listener notified when the frame is written, may be {@code null}
+   * @return {@code false} when the channel is closed, the message is not encoded then
+   */
+  public abstract boolean send(Handler<ByteBuf> encoder, GenericFutureListener<Future<Void>> listener);
+
+  /**
+   * Sends a message.
+   *
+   * @param encoder the handler writing the message to the frame buffer
+   * @return {@code false} when the channel is closed
+   */
+  public boolean send(Handler<ByteBuf> encoder) {
+    return send(encoder, null);
+  }
+
+  /**
+   * Sends an already encoded JSON message.
+   *
    * @param message the message to be send
+   * @return {@code false} when the channel is closed
    */
-  public abstract void send(String message);
+  public boolean send(final String message) {
+    return send(new Handler<ByteBuf>() {
+      @Override
+      public void handle(ByteBuf buff) {
+        buff.writeCharSequence(message, StandardCharsets.UTF_8);
+      }
+    });
+  }
 }
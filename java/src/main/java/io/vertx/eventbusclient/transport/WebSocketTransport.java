@@ -1,29 +1,44 @@
 package io.vertx.eventbusclient.transport;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.*;
+import io.netty.handler.codec.MessageToMessageEncoder;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketClientHandshaker;
 import io.netty.handler.codec.http.websocketx.WebSocketClientHandshakerFactory;
 import io.netty.handler.codec.http.websocketx.WebSocketClientProtocolHandler;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketVersion;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketClientExtensionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilter;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilterProvider;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateClientExtensionHandshaker;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
 import io.vertx.eventbusclient.EventBusClientOptions;
+import io.vertx.eventbusclient.Handler;
 
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
 public class WebSocketTransport extends Transport {
 
-  private ChannelHandlerContext handlerCtx;
+  private volatile ChannelHandlerContext handlerCtx;
   private boolean handshakeComplete = false;
-  private boolean reading;
-  private boolean flush;
+  // The fragments of the message being received
+  private CompositeByteBuf fragments;
+  // Set after a protocol error, until the connection is closed
+  private boolean failed;
 
   public WebSocketTransport(EventBusClientOptions options) {
     super(options);
@@ -40,19 +55,20 @@ public class WebSocketTransport extends Transport {
   @Override
   protected void initChannel(Channel channel) throws Exception {
     super.initChannel(channel);
+    failed = false;
 
     StringBuilder url = new StringBuilder();
     url.append("ws");
     if (this.options.isSsl()) {
       url.append("s");
     }
-    url.append("://").append(this.options.getHost()).append(options.getWebSocketPath());
+    url.append("://").append(endpoint.host()).append(options.getWebSocketPath());
 
     WebSocketClientHandshaker handshaker =
       WebSocketClientHandshakerFactory.newHandshaker(new URI(url.toString()),
         WebSocketVersion.V13,
         null,
-        false,
+        options.isWebSocketCompression(),
         new DefaultHttpHeaders(),
         options.getMaxWebSocketFrameSize());
     WebSocketClientProtocolHandler handler = new WebSocketClientProtocolHandler(handshaker);
@@ -60,7 +76,19 @@ public class WebSocketTransport extends Transport {
     ChannelPipeline pipeline = channel.pipeline();
     pipeline.addLast(new HttpClientCodec());
     pipeline.addLast(new HttpObjectAggregator(8192));
+    if (options.isWebSocketCompression()) {
+      pipeline.addLast(new WebSocketClientExtensionHandler(new PerMessageDeflateClientExtensionHandshaker(
+        options.getWebSocketCompressionLevel(),
+        false,
+        options.getWebSocketCompressionWindowBits(),
+        false,
+        false,
+        compressionFilter(options.getWebSocketCompressionThreshold()))));
+    }
     pipeline.addLast(handler);
+    if (options.getWebSocketFragmentSize() > 0) {
+      pipeline.addLast(new Fragmenter(options.getWebSocketFragmentSize()));
+    }
     pipeline.addLast(new ChannelInboundHandlerAdapter() {
       @Override
       public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
@@ -73,60 +101,166 @@ public class WebSocketTransport extends Transport {
 
       @Override
       public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-        reading = true;
-        if (msg instanceof BinaryWebSocketFrame) {
-          BinaryWebSocketFrame frame = (BinaryWebSocketFrame) msg;
-          String json = frame.content().toString(StandardCharsets.UTF_8);
-          messageHandler.handle(json);
-        } else {
-          System.out.println("Unhandled " + msg);
+        readStarted();
+        try {
+          if (failed) {
+            return;
+          }
+          if (msg instanceof BinaryWebSocketFrame || msg instanceof TextWebSocketFrame) {
+            WebSocketFrame frame = (WebSocketFrame) msg;
+            if (fragments != null) {
+              releaseFragments();
+              protocolError(ctx, "Received a new WebSocket message before the end of the previous one");
+            } else if (frame.isFinalFragment()) {
+              messageHandler.handle(frame.content().retainedSlice());
+            } else {
+              fragments = ctx.alloc().compositeBuffer(Integer.MAX_VALUE);
+              addFragment(ctx, frame);
+            }
+          } else if (msg instanceof ContinuationWebSocketFrame) {
+            WebSocketFrame frame = (WebSocketFrame) msg;
+            if (fragments == null) {
+              protocolError(ctx, "Received a WebSocket continuation frame without a message");
+            } else if (addFragment(ctx, frame) && frame.isFinalFragment()) {
+              CompositeByteBuf message = fragments;
+              fragments = null;
+              messageHandler.handle(message);
+            }
+          } else {
+            // Ping, pong and close frames are handled by the protocol handler
+            logger.debug("Ignoring WebSocket frame " + msg);
+          }
+        } finally {
+          ReferenceCountUtil.release(msg);
         }
       }
 
+      /**
+       * Adds a fragment to the message being received without copying it.
+       *
+       * @return whether the message is still within the maximum message size
+       */
+      private boolean addFragment(ChannelHandlerContext ctx, WebSocketFrame frame) {
+        ByteBuf content = frame.content();
+        if (fragments.readableBytes() + content.readableBytes() > options.getMaxWebSocketMessageSize()) {
+          releaseFragments();
+          protocolError(ctx, "WebSocket message larger than " + options.getMaxWebSocketMessageSize() + " bytes");
+          return false;
+        }
+        fragments.addComponent(true, content.retain());
+        return true;
+      }
+
+      private void protocolError(ChannelHandlerContext ctx, String message) {
+        failed = true;
+        handleError(message, new IllegalStateException(message));
+        ctx.close();
+      }
+
       @Override
       public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
         super.channelReadComplete(ctx);
-        reading = false;
-        if (flush) {
-          flush = false;
-          ctx.flush();
-        }
+        readComplete(ctx);
       }
 
       @Override
       public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        handlerCtx = null;
+        releaseFragments();
+        // The close handler leaves the connected state first, so the client queues the messages instead of sending them
         if (handshakeComplete) {
           closeHandler.handle(null);
         }
+        handlerCtx = null;
       }
     });
   }
 
+  private void releaseFragments() {
+    if (fragments != null) {
+      fragments.release();
+      fragments = null;
+    }
+  }
+
+  /**
+   * Splits the messages larger than the fragment size in a binary frame followed by continuation frames, the
+   * frames are slices of the message. It is on the event loop, so the fragments of concurrent sends cannot be
+   * interleaved.
+   */
+  private static class Fragmenter extends MessageToMessageEncoder<BinaryWebSocketFrame> {
+
+    private final int fragmentSize;
+
+    Fragmenter(int fragmentSize) {
+      this.fragmentSize = fragmentSize;
+    }
+
+    @Override
+    public boolean acceptOutboundMessage(Object msg) throws Exception {
+      if (!super.acceptOutboundMessage(msg)) {
+        return false;
+      }
+      BinaryWebSocketFrame frame = (BinaryWebSocketFrame) msg;
+      return frame.isFinalFragment() && frame.content().readableBytes() > fragmentSize;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, BinaryWebSocketFrame frame, List<Object> out) throws Exception {
+      ByteBuf content = frame.content();
+      int index = content.readerIndex();
+      int end = content.writerIndex();
+      out.add(new BinaryWebSocketFrame(false, 0, content.retainedSlice(index, fragmentSize)));
+      for (index += fragmentSize;index < end;index += fragmentSize) {
+        int length = Math.min(fragmentSize, end - index);
+        out.add(new ContinuationWebSocketFrame(index + length == end, 0, content.retainedSlice(index, length)));
+      }
+    }
+  }
+
+  /**
+   * @return a filter sending the messages smaller than {@code threshold} uncompressed
+   */
+  private static WebSocketExtensionFilterProvider compressionFilter(final int threshold) {
+    final WebSocketExtensionFilter encoderFilter = new WebSocketExtensionFilter() {
+      @Override
+      public boolean mustSkip(WebSocketFrame frame) {
+        // A message is compressed or not as a whole, its first fragment decides
+        return !(frame instanceof ContinuationWebSocketFrame) && frame.content().readableBytes() < threshold;
+      }
+    };
+    return new WebSocketExtensionFilterProvider() {
+      @Override
+      public WebSocketExtensionFilter encoderFilter() {
+        return encoderFilter;
+      }
+
+      @Override
+      public WebSocketExtensionFilter decoderFilter() {
+        return WebSocketExtensionFilter.NEVER_SKIP;
+      }
+    };
+  }
+
   @Override
   void handshakeCompleteHandler(Channel channel) {
     // NOOP
   }
 
   @Override
-  public void send(final String message) {
-    if (handlerCtx.executor().inEventLoop()) {
-      ByteBuf buff = handlerCtx.alloc().buffer();
-      buff.writeCharSequence(message, StandardCharsets.UTF_8);
-      BinaryWebSocketFrame frame = new BinaryWebSocketFrame(buff);
-      if (reading) {
-        flush = true;
-        addSendErrorHandler(handlerCtx, message, handlerCtx.write(frame));
-      } else {
-        addSendErrorHandler(handlerCtx, message, handlerCtx.writeAndFlush(frame));
-      }
-    } else {
-      handlerCtx.executor().execute(new Runnable() {
-        @Override
-        public void run() {
-          send(message);
-        }
-      });
+  public boolean send(Handler<ByteBuf> encoder, GenericFutureListener<Future<Void>> listener) {
+    ChannelHandlerContext ctx = handlerCtx;
+    if (ctx == null) {
+      return false;
+    }
+    ByteBuf buff = allocateFrame(ctx);
+    try {
+      encoder.handle(buff);
+    } catch (RuntimeException e) {
+      buff.release();
+      throw e;
     }
+    recordFrameSize(buff.readableBytes());
+    write(ctx, new BinaryWebSocketFrame(buff), listener);
+    return true;
   }
 }
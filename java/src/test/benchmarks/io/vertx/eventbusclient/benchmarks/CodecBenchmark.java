@@ -0,0 +1,78 @@
+package io.vertx.eventbusclient.benchmarks;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.vertx.eventbusclient.json.BodyTypeResolver;
+import io.vertx.eventbusclient.json.Envelope;
+import io.vertx.eventbusclient.json.GsonCodec;
+import io.vertx.eventbusclient.json.JacksonCodec;
+import io.vertx.eventbusclient.json.JsonCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the codecs encoding the envelopes the client sends and decoding the envelopes it receives, with a
+ * small and a larger body.
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class CodecBenchmark {
+
+  private static final BodyTypeResolver MAP_RESOLVER = new BodyTypeResolver() {
+    @Override
+    public Class<?> bodyType(String address) {
+      return Map.class;
+    }
+  };
+
+  @Param({"gson", "jackson"})
+  public String codec;
+
+  @Param({"1", "32"})
+  public int items;
+
+  private JsonCodec jsonCodec;
+  private Map<String, String> headers;
+  private Map<String, Object> body;
+  private ByteBuf encoded;
+  private ByteBuf received;
+
+  @Setup
+  public void setup() {
+    jsonCodec = "gson".equals(codec) ? new GsonCodec() : new JacksonCodec();
+    headers = Envelopes.headers();
+    body = Envelopes.order(items);
+    encoded = PooledByteBufAllocator.DEFAULT.buffer();
+    received = PooledByteBufAllocator.DEFAULT.buffer();
+    jsonCodec.encode(received, "message", "orders.created", null, headers, body);
+  }
+
+  @TearDown
+  public void tearDown() {
+    encoded.release();
+    received.release();
+  }
+
+  @Benchmark
+  public ByteBuf encodeEnvelope() {
+    encoded.clear();
+    jsonCodec.encode(encoded, "send", "orders.create", "_1a2b3c4d.42", headers, body);
+    return encoded;
+  }
+
+  @Benchmark
+  public Envelope decodeEnvelope() {
+    return jsonCodec.decodeEnvelope(received.duplicate(), MAP_RESOLVER);
+  }
+
+  @Benchmark
+  public Envelope scanEnvelope() {
+    return jsonCodec.scanEnvelope(received.duplicate());
+  }
+}
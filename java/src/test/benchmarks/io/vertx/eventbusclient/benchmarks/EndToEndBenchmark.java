@@ -0,0 +1,133 @@
+package io.vertx.eventbusclient.benchmarks;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.bridge.BridgeOptions;
+import io.vertx.ext.bridge.PermittedOptions;
+import io.vertx.ext.eventbus.bridge.tcp.TcpEventBusBridge;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.handler.sockjs.SockJSBridgeOptions;
+import io.vertx.ext.web.handler.sockjs.SockJSHandler;
+import io.vertx.eventbusclient.DeliveryOptions;
+import io.vertx.eventbusclient.EventBusClient;
+import io.vertx.eventbusclient.EventBusClientOptions;
+import io.vertx.eventbusclient.Message;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Measures a client against a TCP bridge and a SockJS bridge running in the same JVM: the throughput of sends
+ * and publishes to a consumer discarding them, and the latency of requests to a consumer echoing them.
+ * <p>
+ * Sending waits while the write queue of the client is full, so the throughput is the one the bridge sustains
+ * rather than the one of filling memory.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class EndToEndBenchmark {
+
+  private static final int PORT = 7100;
+
+  // The client logs every message it sends at info level, keep a reference as JUL only holds loggers weakly
+  private static final Logger LOGGER = Logger.getLogger("io.vertx.eventbusclient");
+
+  @Param({"tcp", "websocket"})
+  public String transport;
+
+  @Param({"1", "32"})
+  public int items;
+
+  private Vertx vertx;
+  private EventBusClient client;
+  private Map<String, Object> body;
+  private DeliveryOptions deliveryOptions;
+
+  @Setup
+  public void setup() throws Exception {
+    LOGGER.setLevel(Level.WARNING);
+    vertx = Vertx.vertx();
+    vertx.eventBus().consumer("bench.sink", msg -> {
+      // Discard
+    });
+    vertx.eventBus().consumer("bench.echo", msg -> msg.reply(msg.body()));
+    CompletableFuture<Void> listen = new CompletableFuture<>();
+    EventBusClientOptions options = new EventBusClientOptions().setPort(PORT).setAutoReconnect(false);
+    if ("tcp".equals(transport)) {
+      BridgeOptions bridgeOptions = new BridgeOptions()
+        .addInboundPermitted(new PermittedOptions().setAddressRegex("bench\\..*"))
+        .addOutboundPermitted(new PermittedOptions().setAddressRegex(".*"));
+      TcpEventBusBridge.create(vertx, bridgeOptions).listen(PORT, ar -> complete(listen, ar.succeeded(), ar.cause()));
+      listen.get(10, TimeUnit.SECONDS);
+      client = EventBusClient.tcp(options);
+    } else {
+      SockJSBridgeOptions bridgeOptions = new SockJSBridgeOptions()
+        .addInboundPermitted(new PermittedOptions().setAddressRegex("bench\\..*"))
+        .addOutboundPermitted(new PermittedOptions().setAddressRegex(".*"));
+      Router router = Router.router(vertx);
+      router.mountSubRouter("/eventbus/", SockJSHandler.create(vertx).bridge(bridgeOptions));
+      vertx.createHttpServer().requestHandler(router).listen(PORT, ar -> complete(listen, ar.succeeded(), ar.cause()));
+      listen.get(10, TimeUnit.SECONDS);
+      client = EventBusClient.webSocket(options.setWebSocketPath("/eventbus/websocket"));
+    }
+    CompletableFuture<Void> connected = new CompletableFuture<>();
+    client.connectedHandler(event -> {
+      event.handle(null);
+      connected.complete(null);
+    });
+    client.connect();
+    connected.get(10, TimeUnit.SECONDS);
+    body = Envelopes.order(items);
+    deliveryOptions = new DeliveryOptions();
+  }
+
+  private static void complete(CompletableFuture<Void> future, boolean succeeded, Throwable cause) {
+    if (succeeded) {
+      future.complete(null);
+    } else {
+      future.completeExceptionally(cause);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    client.close();
+    CompletableFuture<Void> closed = new CompletableFuture<>();
+    vertx.close(ar -> closed.complete(null));
+    closed.get(10, TimeUnit.SECONDS);
+  }
+
+  private void awaitWritable() {
+    while (client.writeQueueFull()) {
+      Thread.yield();
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void send() {
+    awaitWritable();
+    client.send("bench.sink", body);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void publish() {
+    awaitWritable();
+    client.publish("bench.sink", body);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public Message<Map> request() throws Exception {
+    return client.requestAsync("bench.echo", body, deliveryOptions, Map.class, null).toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+}
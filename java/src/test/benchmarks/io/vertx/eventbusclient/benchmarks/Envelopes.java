@@ -0,0 +1,48 @@
+package io.vertx.eventbusclient.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The message bodies and headers shared by the benchmarks, they are generated deterministically so the results of
+ * two runs can be compared.
+ */
+final class Envelopes {
+
+  private Envelopes() {
+  }
+
+  /**
+   * @return the headers of a message, as a bridge consumer would set them
+   */
+  static Map<String, String> headers() {
+    Map<String, String> headers = new LinkedHashMap<>();
+    headers.put("traceId", "4bf92f3577b34da6a3ce929d0e0e4736");
+    headers.put("tenant", "acme");
+    return headers;
+  }
+
+  /**
+   * @param items the number of items of the order
+   * @return an order body with {@code items} line items
+   */
+  static Map<String, Object> order(int items) {
+    Map<String, Object> order = new LinkedHashMap<>();
+    order.put("id", "ord-000042");
+    order.put("customer", "Jane Doe");
+    order.put("express", false);
+    List<Object> lines = new ArrayList<>();
+    for (int i = 0;i < items;i++) {
+      Map<String, Object> line = new LinkedHashMap<>();
+      line.put("sku", "sku-" + (1000 + i));
+      line.put("description", "Item number " + i + " of the order, with a description of a realistic length");
+      line.put("quantity", 1 + i % 5);
+      line.put("price", 9.99 + i);
+      lines.add(line);
+    }
+    order.put("lines", lines);
+    return order;
+  }
+}
@@ -0,0 +1,99 @@
+package io.vertx.eventbusclient.benchmarks;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.net.NetServer;
+import io.vertx.eventbusclient.EventBusClient;
+import io.vertx.eventbusclient.EventBusClientOptions;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Measures the send path of a connected client when several threads send concurrently, the server discards
+ * what it receives so the client is the bottleneck.
+ * <p>
+ * Compare the throughput of the benchmarks with an increasing number of threads to see how sending scales
+ * across cores.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class SendContentionBenchmark {
+
+  private static final int PORT = 7100;
+
+  // The client logs every message it sends at info level, keep a reference as JUL only holds loggers weakly
+  private static final Logger LOGGER = Logger.getLogger("io.vertx.eventbusclient");
+
+  private Vertx vertx;
+  private EventBusClient client;
+  private Map<String, Object> body;
+
+  @Setup
+  public void setup() throws Exception {
+    LOGGER.setLevel(Level.WARNING);
+    vertx = Vertx.vertx();
+    CompletableFuture<NetServer> listen = new CompletableFuture<>();
+    vertx.createNetServer()
+      .connectHandler(so -> so.handler(buff -> {
+        // Discard
+      }))
+      .listen(PORT, ar -> {
+        if (ar.succeeded()) {
+          listen.complete(ar.result());
+        } else {
+          listen.completeExceptionally(ar.cause());
+        }
+      });
+    listen.get(10, TimeUnit.SECONDS);
+    CompletableFuture<Void> connected = new CompletableFuture<>();
+    client = EventBusClient.tcp(new EventBusClientOptions().setPort(PORT).setAutoReconnect(false));
+    client.connectedHandler(event -> {
+      event.handle(null);
+      connected.complete(null);
+    });
+    client.connect();
+    connected.get(10, TimeUnit.SECONDS);
+    body = Collections.singletonMap("message", "hello");
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    client.close();
+    CompletableFuture<Void> closed = new CompletableFuture<>();
+    vertx.close(ar -> closed.complete(null));
+    closed.get(10, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void send1Thread() {
+    client.send("bench", body);
+  }
+
+  @Benchmark
+  @Threads(2)
+  public void send2Threads() {
+    client.send("bench", body);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void send4Threads() {
+    client.send("bench", body);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void send8Threads() {
+    client.send("bench", body);
+  }
+}
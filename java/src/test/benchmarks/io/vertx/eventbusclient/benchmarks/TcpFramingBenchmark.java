@@ -0,0 +1,90 @@
+package io.vertx.eventbusclient.benchmarks;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.vertx.eventbusclient.EventBusClientOptions;
+import io.vertx.eventbusclient.Handler;
+import io.vertx.eventbusclient.json.GsonCodec;
+import io.vertx.eventbusclient.json.JsonCodec;
+import io.vertx.eventbusclient.transport.TcpTransport;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the length prefixed framing of the TCP transport on an {@link EmbeddedChannel}, without any network
+ * or event loop involved: writing frames, and splitting a buffer holding a batch of frames as a socket read
+ * would return it.
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class TcpFramingBenchmark {
+
+  /**
+   * The number of frames in the buffer read at once.
+   */
+  private static final int FRAMES_PER_READ = 64;
+
+  @Param({"1", "32"})
+  public int items;
+
+  private EmbeddedChannel channel;
+  private TcpTransport transport;
+  private Handler<ByteBuf> encoder;
+  private ByteBuf frames;
+  private Blackhole blackhole;
+
+  @Setup
+  public void setup(final Blackhole blackhole) {
+    this.blackhole = blackhole;
+    final JsonCodec codec = new GsonCodec();
+    final Map<String, String> headers = Envelopes.headers();
+    final Map<String, Object> body = Envelopes.order(items);
+    transport = new TcpTransport(new EventBusClientOptions().setPort(7000));
+    transport.connectedHandler(v -> {
+    });
+    transport.closeHandler(v -> {
+    });
+    transport.messageHandler(json -> {
+      TcpFramingBenchmark.this.blackhole.consume(json.readableBytes());
+      json.release();
+    });
+    channel = new EmbeddedChannel(transport);
+    encoder = buff -> codec.encode(buff, "send", "orders.create", null, headers, body);
+    ByteBuf json = PooledByteBufAllocator.DEFAULT.buffer();
+    codec.encode(json, "message", "orders.created", null, headers, body);
+    frames = PooledByteBufAllocator.DEFAULT.buffer();
+    for (int i = 0;i < FRAMES_PER_READ;i++) {
+      frames.writeInt(json.readableBytes());
+      frames.writeBytes(json, json.readerIndex(), json.readableBytes());
+    }
+    json.release();
+  }
+
+  @TearDown
+  public void tearDown() {
+    channel.finishAndReleaseAll();
+    frames.release();
+  }
+
+  @Benchmark
+  public void writeFrame() {
+    transport.send(encoder);
+    ByteBuf frame = channel.readOutbound();
+    blackhole.consume(frame.readableBytes());
+    frame.release();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(FRAMES_PER_READ)
+  public void readFrames() {
+    channel.writeInbound(frames.retainedDuplicate());
+  }
+}
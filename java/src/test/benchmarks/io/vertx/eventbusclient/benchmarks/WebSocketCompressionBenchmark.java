@@ -0,0 +1,99 @@
+package io.vertx.eventbusclient.benchmarks;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionData;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateClientExtensionHandshaker;
+import io.vertx.eventbusclient.json.GsonCodec;
+import io.vertx.eventbusclient.json.JsonCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the bandwidth vs CPU trade-off of the permessage-deflate WebSocket compression: the throughput is the
+ * number of messages compressed per ms by a core, the {@code payloadBytes} and {@code wireBytes} counters are the
+ * bytes per ms before and after compression, their ratio is the compression ratio.
+ * <p>
+ * The messages are orders differing by their id, compressed with a sliding window kept across messages as the
+ * client does.
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class WebSocketCompressionBenchmark {
+
+  private static final int MESSAGES = 256;
+
+  @Param({"off", "1", "6", "9"})
+  public String level;
+
+  @Param({"1", "32"})
+  public int items;
+
+  private EmbeddedChannel channel;
+  private ByteBuf[] messages;
+  private int next;
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Bytes {
+
+    public long payloadBytes;
+    public long wireBytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      payloadBytes = 0;
+      wireBytes = 0;
+    }
+  }
+
+  @Setup
+  public void setup() throws Exception {
+    if ("off".equals(level)) {
+      channel = new EmbeddedChannel();
+    } else {
+      PerMessageDeflateClientExtensionHandshaker handshaker = new PerMessageDeflateClientExtensionHandshaker(
+        Integer.parseInt(level), false, 15, false, false);
+      channel = new EmbeddedChannel(handshaker
+        .handshakeExtension(new WebSocketExtensionData("permessage-deflate", Collections.<String, String>emptyMap()))
+        .newExtensionEncoder());
+    }
+    JsonCodec codec = new GsonCodec();
+    Map<String, String> headers = Envelopes.headers();
+    messages = new ByteBuf[MESSAGES];
+    for (int i = 0;i < MESSAGES;i++) {
+      Map<String, Object> body = Envelopes.order(items);
+      body.put("id", "ord-" + (100000 + i * 7919));
+      messages[i] = PooledByteBufAllocator.DEFAULT.buffer();
+      codec.encode(messages[i], "send", "orders.create", null, headers, body);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    channel.finishAndReleaseAll();
+    for (ByteBuf message : messages) {
+      message.release();
+    }
+  }
+
+  @Benchmark
+  public void compress(Bytes bytes) {
+    ByteBuf message = messages[next++ & (MESSAGES - 1)];
+    bytes.payloadBytes += message.readableBytes();
+    channel.writeOutbound(new BinaryWebSocketFrame(message.retainedDuplicate()));
+    WebSocketFrame frame = channel.readOutbound();
+    bytes.wireBytes += frame.content().readableBytes();
+    frame.release();
+  }
+}
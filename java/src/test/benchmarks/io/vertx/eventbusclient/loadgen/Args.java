@@ -0,0 +1,39 @@
+package io.vertx.eventbusclient.loadgen;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@code --name value} arguments of the load tools.
+ */
+final class Args {
+
+  private final Map<String, String> values = new HashMap<>();
+
+  Args(String[] args) {
+    for (int i = 0;i < args.length;i++) {
+      if (!args[i].startsWith("--") || i + 1 == args.length) {
+        throw new IllegalArgumentException("Expected --name value arguments instead of " + args[i]);
+      }
+      values.put(args[i].substring(2), args[++i]);
+    }
+  }
+
+  String get(String name, String def) {
+    String value = values.remove(name);
+    return value != null ? value : def;
+  }
+
+  int getInt(String name, int def) {
+    return Integer.parseInt(get(name, String.valueOf(def)));
+  }
+
+  /**
+   * Fails when an argument was not read, to report misspelled names.
+   */
+  void checkUnused() {
+    if (!values.isEmpty()) {
+      throw new IllegalArgumentException("Unknown arguments " + values.keySet());
+    }
+  }
+}
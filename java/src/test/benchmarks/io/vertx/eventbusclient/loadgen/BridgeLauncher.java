@@ -0,0 +1,66 @@
+package io.vertx.eventbusclient.loadgen;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.ext.bridge.BridgeOptions;
+import io.vertx.ext.bridge.PermittedOptions;
+import io.vertx.ext.eventbus.bridge.tcp.TcpEventBusBridge;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.handler.sockjs.SockJSBridgeOptions;
+import io.vertx.ext.web.handler.sockjs.SockJSHandler;
+
+/**
+ * Starts a TCP bridge and a SockJS bridge for the {@link LoadGenerator}, with a consumer on each
+ * {@code load.<n>} address that replies the body of requests and discards the other messages.
+ * <p>
+ * Arguments:
+ * <ul>
+ *   <li>{@code --tcp-port}: the port of the TCP bridge, defaults to {@code 7000}</li>
+ *   <li>{@code --ws-port}: the port of the SockJS bridge at {@code /eventbus/websocket}, defaults to {@code 8080}</li>
+ *   <li>{@code --addresses}: the number of {@code load.<n>} addresses, defaults to {@code 16}</li>
+ * </ul>
+ */
+public class BridgeLauncher {
+
+  public static void main(String[] arguments) {
+    Args args = new Args(arguments);
+    int tcpPort = args.getInt("tcp-port", 7000);
+    int wsPort = args.getInt("ws-port", 8080);
+    int addresses = args.getInt("addresses", 16);
+    args.checkUnused();
+
+    Vertx vertx = Vertx.vertx();
+    for (int i = 0;i < addresses;i++) {
+      vertx.eventBus().consumer(LoadGenerator.address(i), msg -> {
+        if (msg.replyAddress() != null) {
+          msg.reply(msg.body());
+        }
+      });
+    }
+
+    TcpEventBusBridge.create(vertx, new BridgeOptions()
+      .addInboundPermitted(new PermittedOptions().setAddressRegex("load\\..*"))
+      .addOutboundPermitted(new PermittedOptions().setAddressRegex(".*")))
+      .listen(tcpPort, ar -> {
+        if (ar.succeeded()) {
+          System.out.println("TCP bridge listening on " + tcpPort);
+        } else {
+          ar.cause().printStackTrace();
+        }
+      });
+
+    Router router = Router.router(vertx);
+    router.mountSubRouter("/eventbus/", SockJSHandler.create(vertx).bridge(new SockJSBridgeOptions()
+      .addInboundPermitted(new PermittedOptions().setAddressRegex("load\\..*"))
+      .addOutboundPermitted(new PermittedOptions().setAddressRegex(".*"))));
+    vertx.createHttpServer(new HttpServerOptions().setMaxWebSocketFrameSize(1024 * 1024).setMaxWebSocketMessageSize(1024 * 1024))
+      .requestHandler(router)
+      .listen(wsPort, ar -> {
+        if (ar.succeeded()) {
+          System.out.println("SockJS bridge listening on " + wsPort + " at /eventbus/websocket");
+        } else {
+          ar.cause().printStackTrace();
+        }
+      });
+  }
+}
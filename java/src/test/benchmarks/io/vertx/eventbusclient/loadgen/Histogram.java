@@ -0,0 +1,79 @@
+package io.vertx.eventbusclient.loadgen;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The latencies in microseconds of an operation of the load.
+ * <p>
+ * Values below 64 microseconds have their own bucket, above each power of two is divided in 32 buckets, so a
+ * percentile is reported with an error below 3.2%. Recording does not allocate and can happen from any thread.
+ */
+final class Histogram {
+
+  private static final int SUB_BUCKETS = 32;
+  private static final int LINEAR = 2 * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(index(Long.MAX_VALUE) + 1);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  private static int index(long value) {
+    if (value < LINEAR) {
+      return (int) value;
+    }
+    // Keep the 6 most significant bits of the value
+    int shift = 58 - Long.numberOfLeadingZeros(value);
+    return LINEAR + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  /**
+   * @return the highest value of the bucket at {@code index}
+   */
+  private static long highestValue(int index) {
+    if (index < LINEAR) {
+      return index;
+    }
+    int shift = (index - LINEAR) / SUB_BUCKETS + 1;
+    long sub = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+    return ((sub + 1) << shift) - 1;
+  }
+
+  void record(long micros) {
+    long value = Math.max(0, micros);
+    counts.incrementAndGet(index(value));
+    count.incrementAndGet();
+    long current;
+    while ((current = max.get()) < value && !max.compareAndSet(current, value)) {
+      // Retry
+    }
+  }
+
+  long count() {
+    return count.get();
+  }
+
+  long max() {
+    return max.get();
+  }
+
+  /**
+   * @param percentile the percentile, between {@code 0} and {@code 100}
+   * @return the value at {@code percentile}, {@code 0} when none was recorded
+   */
+  long percentile(double percentile) {
+    long total = count.get();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+    long seen = 0;
+    for (int i = 0;i < counts.length();i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(highestValue(i), max.get());
+      }
+    }
+    return max.get();
+  }
+}
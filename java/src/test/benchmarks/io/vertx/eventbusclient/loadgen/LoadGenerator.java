@@ -0,0 +1,277 @@
+package io.vertx.eventbusclient.loadgen;
+
+import io.vertx.eventbusclient.AsyncResult;
+import io.vertx.eventbusclient.DeliveryOptions;
+import io.vertx.eventbusclient.EventBusClient;
+import io.vertx.eventbusclient.EventBusClientOptions;
+import io.vertx.eventbusclient.json.GsonCodec;
+import io.vertx.eventbusclient.json.JacksonCodec;
+import io.vertx.eventbusclient.json.JsonCodec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Drives a mix of sends, publishes and requests at a fixed arrival rate against a bridge started by
+ * {@link BridgeLauncher}, then reports the throughput, the errors and the latency percentiles of each operation.
+ * <p>
+ * The load follows an open model: each client starts its operations on a fixed schedule whether or not the previous
+ * ones completed, and a latency is measured from the time the operation was scheduled rather than from the time it
+ * was actually started, so a stall of the client or the bridge shows in the latencies instead of slowing the load
+ * down (coordinated omission). The latency of a send or a publish ends when it is written to the connection, the
+ * latency of a request when its reply is received.
+ * <p>
+ * Arguments:
+ * <ul>
+ *   <li>{@code --transport}: {@code tcp} or {@code websocket}, defaults to {@code tcp}</li>
+ *   <li>{@code --host}: the bridge host, defaults to {@code localhost}</li>
+ *   <li>{@code --port}: the bridge port, defaults to {@code 7000} with TCP and {@code 8080} with WebSockets</li>
+ *   <li>{@code --codec}: {@code gson} or {@code jackson}, defaults to {@code gson}</li>
+ *   <li>{@code --clients}: the number of clients sharing the load, defaults to {@code 4}</li>
+ *   <li>{@code --addresses}: the number of {@code load.<n>} addresses the operations are spread on, defaults to {@code 16}</li>
+ *   <li>{@code --rate}: the number of operations started per second across all clients, defaults to {@code 1000}</li>
+ *   <li>{@code --mix}: the weights of the operations, defaults to {@code send=1,publish=1,request=8}</li>
+ *   <li>{@code --size}: the size of the message bodies in characters, defaults to {@code 128}</li>
+ *   <li>{@code --timeout}: the request timeout in ms, defaults to {@code 5000}</li>
+ *   <li>{@code --warmup}: the duration in s of the load before measuring, defaults to {@code 5}</li>
+ *   <li>{@code --duration}: the duration in s of the measured load, defaults to {@code 30}</li>
+ * </ul>
+ */
+public class LoadGenerator {
+
+  // The client logs every message it sends at info level, keep a reference as JUL only holds loggers weakly
+  private static final Logger LOGGER = Logger.getLogger("io.vertx.eventbusclient");
+
+  enum Operation {
+    SEND, PUBLISH, REQUEST
+  }
+
+  /**
+   * @return the {@code n}th address of the load
+   */
+  static String address(int n) {
+    return "load." + n;
+  }
+
+  /**
+   * The outcome of an operation during the measurement.
+   */
+  private static class Stats {
+
+    final Operation operation;
+    final Histogram latencies = new Histogram();
+    final AtomicLong errors = new AtomicLong();
+    final AtomicLong timeouts = new AtomicLong();
+
+    Stats(Operation operation) {
+      this.operation = operation;
+    }
+  }
+
+  private final String transport;
+  private final String host;
+  private final int port;
+  private final JsonCodec codec;
+  private final int clients;
+  private final int addresses;
+  private final int rate;
+  private final Operation[] mix;
+  private final Map<String, Object> body;
+  private final DeliveryOptions deliveryOptions;
+  private final long timeout;
+  private final int warmup;
+  private final int duration;
+  private final Stats[] stats = new Stats[Operation.values().length];
+  private final AtomicLong inflight = new AtomicLong();
+  // The operations scheduled before are the warmup, they are not measured
+  private long measureStart;
+
+  LoadGenerator(Args args) {
+    transport = args.get("transport", "tcp");
+    if (!"tcp".equals(transport) && !"websocket".equals(transport)) {
+      throw new IllegalArgumentException("Unknown transport " + transport);
+    }
+    host = args.get("host", "localhost");
+    port = args.getInt("port", "tcp".equals(transport) ? 7000 : 8080);
+    String codecName = args.get("codec", "gson");
+    if ("gson".equals(codecName)) {
+      codec = new GsonCodec();
+    } else if ("jackson".equals(codecName)) {
+      codec = new JacksonCodec();
+    } else {
+      throw new IllegalArgumentException("Unknown codec " + codecName);
+    }
+    clients = args.getInt("clients", 4);
+    addresses = args.getInt("addresses", 16);
+    rate = args.getInt("rate", 1000);
+    mix = parseMix(args.get("mix", "send=1,publish=1,request=8"));
+    char[] payload = new char[args.getInt("size", 128)];
+    Arrays.fill(payload, 'x');
+    body = Collections.singletonMap("payload", new String(payload));
+    timeout = args.getInt("timeout", 5000);
+    deliveryOptions = new DeliveryOptions().setSendTimeout(timeout);
+    warmup = args.getInt("warmup", 5);
+    duration = args.getInt("duration", 30);
+    args.checkUnused();
+    if (clients <= 0 || addresses <= 0 || rate <= 0 || duration <= 0 || warmup < 0) {
+      throw new IllegalArgumentException("clients, addresses, rate and duration must be > 0, warmup >= 0");
+    }
+    for (Operation operation : Operation.values()) {
+      stats[operation.ordinal()] = new Stats(operation);
+    }
+  }
+
+  /**
+   * Parses {@code send=1,publish=1,request=8} to an array where each operation appears as many times as its weight.
+   */
+  private static Operation[] parseMix(String spec) {
+    List<Operation> mix = new ArrayList<>();
+    for (String weight : spec.split(",")) {
+      String[] parts = weight.split("=");
+      if (parts.length != 2) {
+        throw new IllegalArgumentException("Expected operation=weight instead of " + weight);
+      }
+      Operation operation = Operation.valueOf(parts[0].trim().toUpperCase());
+      for (int i = Integer.parseInt(parts[1].trim());i > 0;i--) {
+        mix.add(operation);
+      }
+    }
+    if (mix.isEmpty()) {
+      throw new IllegalArgumentException("The mix must have an operation with a weight > 0");
+    }
+    return mix.toArray(new Operation[0]);
+  }
+
+  public static void main(String[] args) throws Exception {
+    LOGGER.setLevel(Level.WARNING);
+    new LoadGenerator(new Args(args)).run();
+    System.exit(0);
+  }
+
+  void run() throws Exception {
+    List<EventBusClient> connected = connect();
+    System.out.println("Running " + rate + " ops/s on " + clients + " " + transport + " clients for " + warmup + "s of warmup and "
+      + duration + "s of measurement");
+    long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+    measureStart = start + TimeUnit.SECONDS.toNanos(warmup);
+    long end = measureStart + TimeUnit.SECONDS.toNanos(duration);
+    // Each client starts rate / clients operations per second, shifted so the clients do not start them together
+    long interval = TimeUnit.SECONDS.toNanos(1) * clients / rate;
+    List<Thread> pacers = new ArrayList<>();
+    for (int i = 0;i < clients;i++) {
+      Thread pacer = new Thread(pace(connected.get(i), start + i * interval / clients, end, interval), "load-generator-" + i);
+      pacer.start();
+      pacers.add(pacer);
+    }
+    for (Thread pacer : pacers) {
+      pacer.join();
+    }
+    // Wait for the last requests, they time out eventually
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout + 1000);
+    while (inflight.get() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    report();
+    for (EventBusClient client : connected) {
+      client.close();
+    }
+  }
+
+  private List<EventBusClient> connect() throws InterruptedException {
+    List<EventBusClient> connected = new ArrayList<>();
+    CountDownLatch latch = new CountDownLatch(clients);
+    for (int i = 0;i < clients;i++) {
+      EventBusClientOptions options = new EventBusClientOptions().setHost(host).setPort(port);
+      EventBusClient client;
+      if ("tcp".equals(transport)) {
+        client = EventBusClient.tcp(options, codec);
+      } else {
+        client = EventBusClient.webSocket(options.setWebSocketPath("/eventbus/websocket").setMaxWebSocketFrameSize(1024 * 1024), codec);
+      }
+      client.connectedHandler(event -> {
+        event.handle(null);
+        latch.countDown();
+      });
+      client.connect();
+      connected.add(client);
+    }
+    if (!latch.await(10, TimeUnit.SECONDS)) {
+      throw new IllegalStateException("Could not connect the clients to " + host + ":" + port + ", is the bridge started?");
+    }
+    return connected;
+  }
+
+  private Runnable pace(EventBusClient client, long start, long end, long interval) {
+    return () -> {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      for (long intended = start;intended < end;intended += interval) {
+        long delay;
+        while ((delay = intended - System.nanoTime()) > 0) {
+          LockSupport.parkNanos(delay);
+        }
+        Operation operation = mix[random.nextInt(mix.length)];
+        start(client, operation, address(random.nextInt(addresses)), intended);
+      }
+    };
+  }
+
+  private void start(EventBusClient client, Operation operation, String address, long intended) {
+    Stats s = stats[operation.ordinal()];
+    inflight.incrementAndGet();
+    try {
+      switch (operation) {
+        case SEND:
+          client.send(address, body, deliveryOptions, ar -> complete(s, intended, ar));
+          break;
+        case PUBLISH:
+          client.publish(address, body, deliveryOptions, ar -> complete(s, intended, ar));
+          break;
+        case REQUEST:
+          client.request(address, body, deliveryOptions, ar -> complete(s, intended, ar));
+          break;
+      }
+    } catch (IllegalStateException e) {
+      // The offline buffer is full
+      inflight.decrementAndGet();
+      if (intended >= measureStart) {
+        s.errors.incrementAndGet();
+      }
+    }
+  }
+
+  private void complete(Stats s, long intended, AsyncResult<?> ar) {
+    inflight.decrementAndGet();
+    if (intended < measureStart) {
+      return;
+    }
+    if (ar.succeeded()) {
+      s.latencies.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended));
+    } else if (ar.cause() instanceof TimeoutException) {
+      s.timeouts.incrementAndGet();
+    } else {
+      s.errors.incrementAndGet();
+    }
+  }
+
+  private void report() {
+    System.out.println(String.format("%-8s %10s %10s %8s %8s %10s %10s %10s %10s %10s",
+      "op", "count", "ops/s", "errors", "timeouts", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us"));
+    for (Stats s : stats) {
+      Histogram latencies = s.latencies;
+      System.out.println(String.format("%-8s %10d %10.1f %8d %8d %10d %10d %10d %10d %10d",
+        s.operation.name().toLowerCase(), latencies.count(), (double) latencies.count() / duration, s.errors.get(),
+        s.timeouts.get(), latencies.percentile(50), latencies.percentile(90), latencies.percentile(99), latencies.percentile(99.9), latencies.max()));
+    }
+  }
+}
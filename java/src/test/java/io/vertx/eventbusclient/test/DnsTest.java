@@ -0,0 +1,306 @@
+package io.vertx.eventbusclient.test;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.handler.codec.dns.DatagramDnsQuery;
+import io.netty.handler.codec.dns.DatagramDnsQueryDecoder;
+import io.netty.handler.codec.dns.DatagramDnsResponse;
+import io.netty.handler.codec.dns.DatagramDnsResponseEncoder;
+import io.netty.handler.codec.dns.DefaultDnsRawRecord;
+import io.netty.handler.codec.dns.DnsQuestion;
+import io.netty.handler.codec.dns.DnsRecordType;
+import io.netty.handler.codec.dns.DnsResponseCode;
+import io.netty.handler.codec.dns.DnsSection;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.parsetools.RecordParser;
+import io.vertx.eventbusclient.ConnectStrategy;
+import io.vertx.eventbusclient.EventBusClient;
+import io.vertx.eventbusclient.EventBusClientOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Tests the resolution of the hosts against a DNS server answering from a map of records and counting the queries, and
+ * the connection to hosts resolving to several addresses.
+ */
+@RunWith(VertxUnitRunner.class)
+public class DnsTest {
+
+  private static final int PORT = 7101;
+  private static final int DNS_PORT = 7153;
+  // Loopback addresses, the server only listens on the third one
+  private static final String REFUSED = "127.0.0.2";
+  private static final String LISTENING = "127.0.0.3";
+  private static final String HANGING = "127.0.0.5";
+
+  private Vertx vertx;
+  private NioEventLoopGroup dnsGroup;
+  private Channel dnsChannel;
+  private final Map<String, List<String>> records = new ConcurrentHashMap<>();
+  private final Map<String, AtomicInteger> queries = new ConcurrentHashMap<>();
+  private EventBusClientOptions options;
+
+  @Before
+  public void before() throws Exception {
+    vertx = Vertx.vertx();
+    dnsGroup = new NioEventLoopGroup(1);
+    dnsChannel = new Bootstrap()
+      .group(dnsGroup)
+      .channel(NioDatagramChannel.class)
+      .handler(new ChannelInitializer<DatagramChannel>() {
+        @Override
+        protected void initChannel(DatagramChannel ch) {
+          ch.pipeline().addLast(new DatagramDnsQueryDecoder(), new DatagramDnsResponseEncoder(), new SimpleChannelInboundHandler<DatagramDnsQuery>() {
+            @Override
+            protected void channelRead0(ChannelHandlerContext ctx, DatagramDnsQuery query) throws Exception {
+              answer(ctx, query);
+            }
+          });
+        }
+      })
+      .bind("127.0.0.1", DNS_PORT).sync().channel();
+    options = new EventBusClientOptions()
+      .setHost("bridge.test")
+      .setPort(PORT)
+      .addDnsServer("127.0.0.1:" + DNS_PORT)
+      .setAutoReconnectInterval(10);
+  }
+
+  @After
+  public void after(TestContext ctx) {
+    dnsChannel.close().syncUninterruptibly();
+    dnsGroup.shutdownGracefully();
+    vertx.close(ctx.asyncAssertSuccess());
+  }
+
+  /**
+   * Answers the A queries with the records of the name with a TTL of 60 s, and the other queries with no record.
+   */
+  private void answer(ChannelHandlerContext ctx, DatagramDnsQuery query) throws Exception {
+    DnsQuestion question = query.recordAt(DnsSection.QUESTION);
+    String name = question.name().endsWith(".") ? question.name().substring(0, question.name().length() - 1) : question.name();
+    DatagramDnsResponse response = new DatagramDnsResponse(query.recipient(), query.sender(), query.id());
+    response.addRecord(DnsSection.QUESTION, question);
+    List<String> addresses = records.get(name);
+    if (question.type() == DnsRecordType.A) {
+      queries.computeIfAbsent(name, n -> new AtomicInteger()).incrementAndGet();
+    }
+    if (addresses == null) {
+      response.setCode(DnsResponseCode.NXDOMAIN);
+    } else if (question.type() == DnsRecordType.A) {
+      for (String address : addresses) {
+        byte[] bytes = InetAddress.getByName(address).getAddress();
+        response.addRecord(DnsSection.ANSWER, new DefaultDnsRawRecord(question.name(), DnsRecordType.A, 60, Unpooled.wrappedBuffer(bytes)));
+      }
+    }
+    ctx.writeAndFlush(response);
+  }
+
+  private int queries(String name) {
+    AtomicInteger count = queries.get(name);
+    return count == null ? 0 : count.get();
+  }
+
+  /**
+   * Starts a server on the listening address calling {@code handler} with the socket and the type of each frame it
+   * receives.
+   */
+  private void startServer(TestContext ctx, BiConsumer<NetSocket, String> handler) {
+    Async listen = ctx.async();
+    vertx.createNetServer().connectHandler(so -> {
+      RecordParser parser = RecordParser.newFixed(4);
+      int[] size = { -1 };
+      parser.handler(buff -> {
+        if (size[0] == -1) {
+          size[0] = buff.getInt(0);
+          parser.fixedSizeMode(size[0]);
+        } else {
+          size[0] = -1;
+          parser.fixedSizeMode(4);
+          handler.accept(so, new JsonObject(buff).getString("type"));
+        }
+      });
+      so.handler(parser);
+    }).listen(PORT, LISTENING, ctx.asyncAssertSuccess(s -> listen.complete()));
+    listen.awaitSuccess(10000);
+  }
+
+  @Test
+  public void testCachedResolution(TestContext ctx) {
+    records.put("bridge.test", Arrays.asList(LISTENING));
+    AtomicInteger connections = new AtomicInteger();
+    Async async = ctx.async();
+    startServer(ctx, (so, type) -> {
+      // Make the client reconnect
+      so.close();
+      if (connections.incrementAndGet() == 3) {
+        async.complete();
+      }
+    });
+    EventBusClient client = EventBusClient.tcp(options);
+    client.connectedHandler(event -> {
+      event.handle(null);
+      client.send("server_addr", "hello");
+    });
+    client.connect();
+    async.awaitSuccess(10000);
+    client.close();
+    ctx.assertEquals(1, queries("bridge.test"));
+  }
+
+  @Test
+  public void testCloseReleasesResolver(TestContext ctx) {
+    records.put("bridge.test", Arrays.asList(LISTENING));
+    AtomicInteger connections = new AtomicInteger();
+    Async first = ctx.async();
+    Async second = ctx.async();
+    startServer(ctx, (so, type) -> {
+      (connections.incrementAndGet() == 1 ? first : second).complete();
+    });
+    EventBusClient client = EventBusClient.tcp(options);
+    client.connectedHandler(event -> {
+      event.handle(null);
+      client.send("server_addr", "hello");
+    });
+    client.connect();
+    first.awaitSuccess(10000);
+    // The cache goes with the resolver, connecting again queries the DNS server
+    client.close();
+    client.connect();
+    second.awaitSuccess(10000);
+    client.close();
+    ctx.assertEquals(2, queries("bridge.test"));
+  }
+
+  @Test
+  public void testMaxTimeToLive(TestContext ctx) {
+    records.put("bridge.test", Arrays.asList(LISTENING));
+    AtomicInteger connections = new AtomicInteger();
+    Async async = ctx.async();
+    startServer(ctx, (so, type) -> {
+      so.close();
+      if (connections.incrementAndGet() == 3) {
+        async.complete();
+      }
+    });
+    EventBusClient client = EventBusClient.tcp(options.setDnsCacheMaxTimeToLive(0));
+    client.connectedHandler(event -> {
+      event.handle(null);
+      client.send("server_addr", "hello");
+    });
+    client.connect();
+    async.awaitSuccess(10000);
+    client.close();
+    ctx.assertTrue(queries("bridge.test") >= 3, "Expected a query per connection instead of " + queries("bridge.test"));
+  }
+
+  @Test
+  public void testNegativeCache(TestContext ctx) {
+    AtomicInteger failures = new AtomicInteger();
+    Async async = ctx.async();
+    EventBusClient client = EventBusClient.tcp(options.setHost("missing.test").setDnsCacheNegativeTimeToLive(60));
+    client.exceptionHandler(err -> {
+      if (failures.incrementAndGet() == 3) {
+        async.complete();
+      }
+    });
+    client.connect();
+    async.awaitSuccess(10000);
+    client.close();
+    ctx.assertEquals(1, queries("missing.test"));
+  }
+
+  @Test
+  public void testSequentialAddresses(TestContext ctx) {
+    testAddresses(ctx, ConnectStrategy.SEQUENTIAL);
+  }
+
+  @Test
+  public void testHappyEyeballs(TestContext ctx) {
+    options.setHappyEyeballsDelay(50);
+    testAddresses(ctx, ConnectStrategy.HAPPY_EYEBALLS);
+  }
+
+  @Test
+  public void testHappyEyeballsHangingAddress(TestContext ctx) throws Exception {
+    // A socket that never accepts with a full backlog, the connection attempts to it hang
+    List<Socket> backlog = new ArrayList<>();
+    try (ServerSocket hanging = new ServerSocket(PORT, 1, InetAddress.getByName(HANGING))) {
+      try {
+        while (true) {
+          Socket so = new Socket();
+          backlog.add(so);
+          so.connect(hanging.getLocalSocketAddress(), 200);
+        }
+      } catch (SocketTimeoutException ignore) {
+        // Full
+      }
+      records.put("bridge.test", Arrays.asList(HANGING, LISTENING));
+      Async async = ctx.async();
+      startServer(ctx, (so, type) -> {
+        if ("send".equals(type)) {
+          async.complete();
+        }
+      });
+      options.setHappyEyeballsDelay(50).setConnectTimeout(10000);
+      EventBusClient client = EventBusClient.tcp(options.setConnectStrategy(ConnectStrategy.HAPPY_EYEBALLS).setAutoReconnect(false));
+      // Closing the hanging attempt once the other one connected must not fail the connection
+      client.exceptionHandler(ctx::fail);
+      client.connectedHandler(event -> {
+        event.handle(null);
+        client.send("server_addr", "hello");
+      });
+      client.connect();
+      async.awaitSuccess(10000);
+      client.close();
+    } finally {
+      for (Socket so : backlog) {
+        so.close();
+      }
+    }
+  }
+
+  private void testAddresses(TestContext ctx, ConnectStrategy strategy) {
+    records.put("bridge.test", Arrays.asList(REFUSED, "127.0.0.4", LISTENING));
+    Async async = ctx.async();
+    startServer(ctx, (so, type) -> {
+      if ("send".equals(type)) {
+        async.complete();
+      }
+    });
+    EventBusClient client = EventBusClient.tcp(options.setConnectStrategy(strategy).setAutoReconnect(false));
+    client.connectedHandler(event -> {
+      event.handle(null);
+      client.send("server_addr", "hello");
+    });
+    client.connect();
+    async.awaitSuccess(10000);
+    client.close();
+  }
+}
@@ -0,0 +1,50 @@
+package io.vertx.eventbusclient.test;
+
+import io.vertx.eventbusclient.ExponentialBackoff;
+import io.vertx.eventbusclient.Jitter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExponentialBackoffTest {
+
+  @Test
+  public void testNoJitter() {
+    ExponentialBackoff backoff = new ExponentialBackoff().setMinDelay(100).setMaxDelay(1000).setExponent(3).setJitter(Jitter.NONE);
+    assertEquals(100, backoff.delay(1, 0));
+    assertEquals(300, backoff.delay(2, 100));
+    assertEquals(900, backoff.delay(3, 300));
+    assertEquals(1000, backoff.delay(4, 900));
+    assertEquals(1000, backoff.delay(Integer.MAX_VALUE, 1000));
+  }
+
+  @Test
+  public void testFullJitter() {
+    ExponentialBackoff backoff = new ExponentialBackoff().setMinDelay(100).setMaxDelay(1000).setJitter(Jitter.FULL);
+    for (int attempt = 1; attempt < 10; attempt++) {
+      long bound = Math.min(1000, 100L << (attempt - 1));
+      for (int i = 0; i < 100; i++) {
+        long delay = backoff.delay(attempt, 0);
+        assertTrue(delay >= 0 && delay <= bound);
+      }
+    }
+  }
+
+  @Test
+  public void testDecorrelatedJitter() {
+    ExponentialBackoff backoff = new ExponentialBackoff().setMinDelay(100).setMaxDelay(1000).setExponent(3).setJitter(Jitter.DECORRELATED);
+    assertEquals(100, backoff.delay(1, 0));
+    long previous = 100;
+    for (int attempt = 2; attempt < 100; attempt++) {
+      long delay = backoff.delay(attempt, previous);
+      assertTrue(delay >= 100 && delay <= Math.min(1000, previous * 3));
+      previous = delay;
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidExponent() {
+    new ExponentialBackoff().setExponent(0.5);
+  }
+}
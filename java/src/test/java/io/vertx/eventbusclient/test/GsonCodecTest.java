@@ -1,14 +1,20 @@
 package io.vertx.eventbusclient.test;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.json.JsonObject;
+import io.vertx.eventbusclient.json.BodyTypeResolver;
+import io.vertx.eventbusclient.json.Envelope;
 import io.vertx.eventbusclient.json.GsonCodec;
 import io.vertx.eventbusclient.json.JsonCodec;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -35,4 +41,184 @@ public class GsonCodecTest {
     Map nested = (Map) o.get("nested");
     assertEquals("another_string_value", nested.get("string"));
   }
+
+  @Test
+  public void testDecodeMapFromBuffer() {
+    byte[] json = new JsonObject()
+      .put("string", "string_value")
+      .put("nested", new JsonObject().put("string", "another_string_value"))
+      .encode().getBytes(StandardCharsets.UTF_8);
+    ByteBuf heap = Unpooled.buffer().writeBytes(new byte[]{'x', 'x'}).writeBytes(json);
+    heap.skipBytes(2);
+    ByteBuf direct = Unpooled.directBuffer().writeBytes(json);
+    for (ByteBuf buff : new ByteBuf[]{heap, direct}) {
+      Map o = codec.decode(buff, Map.class);
+      assertEquals(2, o.size());
+      assertEquals("string_value", o.get("string"));
+      Map nested = (Map) o.get("nested");
+      assertEquals("another_string_value", nested.get("string"));
+    }
+  }
+
+  public static class Pojo {
+    public String message;
+    public int count;
+  }
+
+  private static ByteBuf buffer(JsonObject json) {
+    return Unpooled.copiedBuffer(json.encode(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testDecodeEnvelope() {
+    ByteBuf buff = buffer(new JsonObject()
+      .put("type", "message")
+      .put("address", "the_address")
+      .put("replyAddress", "the_reply_address")
+      .put("headers", new JsonObject().put("foo", "foo_value"))
+      .put("body", new JsonObject().put("message", "hello").put("count", 3))
+      .put("unknown", new JsonObject().put("ignored", true)));
+    Envelope envelope = codec.decodeEnvelope(buff, new BodyTypeResolver() {
+      @Override
+      public Class<?> bodyType(String address) {
+        assertEquals("the_address", address);
+        return Pojo.class;
+      }
+    });
+    assertEquals("message", envelope.type());
+    assertEquals("the_address", envelope.address());
+    assertEquals("the_reply_address", envelope.replyAddress());
+    assertEquals(Collections.singletonMap("foo", "foo_value"), envelope.headers());
+    Pojo body = (Pojo) envelope.body();
+    assertEquals("hello", body.message);
+    assertEquals(3, body.count);
+  }
+
+  @Test
+  public void testDecodeEnvelopeBodyBeforeAddress() {
+    ByteBuf buff = Unpooled.copiedBuffer("{\"body\":{\"message\":\"hello\",\"count\":3},\"type\":\"rec\",\"address\":\"the_address\"}", StandardCharsets.UTF_8);
+    Envelope envelope = codec.decodeEnvelope(buff, new BodyTypeResolver() {
+      @Override
+      public Class<?> bodyType(String address) {
+        assertEquals("the_address", address);
+        return Pojo.class;
+      }
+    });
+    assertEquals("rec", envelope.type());
+    assertEquals(Collections.<String, String>emptyMap(), envelope.headers());
+    assertEquals(3, ((Pojo) envelope.body()).count);
+  }
+
+  @Test
+  public void testDecodeEnvelopeScalarBodies() {
+    BodyTypeResolver generic = new BodyTypeResolver() {
+      @Override
+      public Class<?> bodyType(String address) {
+        return Object.class;
+      }
+    };
+    assertEquals("hello", codec.decodeEnvelope(buffer(new JsonObject().put("type", "message").put("address", "a").put("body", "hello")), generic).body());
+    assertEquals(null, codec.decodeEnvelope(buffer(new JsonObject().put("type", "message").put("address", "a").putNull("body")), generic).body());
+    assertEquals(4, codec.decodeEnvelope(buffer(new JsonObject().put("type", "message").put("address", "a").put("body", 4)), new BodyTypeResolver() {
+      @Override
+      public Class<?> bodyType(String address) {
+        return Integer.class;
+      }
+    }).body());
+  }
+
+  @Test
+  public void testDecodeEnvelopeBindFailure() {
+    BodyTypeResolver pojo = new BodyTypeResolver() {
+      @Override
+      public Class<?> bodyType(String address) {
+        return Pojo.class;
+      }
+    };
+    for (String json : new String[]{
+      "{\"type\":\"rec\",\"address\":\"the_address\",\"body\":[1,2],\"replyAddress\":\"the_reply_address\"}",
+      "{\"body\":\"hello\",\"type\":\"rec\",\"address\":\"the_address\",\"replyAddress\":\"the_reply_address\"}"}) {
+      Envelope envelope = codec.decodeEnvelope(Unpooled.copiedBuffer(json, StandardCharsets.UTF_8), pojo);
+      assertEquals("rec", envelope.type());
+      assertEquals("the_address", envelope.address());
+      assertEquals("the_reply_address", envelope.replyAddress());
+      assertEquals(null, envelope.body());
+      assertNotNull(envelope.bodyError());
+    }
+  }
+
+  @Test
+  public void testScanEnvelope() {
+    ByteBuf buff = Unpooled.copiedBuffer("{ \"unknown\" : [1, {\"a\": \"]}\"}], \"body\" : {\"message\":\"h\\\"ello\",\"count\":3} ,"
+      + "\"type\":\"rec\",\"address\":\"the_\\u00e9address\",\"headers\":{\"foo\":\"foo_value\",\"n\":1,\"x\":null},\"replyAddress\":null}", StandardCharsets.UTF_8);
+    Envelope envelope = codec.scanEnvelope(buff);
+    assertEquals("rec", envelope.type());
+    assertEquals("the_\u00e9address", envelope.address());
+    assertEquals(null, envelope.replyAddress());
+    assertEquals(2, envelope.headers().size());
+    assertEquals("foo_value", envelope.headers().get("foo"));
+    assertEquals("1", envelope.headers().get("n"));
+    assertEquals(null, envelope.body());
+    assertEquals("{\"message\":\"h\\\"ello\",\"count\":3}", envelope.encodedBody().toString(StandardCharsets.UTF_8));
+    Pojo body = codec.decode(envelope.encodedBody(), Pojo.class);
+    assertEquals("h\"ello", body.message);
+    assertEquals(3, body.count);
+  }
+
+  @Test
+  public void testScanEnvelopeScalarBodies() {
+    assertEquals("\"hello\"", codec.scanEnvelope(buffer(new JsonObject().put("type", "message").put("body", "hello"))).encodedBody().toString(StandardCharsets.UTF_8));
+    assertEquals("4", codec.scanEnvelope(buffer(new JsonObject().put("type", "message").put("body", 4))).encodedBody().toString(StandardCharsets.UTF_8));
+    assertEquals(null, codec.scanEnvelope(buffer(new JsonObject().put("type", "message").putNull("body"))).encodedBody());
+    assertEquals(null, codec.scanEnvelope(buffer(new JsonObject().put("type", "pong"))).encodedBody());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testScanMalformedEnvelope() {
+    codec.scanEnvelope(Unpooled.copiedBuffer("{\"type\":\"rec\",\"body\":{\"a\":1}", StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testEncodeEnvelope() {
+    ByteBuf buff = Unpooled.buffer();
+    codec.encode(buff, "send", "the_address", "the_reply_address",
+      Collections.singletonMap("foo", "foo_value"), Collections.singletonMap("string", "string_value"));
+    JsonObject json = new JsonObject(buff.toString(StandardCharsets.UTF_8));
+    assertEquals(5, json.size());
+    assertEquals("send", json.getString("type"));
+    assertEquals("the_address", json.getString("address"));
+    assertEquals("the_reply_address", json.getString("replyAddress"));
+    assertEquals(new JsonObject().put("foo", "foo_value"), json.getJsonObject("headers"));
+    assertEquals(new JsonObject().put("string", "string_value"), json.getJsonObject("body"));
+  }
+
+  @Test
+  public void testEnvelopeNonAsciiRoundTrip() {
+    // Supplementary characters at every offset so their surrogates straddle the buffers of the reader
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0;i < 1500;i++) {
+      sb.append(i % 3 == 0 ? "\u00e9" : i % 3 == 1 ? "\u20ac" : "\ud83d\ude00").append((char) ('a' + i % 26));
+    }
+    String text = sb.toString();
+    ByteBuf buff = Unpooled.buffer();
+    codec.encode(buff, "send", "the_\u00e9address", null, null, Collections.singletonMap("text", text));
+    assertEquals(text, new JsonObject(buff.toString(StandardCharsets.UTF_8)).getJsonObject("body").getString("text"));
+    Envelope envelope = codec.decodeEnvelope(buff, new BodyTypeResolver() {
+      @Override
+      public Class<?> bodyType(String address) {
+        return Map.class;
+      }
+    });
+    assertEquals("the_\u00e9address", envelope.address());
+    assertEquals(text, ((Map) envelope.body()).get("text"));
+  }
+
+  @Test
+  public void testEncodeEnvelopeWithoutOptionalFields() {
+    ByteBuf buff = Unpooled.buffer();
+    buff.writeInt(0);
+    codec.encode(buff, "ping", null, null, null, null);
+    buff.skipBytes(4);
+    assertEquals(new JsonObject().put("type", "ping"), new JsonObject(buff.toString(StandardCharsets.UTF_8)));
+  }
 }
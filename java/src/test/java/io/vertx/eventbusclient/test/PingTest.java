@@ -0,0 +1,166 @@
+package io.vertx.eventbusclient.test;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.parsetools.RecordParser;
+import io.vertx.eventbusclient.EventBusClient;
+import io.vertx.eventbusclient.EventBusClientOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Tests the pings against a server speaking the framing of the TCP bridge, so it can delay or drop the pongs.
+ */
+@RunWith(VertxUnitRunner.class)
+public class PingTest {
+
+  private Vertx vertx;
+  private EventBusClientOptions options;
+
+  @Before
+  public void before() {
+    vertx = Vertx.vertx();
+    options = new EventBusClientOptions().setPingInterval(100);
+  }
+
+  @After
+  public void after(TestContext ctx) {
+    vertx.close(ctx.asyncAssertSuccess());
+  }
+
+  /**
+   * Starts a server on a free port calling {@code handler} with the socket and the type of each frame it receives, the
+   * client options are updated with the port.
+   */
+  private void startServer(TestContext ctx, FrameHandler handler) {
+    Async listen = ctx.async();
+    vertx.createNetServer().connectHandler(so -> {
+      RecordParser parser = RecordParser.newFixed(4);
+      int[] size = { -1 };
+      parser.handler(buff -> {
+        if (size[0] == -1) {
+          size[0] = buff.getInt(0);
+          parser.fixedSizeMode(size[0]);
+        } else {
+          size[0] = -1;
+          parser.fixedSizeMode(4);
+          handler.handle(so, new JsonObject(buff).getString("type"));
+        }
+      });
+      so.handler(parser);
+    }).listen(0, ctx.asyncAssertSuccess(s -> {
+      options.setPort(s.actualPort());
+      listen.complete();
+    }));
+    listen.awaitSuccess(10000);
+  }
+
+  private static void pong(NetSocket so) {
+    Buffer frame = new JsonObject().put("type", "pong").toBuffer();
+    so.write(Buffer.buffer().appendInt(frame.length()).appendBuffer(frame));
+  }
+
+  @Test
+  public void testRoundTripTime(TestContext ctx) {
+    Async async = ctx.async();
+    AtomicInteger pings = new AtomicInteger();
+    startServer(ctx, (so, type) -> {
+      if ("ping".equals(type)) {
+        // Reply after 50ms
+        vertx.setTimer(50, id -> pong(so));
+        if (pings.incrementAndGet() == 3) {
+          vertx.setTimer(100, id -> async.complete());
+        }
+      }
+    });
+    EventBusClient client = EventBusClient.tcp(options);
+    ctx.assertEquals(-1L, client.roundTripTime());
+    client.connect();
+    async.awaitSuccess(10000);
+    long rtt = client.roundTripTime();
+    ctx.assertTrue(rtt >= 50000 && rtt < 1000000, "Unexpected round trip time " + rtt);
+    client.close();
+  }
+
+  @Test
+  public void testLatePongs(TestContext ctx) {
+    Async async = ctx.async();
+    AtomicInteger pings = new AtomicInteger();
+    startServer(ctx, (so, type) -> {
+      if ("ping".equals(type)) {
+        // Reply in order after 250ms, the client sends two other pings meanwhile
+        vertx.setTimer(250, id -> pong(so));
+        if (pings.incrementAndGet() == 5) {
+          vertx.setTimer(300, id -> async.complete());
+        }
+      }
+    });
+    EventBusClient client = EventBusClient.tcp(options);
+    client.connect();
+    async.awaitSuccess(10000);
+    long rtt = client.roundTripTime();
+    ctx.assertTrue(rtt >= 250000 && rtt < 1000000, "Unexpected round trip time " + rtt);
+    client.close();
+  }
+
+  @Test
+  public void testMissedPongs(TestContext ctx) {
+    Async async = ctx.async();
+    startServer(ctx, (so, type) -> {
+      // Never reply
+    });
+    options.setMaxMissedPongs(2).setAutoReconnect(false);
+    EventBusClient client = EventBusClient.tcp(options);
+    long start = System.nanoTime();
+    client.closeHandler(v -> {
+      // A first ping after 100ms, then two missed pongs
+      ctx.assertTrue(System.nanoTime() - start >= 300_000_000L);
+      client.close();
+      async.complete();
+    });
+    client.connect();
+  }
+
+  @Test
+  public void testPingOnlyWhenIdle(TestContext ctx) throws Exception {
+    AtomicInteger pings = new AtomicInteger();
+    AtomicBoolean busy = new AtomicBoolean(true);
+    Async idle = ctx.async();
+    startServer(ctx, (so, type) -> {
+      if ("ping".equals(type)) {
+        ctx.assertFalse(busy.get(), "Ping sent while busy");
+        pong(so);
+        if (pings.incrementAndGet() == 2) {
+          idle.complete();
+        }
+      }
+    });
+    options.setPingOnlyWhenIdle(true);
+    EventBusClient client = EventBusClient.tcp(options);
+    client.connect();
+    // Send a message every 20ms for 500ms, no ping is sent meanwhile
+    long end = System.currentTimeMillis() + 500;
+    while (System.currentTimeMillis() < end) {
+      client.send("server_addr", "hello");
+      Thread.sleep(20);
+    }
+    busy.set(false);
+    idle.awaitSuccess(10000);
+    client.close();
+  }
+
+  private interface FrameHandler {
+    void handle(NetSocket so, String type);
+  }
+}
@@ -1,5 +1,6 @@
 package io.vertx.eventbusclient.test;
 
+import io.vertx.core.Context;
 import io.vertx.core.Vertx;
 import io.vertx.core.eventbus.ReplyException;
 import io.vertx.core.eventbus.ReplyFailure;
@@ -8,12 +9,21 @@ import io.vertx.core.net.JksOptions;
 import io.vertx.core.net.NetServerOptions;
 import io.vertx.eventbusclient.AsyncResult;
 import io.vertx.eventbusclient.DeliveryOptions;
+import io.vertx.eventbusclient.Endpoint;
 import io.vertx.eventbusclient.EventBusClient;
 import io.vertx.eventbusclient.EventBusClientOptions;
+import io.vertx.eventbusclient.ExponentialBackoff;
 import io.vertx.eventbusclient.Handler;
+import io.vertx.eventbusclient.HandlerExecutor;
+import io.vertx.eventbusclient.Jitter;
+import io.vertx.eventbusclient.LatencySnapshot;
 import io.vertx.eventbusclient.Message;
 import io.vertx.eventbusclient.MessageConsumer;
+import io.vertx.eventbusclient.MessagePublisher;
+import io.vertx.eventbusclient.OverflowPolicy;
 import io.vertx.eventbusclient.ProxyType;
+import io.vertx.eventbusclient.ReconnectMetrics;
+import io.vertx.eventbusclient.RegistrationProgress;
 import io.vertx.ext.bridge.BridgeOptions;
 import io.vertx.ext.bridge.PermittedOptions;
 import io.vertx.ext.eventbus.bridge.tcp.TcpEventBusBridge;
@@ -23,11 +33,35 @@ import io.vertx.ext.unit.junit.VertxUnitRunner;
 import io.vertx.test.proxy.SocksProxy;
 import org.junit.*;
 import org.junit.runner.RunWith;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -114,6 +148,250 @@ public class TcpBusTest {
     client.send("server_addr", Collections.singletonMap("message", "hello"));
   }
 
+  @Test
+  public void testSendFromSeveralThreads(final TestContext ctx) throws Exception {
+    testSendFromSeveralThreads(ctx, 0);
+  }
+
+  @Test
+  public void testSendFromSeveralThreadsWithLinger(final TestContext ctx) throws Exception {
+    testSendFromSeveralThreads(ctx, 1000);
+  }
+
+  private void testSendFromSeveralThreads(final TestContext ctx, int linger) throws Exception {
+    final int numThreads = 4;
+    final int numMessages = 500;
+    final Async async = ctx.async(numThreads * numMessages);
+    baseOptions.setMaxWriteBatchSize(16).setMaxWriteLinger(linger);
+    final int[] expected = new int[numThreads];
+    EventBusClient client = client(ctx);
+    vertx.eventBus().<JsonObject>consumer("server_addr", msg -> {
+      int thread = msg.body().getInteger("thread");
+      ctx.assertEquals(expected[thread]++, msg.body().getInteger("seq"));
+      async.countDown();
+    });
+    async.handler(v -> client.close());
+    client.connectedHandler(event -> {
+      for (int i = 0;i < numThreads;i++) {
+        final int thread = i;
+        new Thread(() -> {
+          for (int j = 0;j < numMessages;j++) {
+            Map<String, Object> body = new HashMap<>();
+            body.put("thread", thread);
+            body.put("seq", j);
+            client.send("server_addr", body);
+          }
+        }).start();
+      }
+      event.handle(null);
+    });
+    client.connect();
+  }
+
+  @Test
+  public void testSendFromSeveralThreadsWhileDisconnecting(final TestContext ctx) throws Exception {
+    final int numThreads = 4;
+    final Async async = ctx.async(numThreads);
+    final AtomicBoolean done = new AtomicBoolean();
+    EventBusClient client = client(ctx);
+    async.handler(v -> client.close());
+    client.connectedHandler(event -> {
+      event.handle(null);
+      if (done.get()) {
+        return;
+      }
+      for (int i = 0;i < numThreads;i++) {
+        new Thread(() -> {
+          try {
+            while (!done.get()) {
+              // Sending while the connection closes must queue the messages rather than fail
+              client.send("server_addr", Collections.singletonMap("message", "hello"));
+            }
+            async.countDown();
+          } catch (Throwable t) {
+            ctx.fail(t);
+          }
+        }).start();
+      }
+      vertx.runOnContext(v1 -> stopBridge(ctx, v2 -> vertx.setTimer(100, id -> done.set(true))));
+    });
+    client.connect();
+  }
+
+  @Test
+  public void testSendWriteHandler(final TestContext ctx) {
+    final Async async = ctx.async(2);
+    EventBusClient client = client(ctx);
+    vertx.eventBus().consumer("server_addr", msg -> {
+      ctx.assertEquals("hello", msg.body());
+      async.countDown();
+    });
+    client.send("server_addr", "hello", new DeliveryOptions(), ar -> {
+      ctx.assertTrue(ar.succeeded());
+      async.countDown();
+    });
+    async.handler(v -> client.close());
+  }
+
+  @Test
+  public void testWriteQueueFull(final TestContext ctx) throws Exception {
+    final Async async = ctx.async();
+    baseOptions.setWriteBufferHighWaterMark(1024).setWriteBufferLowWaterMark(512);
+    EventBusClient client = client(ctx);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0;i < 1024;i++) {
+      sb.append('a');
+    }
+    String body = sb.toString();
+    client.drainHandler(v -> {
+      ctx.assertFalse(client.writeQueueFull());
+      client.close();
+      async.complete();
+    });
+    client.connectedHandler(event -> {
+      event.handle(null);
+      new Thread(() -> {
+        int count = 0;
+        while (!client.writeQueueFull()) {
+          ctx.assertTrue(count++ < 100000);
+          client.send("server_addr", body);
+        }
+      }).start();
+    });
+    client.connect();
+  }
+
+  @Test
+  public void testOfflineBufferDropOldest(final TestContext ctx) {
+    final Async async = ctx.async(3);
+    baseOptions.setOfflineBufferMaxMessages(3).setAutoReconnectInterval(100);
+    EventBusClient client = client(ctx);
+    AtomicInteger expected = new AtomicInteger(7);
+    vertx.eventBus().<Integer>consumer("server_addr", msg -> {
+      ctx.assertEquals(expected.getAndIncrement(), msg.body());
+      countDownAndCloseClient(async, client);
+    });
+    whileDisconnected(ctx, client, restart -> {
+      for (int i = 0;i < 10;i++) {
+        client.send("server_addr", i);
+      }
+      restart.run();
+    });
+  }
+
+  @Test
+  public void testOfflineBufferReject(final TestContext ctx) {
+    final Async async = ctx.async();
+    baseOptions.setOfflineBufferMaxMessages(1).setOfflineBufferOverflowPolicy(OverflowPolicy.REJECT).setAutoReconnectInterval(100);
+    EventBusClient client = client(ctx);
+    vertx.eventBus().<Integer>consumer("server_addr", msg -> {
+      ctx.assertEquals(0, msg.body());
+      client.close();
+      async.complete();
+    });
+    whileDisconnected(ctx, client, restart -> {
+      client.send("server_addr", 0);
+      try {
+        client.send("server_addr", 1);
+        ctx.fail();
+      } catch (IllegalStateException expected) {
+      }
+      restart.run();
+    });
+  }
+
+  @Test
+  public void testOfflineBufferDropsExpiredRequests(final TestContext ctx) {
+    final Async async = ctx.async(2);
+    baseOptions.setTimeoutWheelTick(10).setAutoReconnectInterval(100);
+    EventBusClient client = client(ctx);
+    vertx.eventBus().consumer("server_addr", msg -> {
+      ctx.assertEquals("after", msg.body());
+      countDownAndCloseClient(async, client);
+    });
+    whileDisconnected(ctx, client, restart -> {
+      client.request("server_addr", "before", new DeliveryOptions().setSendTimeout(50), ar -> {
+        ctx.assertTrue(ar.failed());
+        ctx.assertTrue(ar.cause() instanceof TimeoutException);
+        client.send("server_addr", "after");
+        restart.run();
+        countDownAndCloseClient(async, client);
+      });
+    });
+  }
+
+  @Test
+  public void testOutboxSurvivesRestart(final TestContext ctx) throws Exception {
+    final Async async = ctx.async(3);
+    String outbox = Files.createTempDirectory("outbox").toString();
+    baseOptions.setOutboxPath(outbox).setAutoReconnect(false);
+    AtomicInteger expected = new AtomicInteger();
+    stopBridge(ctx, v -> {
+      EventBusClient client = client(ctx);
+      for (int i = 0;i < 3;i++) {
+        client.send("server_addr", i);
+      }
+      client.close();
+      startBridge(ctx, v2 -> {
+        EventBusClient restarted = client(ctx);
+        vertx.eventBus().<Integer>consumer("server_addr", msg -> {
+          ctx.assertEquals(expected.getAndIncrement(), msg.body());
+          countDownAndCloseClient(async, restarted);
+        });
+        restarted.connect();
+      });
+    });
+  }
+
+  @Test
+  public void testOutboxSegments(final TestContext ctx) throws Exception {
+    final int num = 20;
+    final Async async = ctx.async(num);
+    String outbox = Files.createTempDirectory("outbox").toString();
+    baseOptions.setOutboxPath(outbox).setOutboxSegmentSize(1024).setAutoReconnectInterval(100);
+    EventBusClient client = client(ctx);
+    AtomicInteger expected = new AtomicInteger();
+    vertx.eventBus().<JsonObject>consumer("server_addr", msg -> {
+      ctx.assertEquals(expected.getAndIncrement(), msg.body().getInteger("seq"));
+      countDownAndCloseClient(async, client);
+    });
+    StringBuilder padding = new StringBuilder();
+    for (int i = 0;i < 200;i++) {
+      padding.append('a');
+    }
+    whileDisconnected(ctx, client, restart -> {
+      for (int i = 0;i < num;i++) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("seq", i);
+        body.put("padding", padding.toString());
+        client.send("server_addr", body);
+      }
+      ctx.assertTrue(new File(outbox).list((dir, name) -> name.endsWith(".segment")).length > 1);
+      restart.run();
+    });
+  }
+
+  /**
+   * Connects the client, stops the bridge and calls {@code handler} once the client is disconnected with a task
+   * restarting the bridge.
+   */
+  private void whileDisconnected(TestContext ctx, EventBusClient client, Consumer<Runnable> handler) {
+    AtomicBoolean disconnected = new AtomicBoolean();
+    CompletableFuture<Void> stopped = new CompletableFuture<>();
+    client.closeHandler(v -> {
+      if (disconnected.compareAndSet(false, true)) {
+        handler.accept(() -> stopped.thenRun(() -> startBridge(ctx, x -> {})));
+      }
+    });
+    client.connectedHandler(event -> {
+      event.handle(null);
+      if (!disconnected.get()) {
+        stopBridge(ctx, v -> stopped.complete(null));
+      }
+    });
+    client.connect();
+  }
+
   @Test
   public void testSendNullBody(final TestContext ctx) {
     final Async async = ctx.async();
@@ -180,6 +458,338 @@ public class TcpBusTest {
     client.send("publish_to_client", Collections.emptyMap());
   }
 
+  @Test
+  public void testSubscribeTyped(final TestContext ctx) throws Exception {
+    final Async async = ctx.async(2);
+    final EventBusClient client = client(ctx);
+    client.consumer("client_addr_string", String.class, msg -> {
+      ctx.assertEquals("hello", msg.body());
+      countDownAndCloseClient(async, client);
+    });
+    client.consumer("client_addr_pojo", Greeting.class, msg -> {
+      ctx.assertEquals("hello", msg.body().message);
+      ctx.assertEquals(3, msg.body().count);
+      countDownAndCloseClient(async, client);
+    });
+    vertx.eventBus().consumer("send_to_client", msg -> {
+      vertx.eventBus().send("client_addr_string", "hello");
+      vertx.eventBus().send("client_addr_pojo", new JsonObject().put("message", "hello").put("count", 3));
+    });
+    client.send("send_to_client", Collections.emptyMap());
+  }
+
+  @Test
+  public void testSubscribeBindFailure(final TestContext ctx) throws Exception {
+    final Async async = ctx.async(2);
+    final EventBusClient client = client(ctx);
+    client.exceptionHandler(err -> async.countDown());
+    client.consumer("client_addr_pojo", Greeting.class, msg -> {
+      ctx.assertEquals("hello", msg.body().message);
+      countDownAndCloseClient(async, client);
+    });
+    vertx.eventBus().consumer("send_to_client", msg -> {
+      // Cannot be bound to a greeting, the next message is still delivered
+      vertx.eventBus().send("client_addr_pojo", "hello");
+      vertx.eventBus().send("client_addr_pojo", new JsonObject().put("message", "hello").put("count", 3));
+    });
+    client.send("send_to_client", Collections.emptyMap());
+  }
+
+  @Test
+  public void testLazyMessageDecoding(final TestContext ctx) throws Exception {
+    final Async async = ctx.async(3);
+    baseOptions.setLazyMessageDecoding(true);
+    final EventBusClient client = client(ctx);
+    client.consumer("client_addr", Greeting.class, msg -> {
+      ctx.assertEquals("foo_value", msg.headers().get("foo"));
+      ctx.assertEquals("hello", msg.body().message);
+      ctx.assertTrue(msg.body() == msg.body());
+      countDownAndCloseClient(async, client);
+    });
+    client.consumer("client_addr", msg -> {
+      ctx.assertEquals("hello", ((Map) msg.body()).get("message"));
+      countDownAndCloseClient(async, client);
+    });
+    vertx.eventBus().consumer("server_addr", msg -> msg.reply("the_response"));
+    client.request("server_addr", Collections.emptyMap(), String.class, reply -> {
+      ctx.assertEquals("the_response", reply.result().body());
+      countDownAndCloseClient(async, client);
+    });
+    vertx.eventBus().consumer("send_to_client", msg -> {
+      vertx.eventBus().send("client_addr_without_consumer", new JsonObject().put("message", "dropped"));
+      vertx.eventBus().send("client_addr", new JsonObject().put("message", "hello").put("count", 3),
+        new io.vertx.core.eventbus.DeliveryOptions().addHeader("foo", "foo_value"));
+    });
+    client.send("send_to_client", Collections.emptyMap());
+  }
+
+  public static class Greeting {
+    public String message;
+    public int count;
+  }
+
+  @Test
+  public void testConsumerFlowControl(final TestContext ctx) throws Exception {
+    final int num = 10;
+    final Async async = ctx.async();
+    final EventBusClient client = client(ctx);
+    final List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+    final AtomicReference<MessageConsumer<Integer>> consumer = new AtomicReference<>();
+    consumer.set(client.consumer("client_addr", Integer.class, msg -> {
+      received.add(msg.body());
+      if (received.size() == num) {
+        ctx.assertEquals(IntStream.range(0, num).boxed().collect(Collectors.toList()), received);
+        client.close();
+        async.complete();
+      }
+    }).setMaxBufferedMessages(4).pause());
+    vertx.eventBus().consumer("send_to_client", msg -> {
+      for (int i = 0;i < num;i++) {
+        vertx.eventBus().send("client_addr", i);
+      }
+      vertx.setTimer(100, id -> {
+        ctx.assertTrue(received.isEmpty());
+        consumer.get().fetch(3);
+        vertx.setTimer(100, id2 -> {
+          ctx.assertEquals(Arrays.asList(0, 1, 2), new ArrayList<>(received));
+          consumer.get().resume();
+        });
+      });
+    });
+    client.send("send_to_client", Collections.emptyMap());
+  }
+
+  @Test
+  public void testMessagePublisher(final TestContext ctx) throws Exception {
+    final int num = 10;
+    final Async async = ctx.async();
+    final EventBusClient client = client(ctx);
+    final List<String> received = Collections.synchronizedList(new ArrayList<>());
+    // Vert.x 4.2 schedules the task of a timer before registering its id, a short timer set from a non Vert.x thread
+    // like the client event loop can fire in between and be dropped, set them from a Vert.x context instead
+    final Context context = vertx.getOrCreateContext();
+    new MessagePublisher<>(client, "client_addr", String.class).subscribe(new Subscriber<Message<String>>() {
+      Subscription subscription;
+      @Override
+      public void onSubscribe(Subscription s) {
+        subscription = s;
+        s.request(1);
+      }
+      @Override
+      public void onNext(Message<String> msg) {
+        received.add(msg.body());
+        if (received.size() == num) {
+          subscription.cancel();
+          client.close();
+          async.complete();
+        } else {
+          // Request the next message later
+          context.runOnContext(v -> vertx.setTimer(1, id -> subscription.request(1)));
+        }
+      }
+      @Override
+      public void onError(Throwable t) {
+        ctx.fail(t);
+      }
+      @Override
+      public void onComplete() {
+      }
+    });
+    vertx.eventBus().consumer("send_to_client", msg -> {
+      for (int i = 0;i < num;i++) {
+        vertx.eventBus().send("client_addr", "msg-" + i);
+      }
+    });
+    client.send("send_to_client", Collections.emptyMap());
+  }
+
+  @Test
+  public void testConsumers(final TestContext ctx) throws Exception {
+    Async async = ctx.async();
+    baseOptions.setRegistrationBatchSize(3);
+    EventBusClient client = client(ctx);
+    List<String> addresses = IntStream.range(0, 10).mapToObj(i -> "client_addr_" + i).collect(Collectors.toList());
+    Set<String> received = ConcurrentHashMap.newKeySet();
+    client.connectedHandler(done -> {
+      done.handle(null);
+      // Registered in batches while connected
+      List<MessageConsumer<String>> consumers = client.consumers(addresses, String.class, msg -> {
+        if (received.add(msg.address()) && received.size() == addresses.size()) {
+          client.close();
+          async.complete();
+        }
+      });
+      ctx.assertEquals(addresses.size(), consumers.size());
+      client.send("publish_to_clients", "hello");
+    });
+    // Publish until all the addresses are registered
+    vertx.eventBus().consumer("publish_to_clients", msg -> {
+      vertx.setPeriodic(20, id -> {
+        if (async.isCompleted()) {
+          vertx.cancelTimer(id);
+        } else {
+          addresses.forEach(address -> vertx.eventBus().publish(address, "hello"));
+        }
+      });
+    });
+    client.connect();
+  }
+
+  @Test
+  public void testRegistrationProgress(final TestContext ctx) throws Exception {
+    Async async = ctx.async();
+    baseOptions.setRegistrationBatchSize(2).setRegistrationRate(20);
+    EventBusClient client = client(ctx);
+    // A closed client does not connect when a consumer is added, so all the addresses are registered after connecting
+    client.close();
+    List<RegistrationProgress> progress = Collections.synchronizedList(new ArrayList<>());
+    long start = System.nanoTime();
+    client.registrationHandler(p -> {
+      progress.add(p);
+      if (p.isComplete()) {
+        // 4 addresses after the first batch at 20 per second
+        ctx.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+        ctx.assertEquals(2, progress.get(0).registered());
+        for (int i = 1; i < progress.size(); i++) {
+          ctx.assertTrue(progress.get(i).registered() > progress.get(i - 1).registered());
+        }
+        ctx.assertEquals(6, p.total());
+        client.send("publish_to_clients", "hello");
+      }
+    });
+    Set<String> received = ConcurrentHashMap.newKeySet();
+    for (int i = 0; i < 6; i++) {
+      client.consumer("client_addr_" + i, String.class, msg -> {
+        if (received.add(msg.address()) && received.size() == 6) {
+          client.close();
+          async.complete();
+        }
+      });
+    }
+    vertx.eventBus().consumer("publish_to_clients", msg -> {
+      for (int i = 0; i < 6; i++) {
+        vertx.eventBus().publish("client_addr_" + i, "hello");
+      }
+    });    client.connect();
+  }
+
+  @Test
+  public void testConsumerStripedExecutor(final TestContext ctx) throws Exception {
+    final Async async = ctx.async(2);
+    HandlerExecutor executor = HandlerExecutor.striped(2);
+    EventBusClient client = client(ctx);
+    CountDownLatch latch = new CountDownLatch(1);
+    // Addresses running on different stripes
+    client.consumer("client_addr_0", String.class, executor, msg -> {
+      ctx.assertTrue(Thread.currentThread().getName().startsWith("vertx-eventbus-client-handler-"));
+      try {
+        // Block until the other consumer got its message
+        ctx.assertTrue(latch.await(10, TimeUnit.SECONDS));
+      } catch (InterruptedException e) {
+        ctx.fail(e);
+      }
+      countDownAndCloseClient(async, client);
+    });
+    client.consumer("client_addr_1", String.class, executor, msg -> {
+      latch.countDown();
+      countDownAndCloseClient(async, client);
+    });
+    async.handler(v -> executor.close());
+    vertx.eventBus().consumer("send_to_client", msg -> {
+      vertx.eventBus().send("client_addr_0", "hello");
+      vertx.eventBus().send("client_addr_1", "hello");
+    });
+    client.send("send_to_client", Collections.emptyMap());
+  }
+
+  @Test
+  public void testConsumerOrderedExecutor(final TestContext ctx) throws Exception {
+    final int num = 100;
+    final Async async = ctx.async(num);
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    EventBusClient client = client(ctx);
+    AtomicInteger expected = new AtomicInteger();
+    client.consumer("client_addr", Integer.class, HandlerExecutor.ordered(pool), msg -> {
+      ctx.assertEquals(expected.getAndIncrement(), msg.body());
+      countDownAndCloseClient(async, client);
+    });
+    async.handler(v -> pool.shutdown());
+    vertx.eventBus().consumer("send_to_client", msg -> {
+      for (int i = 0;i < num;i++) {
+        vertx.eventBus().send("client_addr", i);
+      }
+    });
+    client.send("send_to_client", Collections.emptyMap());
+  }
+
+  @Test
+  public void testConsumerOrderedExecutorRejection(final TestContext ctx) throws Exception {
+    final Async async = ctx.async(2);
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    AtomicBoolean reject = new AtomicBoolean(true);
+    Executor executor = task -> {
+      if (reject.getAndSet(false)) {
+        throw new RejectedExecutionException();
+      }
+      pool.execute(task);
+    };
+    EventBusClient client = client(ctx);
+    client.exceptionHandler(err -> {
+      ctx.assertTrue(err instanceof RejectedExecutionException);
+      countDownAndCloseClient(async, client);
+    });
+    // The consumer is scheduled again after the rejection
+    client.consumer("client_addr", Integer.class, HandlerExecutor.ordered(executor), msg -> {
+      ctx.assertEquals(1, msg.body());
+      countDownAndCloseClient(async, client);
+    });
+    async.handler(v -> pool.shutdown());
+    vertx.eventBus().consumer("send_to_client", msg -> {
+      vertx.eventBus().send("client_addr", 0);
+      vertx.eventBus().send("client_addr", 1);
+    });
+    client.send("send_to_client", Collections.emptyMap());
+  }
+
+  @Test
+  public void testRequestExecutor(final TestContext ctx) throws Exception {
+    final Async async = ctx.async();
+    ExecutorService pool = Executors.newSingleThreadExecutor(r -> new Thread(r, "reply-thread"));
+    vertx.eventBus().consumer("server_addr", msg -> msg.reply("the_response"));
+    EventBusClient client = client(ctx);
+    client.request("server_addr", "hello", new DeliveryOptions(), String.class, HandlerExecutor.of(pool), ar -> {
+      ctx.assertTrue(ar.succeeded());
+      ctx.assertEquals("the_response", ar.result().body());
+      ctx.assertEquals("reply-thread", Thread.currentThread().getName());
+      client.close();
+      pool.shutdown();
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testVirtualThreadsExecutor(final TestContext ctx) throws Exception {
+    if (!HandlerExecutor.isVirtualThreadsSupported()) {
+      try {
+        HandlerExecutor.virtualThreads();
+        ctx.fail();
+      } catch (UnsupportedOperationException expected) {
+      }
+      return;
+    }
+    final Async async = ctx.async();
+    HandlerExecutor executor = HandlerExecutor.virtualThreads();
+    EventBusClient client = client(ctx);
+    client.consumer("client_addr", String.class, executor, msg -> {
+      ctx.assertEquals("hello", msg.body());
+      client.close();
+      executor.close();
+      async.complete();
+    });
+    vertx.eventBus().consumer("send_to_client", msg -> vertx.eventBus().send("client_addr", "hello"));
+    client.send("send_to_client", Collections.emptyMap());
+  }
+
   @Test
   public void testUnsubscribe(final TestContext ctx) throws Exception {
     Async async = ctx.async();
@@ -212,6 +822,31 @@ public class TcpBusTest {
     client.send("send_to_client_fail", Collections.emptyMap());
   }
 
+  @Test
+  public void testUnsubscribeDuringDispatch(final TestContext ctx) throws Exception {
+    Async async = ctx.async();
+    EventBusClient client = client(ctx);
+    AtomicReference<MessageConsumer<Object>> second = new AtomicReference<>();
+    MessageConsumer<Object> first = client.consumer("client_addr", msg -> second.get().unregister());
+    second.set(client.consumer("client_addr", msg -> ctx.fail("Unregistered by the first handler")));
+    AtomicReference<MessageConsumer<Object>> third = new AtomicReference<>();
+    third.set(client.consumer("client_addr", msg -> {
+      // Unregister all the handlers, then register again at the server
+      first.unregister();
+      third.get().unregister();
+      client.consumer("client_addr", again -> {
+        ctx.assertEquals("again", again.body());
+        client.close();
+        async.complete();
+      });
+      client.send("publish_to_client", "again");
+    }));
+    vertx.eventBus().consumer("publish_to_client", msg -> {
+      vertx.eventBus().publish("client_addr", msg.body());
+    });
+    client.send("publish_to_client", "hello");
+  }
+
   @Test
   public void testReply(final TestContext ctx) {
     final Async async = ctx.async();
@@ -230,6 +865,187 @@ public class TcpBusTest {
     });
   }
 
+  @Test
+  public void testReplyTyped(final TestContext ctx) {
+    final Async async = ctx.async();
+    vertx.eventBus().consumer("server_addr", msg -> {
+      msg.reply(42L);
+    });
+    EventBusClient client = client(ctx);
+    client.request("server_addr", Collections.singletonMap("message", "hello"), Long.class, reply -> {
+      ctx.assertTrue(reply.succeeded());
+      ctx.assertEquals(42L, reply.result().body());
+      client.close();
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testReplyBindFailure(final TestContext ctx) {
+    final Async async = ctx.async();
+    vertx.eventBus().consumer("server_addr", msg -> {
+      msg.reply("not_a_number");
+    });
+    EventBusClient client = client(ctx);
+    client.request("server_addr", Collections.singletonMap("message", "hello"), Long.class, reply -> {
+      ctx.assertTrue(reply.failed());
+      client.close();
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testConcurrentRequests(final TestContext ctx) {
+    final int num = 1000;
+    final Async async = ctx.async(num);
+    vertx.eventBus().<JsonObject>consumer("server_addr", msg -> {
+      msg.reply(msg.body().getInteger("value"));
+    });
+    EventBusClient client = client(ctx);
+    for (int i = 0;i < num;i++) {
+      final int value = i;
+      client.request("server_addr", Collections.singletonMap("value", value), Integer.class, reply -> {
+        ctx.assertTrue(reply.succeeded());
+        ctx.assertEquals(value, reply.result().body());
+        async.countDown();
+      });
+    }
+    async.handler(v -> client.close());
+  }
+
+  @Test
+  public void testRequestTimeout(final TestContext ctx) {
+    final Async async = ctx.async();
+    baseOptions.setTimeoutWheelTick(10).setTimeoutWheelSize(4);
+    vertx.eventBus().consumer("server_addr", msg -> {
+      // Never reply
+    });
+    EventBusClient client = client(ctx);
+    long now = System.currentTimeMillis();
+    client.request("server_addr", Collections.emptyMap(), new DeliveryOptions().setSendTimeout(200), reply -> {
+      ctx.assertTrue(reply.failed());
+      ctx.assertTrue(reply.cause() instanceof TimeoutException);
+      ctx.assertTrue(System.currentTimeMillis() - now >= 200);
+      ctx.assertEquals(0, client.pendingTimeouts());
+      client.close();
+      async.complete();
+    });
+    ctx.assertEquals(1, client.pendingTimeouts());
+  }
+
+  @Test
+  public void testRequestTimeoutAfterIdle(final TestContext ctx) {
+    final Async async = ctx.async();
+    baseOptions.setTimeoutWheelTick(10).setTimeoutWheelSize(4);
+    vertx.eventBus().consumer("server_addr", msg -> {
+      // Never reply
+    });
+    EventBusClient client = client(ctx);
+    client.request("server_addr", Collections.emptyMap(), new DeliveryOptions().setSendTimeout(50), reply1 -> {
+      ctx.assertTrue(reply1.failed());
+      // The wheel stops once empty, the next request starts it again
+      vertx.setTimer(200, id -> {
+        long now = System.currentTimeMillis();
+        client.request("server_addr", Collections.emptyMap(), new DeliveryOptions().setSendTimeout(50), reply2 -> {
+          ctx.assertTrue(reply2.cause() instanceof TimeoutException);
+          ctx.assertTrue(System.currentTimeMillis() - now >= 50);
+          client.close();
+          async.complete();
+        });
+      });
+    });
+  }
+
+  @Test
+  public void testReplyCancelsTimeout(final TestContext ctx) {
+    final Async async = ctx.async();
+    vertx.eventBus().consumer("server_addr", msg -> msg.reply("pong"));
+    EventBusClient client = client(ctx);
+    client.request("server_addr", "ping", String.class, reply -> {
+      ctx.assertTrue(reply.succeeded());
+      ctx.assertEquals(0, client.pendingTimeouts());
+      client.close();
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testRequestCompletionStage(final TestContext ctx) {
+    final Async async = ctx.async();
+    vertx.eventBus().<JsonObject>consumer("server_addr", msg -> msg.reply(msg.body().getInteger("value") * 2));
+    EventBusClient client = client(ctx);
+    CompletionStage<Message<Number>> first = client.requestAsync("server_addr", Collections.singletonMap("value", 1), new DeliveryOptions());
+    CompletionStage<Message<Integer>> second = client.requestAsync("server_addr", Collections.singletonMap("value", 2), new DeliveryOptions(), Integer.class, null);
+    first.thenCombine(second, (r1, r2) -> r1.body().intValue() + r2.body()).whenComplete((sum, err) -> {
+      ctx.assertNull(err);
+      ctx.assertEquals(6, sum);
+      client.close();
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testRequestAsyncExecutor(final TestContext ctx) {
+    final Async async = ctx.async();
+    vertx.eventBus().consumer("server_addr", msg -> msg.reply("the_response"));
+    EventBusClient client = client(ctx);
+    ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "the-executor"));
+    client.requestAsync("server_addr", "hello", new DeliveryOptions(), String.class, executor).whenComplete((reply, err) -> {
+      ctx.assertNull(err);
+      ctx.assertEquals("the_response", reply.body());
+      ctx.assertEquals("the-executor", Thread.currentThread().getName());
+      executor.shutdown();
+      client.close();
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testRequestAsyncRejectedExecution(final TestContext ctx) {
+    final Async async = ctx.async();
+    vertx.eventBus().consumer("server_addr", msg -> msg.reply("the_response"));
+    EventBusClient client = client(ctx);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.shutdown();
+    client.requestAsync("server_addr", "hello", new DeliveryOptions(), String.class, executor).whenComplete((reply, err) -> {
+      ctx.assertTrue(err instanceof RejectedExecutionException);
+      client.close();
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testRequestCompletionStageFailure(final TestContext ctx) {
+    final Async async = ctx.async();
+    vertx.eventBus().consumer("server_addr", msg -> msg.fail(123, "the_message"));
+    EventBusClient client = client(ctx);
+    client.requestAsync("server_addr", "hello", new DeliveryOptions()).whenComplete((reply, err) -> {
+      ctx.assertNotNull(err);
+      ctx.assertEquals("the_message", err.getMessage());
+      client.close();
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testCancelRequest(final TestContext ctx) {
+    final Async async = ctx.async();
+    EventBusClient client = client(ctx);
+    vertx.eventBus().consumer("server_addr", msg -> {
+      // Reply after the request is cancelled
+      vertx.setTimer(100, id -> msg.reply("late"));
+    });
+    CompletableFuture<Message<Object>> future = client.requestAsync("server_addr", "hello", new DeliveryOptions()).toCompletableFuture();
+    ctx.assertEquals(1, client.pendingTimeouts());
+    ctx.assertTrue(future.cancel(false));
+    ctx.assertEquals(0, client.pendingTimeouts());
+    vertx.setTimer(300, id -> {
+      ctx.assertTrue(future.isCancelled());
+      client.close();
+      async.complete();
+    });
+  }
+
   @Test
   public void testSendError(final TestContext ctx) {
     final Async async = ctx.async();
@@ -424,6 +1240,52 @@ public class TcpBusTest {
     });
   }
 
+  @Test
+  public void testReconnectPolicy(final TestContext ctx) throws Exception {
+    final Async async = ctx.async();
+    ExponentialBackoff backoff = new ExponentialBackoff().setMinDelay(20).setMaxDelay(80).setJitter(Jitter.NONE);
+    List<Long> delays = Collections.synchronizedList(new ArrayList<>());
+    AtomicReference<Runnable> restart = new AtomicReference<>();
+    baseOptions.setReconnectPolicy((attempt, previousDelay) -> {
+      long delay = backoff.delay(attempt, previousDelay);
+      delays.add(delay);
+      if (attempt == 4) {
+        restart.get().run();
+      }
+      return delay;
+    });
+    EventBusClient client = client(ctx);
+    vertx.eventBus().consumer("server_addr", msg -> {
+      ctx.assertEquals(Arrays.asList(20L, 40L, 80L, 80L), new ArrayList<>(delays.subList(0, 4)));
+      ReconnectMetrics metrics = client.reconnectMetrics();
+      ctx.assertEquals(1L, metrics.reconnects());
+      ctx.assertEquals((long) delays.size(), metrics.attempts());
+      ctx.assertEquals(0, metrics.consecutiveAttempts());
+      ctx.assertTrue(metrics.lastOutage() >= 220);
+      client.close();
+      async.complete();
+    });
+    whileDisconnected(ctx, client, r -> {
+      restart.set(r);
+      client.send("server_addr", "hello");
+    });
+  }
+
+  @Test
+  public void testEndpointFailover(final TestContext ctx) throws Exception {
+    final Async async = ctx.async();
+    // Nothing listens on the first endpoint, the client must not pause before trying the second one
+    baseOptions.setAutoReconnectInterval(60000).addEndpoint("localhost", 7999).addEndpoint("localhost", 7000);
+    EventBusClient client = client(ctx);
+    vertx.eventBus().consumer("server_addr", msg -> {
+      ctx.assertEquals(new Endpoint("localhost", 7000), client.endpoint());
+      ctx.assertEquals(0L, client.reconnectMetrics().attempts());
+      client.close();
+      async.complete();
+    });
+    client.send("server_addr", "hello");
+  }
+
   @Test
   public void testSendDefaultOptionsHeaders(final TestContext ctx) throws Exception {
     final Async async = ctx.async(3);
@@ -716,6 +1578,38 @@ public class TcpBusTest {
     });
   }
 
+  @Test
+  public void testRequestLatencies(final TestContext ctx) {
+    final Async async = ctx.async();
+    baseOptions.setRequestLatencyHistograms(true).setMaxLatencyHistograms(2);
+    EventBusClient client = client(ctx);
+    vertx.eventBus().consumer("slow_addr", msg -> vertx.setTimer(50, id -> msg.reply("pong")));
+    vertx.eventBus().consumer("fast_addr", msg -> msg.reply("pong"));
+    vertx.eventBus().consumer("other_addr", msg -> msg.fail(0, "failed"));
+    AtomicInteger replies = new AtomicInteger();
+    for (int i = 0;i < 10;i++) {
+      for (String address : Arrays.asList("slow_addr", "fast_addr", "other_addr")) {
+        client.request(address, "ping", ar -> {
+          if (replies.incrementAndGet() == 30) {
+            Map<String, LatencySnapshot> latencies = client.requestLatencies(true);
+            // The slow replies are received last, when all the histograms are taken
+            ctx.assertEquals(new HashSet<>(Arrays.asList("fast_addr", "other_addr", EventBusClient.OTHER_ADDRESSES)), latencies.keySet());
+            LatencySnapshot slow = latencies.get(EventBusClient.OTHER_ADDRESSES);
+            ctx.assertEquals(10L, slow.count());
+            ctx.assertTrue(slow.min() >= 50000, "Unexpected min " + slow.min());
+            ctx.assertTrue(slow.p50() >= slow.min() && slow.p50() <= slow.p99(), slow.toString());
+            ctx.assertTrue(slow.p99() <= slow.p999() && slow.p999() == slow.max(), slow.toString());
+            ctx.assertEquals(10L, latencies.get("fast_addr").count());
+            ctx.assertEquals(10L, latencies.get("other_addr").count());
+            ctx.assertEquals(0L, client.requestLatencies(false).get("fast_addr").count());
+            client.close();
+            async.complete();
+          }
+        });
+      }
+    }
+  }
+
   protected void performHelloWorldFailure(final TestContext ctx, final Async async, final EventBusClient client) {
     client.connectedHandler(event -> {
       client.close();
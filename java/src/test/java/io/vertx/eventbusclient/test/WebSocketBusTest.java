@@ -2,8 +2,12 @@ package io.vertx.eventbusclient.test;
 
 import io.vertx.core.http.HttpServer;
 import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.http.WebSocketFrame;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.net.JksOptions;
+import io.vertx.core.net.NetSocket;
 import io.vertx.eventbusclient.EventBusClient;
 import io.vertx.eventbusclient.EventBusClientOptions;
 import io.vertx.eventbusclient.Handler;
@@ -21,9 +25,14 @@ import org.littleshoot.proxy.HttpProxyServer;
 import org.littleshoot.proxy.impl.DefaultHttpProxyServer;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -205,9 +214,145 @@ public class WebSocketBusTest extends TcpBusTest {
     client.connect();
   }
 
+  @Test
+  public void testWebSocketCompression(final TestContext ctx) {
+    final Async async = ctx.async();
+    // Relay the connections to the bridge and count the bytes the client sends
+    AtomicLong sent = new AtomicLong();
+    Async listen = ctx.async();
+    vertx.createNetServer().connectHandler(so -> {
+      so.pause();
+      vertx.createNetClient().connect(7000, "localhost", ctx.asyncAssertSuccess(bridge -> {
+        so.handler(buff -> {
+          sent.addAndGet(buff.length());
+          bridge.write(buff);
+        });
+        bridge.handler(so::write);
+        so.closeHandler(v -> bridge.close());
+        bridge.closeHandler(v -> so.close());
+        so.resume();
+      }));
+    }).listen(7002, ctx.asyncAssertSuccess(s -> listen.complete()));
+    listen.awaitSuccess(10000);
+    baseOptions.setPort(7002).setAutoReconnect(false).setWebSocketCompression(true).setWebSocketCompressionLevel(9)
+      .setWebSocketFragmentSize(8192);
+    EventBusClient client = client(ctx);
+    vertx.eventBus().consumer("server_addr", msg -> msg.reply(msg.body()));
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0;i < 4096;i++) {
+      sb.append("compressible ");
+    }
+    String large = sb.toString();
+    client.request("server_addr", "small", small -> {
+      ctx.assertTrue(small.succeeded());
+      ctx.assertEquals("small", small.result().body());
+      client.request("server_addr", large, ar -> {
+        ctx.assertTrue(ar.succeeded());
+        ctx.assertEquals(large, ar.result().body());
+        ctx.assertTrue(sent.get() < large.length() / 4, "Sent " + sent.get() + " bytes");
+        client.close();
+        async.complete();
+      });
+    });
+  }
+
+  /**
+   * Starts a WebSocket server on port 7002 calling {@code handler} with each message it receives, reassembled
+   * from its fragments, and recording the size of each fragment in {@code fragments}.
+   */
+  private void startWebSocketServer(TestContext ctx, List<Integer> fragments, BiConsumer<ServerWebSocket, JsonObject> handler) {
+    Async listen = ctx.async();
+    vertx.createHttpServer().webSocketHandler(ws -> {
+      Buffer[] message = { Buffer.buffer() };
+      ws.frameHandler(frame -> {
+        if (frame.isBinary() || frame.isText() || frame.isContinuation()) {
+          fragments.add(frame.binaryData().length());
+          message[0].appendBuffer(frame.binaryData());
+          if (frame.isFinal()) {
+            JsonObject json = new JsonObject(message[0]);
+            message[0] = Buffer.buffer();
+            handler.accept(ws, json);
+          }
+        }
+      });
+    }).listen(7002, ctx.asyncAssertSuccess(s -> listen.complete()));
+    listen.awaitSuccess(10000);
+  }
+
+  /**
+   * Writes {@code message} to {@code ws} in {@code count} text fragments.
+   */
+  private static void writeFragmented(ServerWebSocket ws, JsonObject message, int count) {
+    Buffer buff = message.toBuffer();
+    int size = (buff.length() + count - 1) / count;
+    for (int i = 0;i < count;i++) {
+      Buffer fragment = buff.getBuffer(i * size, Math.min(buff.length(), (i + 1) * size));
+      boolean last = i == count - 1;
+      ws.writeFrame(i == 0 ? WebSocketFrame.textFrame(fragment.toString(), last) : WebSocketFrame.continuationFrame(fragment, last));
+    }
+  }
+
+  @Test
+  public void testWebSocketFragments(final TestContext ctx) {
+    final Async async = ctx.async();
+    List<Integer> fragments = new CopyOnWriteArrayList<>();
+    startWebSocketServer(ctx, fragments, (ws, msg) -> {
+      if ("send".equals(msg.getString("type"))) {
+        // Echo the request in text fragments
+        writeFragmented(ws, new JsonObject()
+          .put("type", "message")
+          .put("address", msg.getString("replyAddress"))
+          .put("body", msg.getValue("body")), 3);
+      }
+    });
+    baseOptions.setPort(7002).setAutoReconnect(false).setWebSocketFragmentSize(1024);
+    EventBusClient client = client(ctx);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0;i < 1000;i++) {
+      sb.append(i).append(' ');
+    }
+    String body = sb.toString();
+    client.request("server_addr", body, ar -> {
+      ctx.assertTrue(ar.succeeded());
+      ctx.assertEquals(body, ar.result().body());
+      List<Integer> sizes = new ArrayList<>(fragments);
+      ctx.assertTrue(sizes.size() > 3, "Expected several fragments " + sizes);
+      for (int size : sizes) {
+        ctx.assertTrue(size <= 1024, "Fragment larger than 1024 bytes " + sizes);
+      }
+      client.close();
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testMaxWebSocketMessageSize(final TestContext ctx) {
+    final Async async = ctx.async();
+    startWebSocketServer(ctx, new CopyOnWriteArrayList<>(), (ws, msg) -> {
+      if ("send".equals(msg.getString("type"))) {
+        char[] chars = new char[2048];
+        Arrays.fill(chars, 'a');
+        writeFragmented(ws, new JsonObject()
+          .put("type", "message")
+          .put("address", msg.getString("replyAddress"))
+          .put("body", new String(chars)), 4);
+      }
+    });
+    baseOptions.setPort(7002).setAutoReconnect(false).setMaxWebSocketMessageSize(1024);
+    EventBusClient client = client(ctx);
+    client.exceptionHandler(err -> {
+    });
+    client.closeHandler(v -> {
+      client.close();
+      async.complete();
+    });
+    client.request("server_addr", "hello", ar -> ctx.fail("Unexpected reply"));
+  }
+
   private String getStringForJsonObjectTargetByteSize(TestContext ctx, String address, int numberOfBytes) {
 
-    String replyAddress = UUID.randomUUID().toString();
+    // Same length as the reply address of the first request of a client
+    String replyAddress = "_abcdef.1";
     int envelopeLength = ctx.<JsonCodec>get("codec").encode(this.getMessageEnvelope(address, replyAddress, "")).getBytes(StandardCharsets.UTF_8).length;
 
     String body = getStringWithSize(numberOfBytes - envelopeLength);